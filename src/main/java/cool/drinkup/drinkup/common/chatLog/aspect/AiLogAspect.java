@@ -13,8 +13,10 @@ import io.micrometer.tracing.Tracer;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -22,7 +24,10 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.context.expression.MethodBasedEvaluationContext;
@@ -32,6 +37,7 @@ import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @Aspect
@@ -67,13 +73,14 @@ public class AiLogAspect {
 
         // 校验方法返回类型
         Class<?> returnType = method.getReturnType();
-        if (!ChatResponse.class.isAssignableFrom(returnType)) {
-            log.error("AiLog 注解只能用于返回类型为 String 或 ChatResponse 的方法，当前方法: {}", method.getName());
+        boolean stream = Flux.class.isAssignableFrom(returnType);
+        if (!ChatResponse.class.isAssignableFrom(returnType) && !stream) {
+            log.error("AiLog 注解只能用于返回类型为 ChatResponse 或 Flux<ChatResponse> 的方法，当前方法: {}", method.getName());
             return joinPoint.proceed();
         }
         Prompt prompt = extractPrompt(joinPoint);
         if (prompt == null) {
-            log.error("AiLog 注解只能用于返回类型为 String 或 ChatResponse 的方法，当前方法: {}", method.getName());
+            log.error("AiLog 注解只能用于参数包含 Prompt 的方法，当前方法: {}", method.getName());
             return joinPoint.proceed();
         }
         Object[] args = joinPoint.getArgs();
@@ -81,8 +88,10 @@ public class AiLogAspect {
                 new MethodBasedEvaluationContext(null, method, args, new DefaultParameterNameDiscoverer());
 
         String conversationId = parseSpEL(aiLog.conversationId(), context);
-        String errorMessage = null;
-        String status = "success";
+
+        if (stream) {
+            return logStream(joinPoint, prompt, start, conversationId);
+        }
 
         try {
             result = joinPoint.proceed();
@@ -90,52 +99,98 @@ public class AiLogAspect {
         } catch (Throwable e) {
             throw e;
         } finally {
-            Object finalResult = result;
-            Prompt finalPrompt = prompt;
-            Instant finalStart = start;
-            String finalConversationId = conversationId;
-            String finalStatus = status;
-            String finalErrorMessage = errorMessage;
-            // 安全获取 traceId
-            Span currentSpan = tracer.currentSpan();
-            String traceId = currentSpan != null ? currentSpan.context().traceId() : null;
-            Long userId = authenticationServiceFacade
-                    .getCurrentAuthenticatedUser()
-                    .map(AuthenticatedUserDTO::userId)
-                    .orElse(null);
-            threadPoolTaskExecutor.execute(() -> {
-                try {
-                    Instant end = Instant.now();
-                    String requestInput = safeSerialize(finalPrompt);
-                    String responseOutput = safeSerialize(finalResult);
-                    ChatOptions chatOptions = finalPrompt.getOptions();
-                    ChatResponse chatResponse = (ChatResponse) finalResult;
-
-                    aiChatLogRepository.save(AiChatLog.builder()
-                            .timestamp(Instant.now())
-                            .traceId(traceId)
-                            .conversationId(finalConversationId)
-                            .requestInput(requestInput)
-                            .responseOutput(responseOutput)
-                            .latency(Duration.between(finalStart, end).toMillis())
-                            .modelName(chatOptions.getModel())
-                            .userId(userId)
-                            .status(finalStatus)
-                            .errorMessage(finalErrorMessage)
-                            .promptTokens(chatResponse.getMetadata().getUsage().getPromptTokens())
-                            .completionTokens(
-                                    chatResponse.getMetadata().getUsage().getCompletionTokens())
-                            .totalTokens(chatResponse.getMetadata().getUsage().getTotalTokens())
-                            .build());
-                } catch (Exception e) {
-                    log.error("Failed to save AI chat log", e);
-                }
-            });
+            saveLog(prompt, (ChatResponse) result, start, conversationId, currentTraceId(), currentUserId());
         }
 
         return result;
     }
 
+    /**
+     * 流式调用在流正常结束后合并所有增量，按一次完整回复记录
+     * traceId 和用户在调用线程上获取，流可能在其他线程结束
+     */
+    @SuppressWarnings("unchecked")
+    private Flux<ChatResponse> logStream(
+            ProceedingJoinPoint joinPoint, Prompt prompt, Instant start, String conversationId) throws Throwable {
+        String traceId = currentTraceId();
+        Long userId = currentUserId();
+        Flux<ChatResponse> responses = (Flux<ChatResponse>) joinPoint.proceed();
+        return Flux.defer(() -> {
+            StringBuilder text = new StringBuilder();
+            AtomicReference<ChatResponseMetadata> metadata = new AtomicReference<>();
+            return responses
+                    .doOnNext(response -> {
+                        if (response.getResult() != null
+                                && response.getResult().getOutput() != null
+                                && response.getResult().getOutput().getText() != null) {
+                            text.append(response.getResult().getOutput().getText());
+                        }
+                        if (response.getMetadata() != null) {
+                            metadata.set(response.getMetadata());
+                        }
+                    })
+                    .doOnComplete(() -> saveLog(
+                            prompt,
+                            new ChatResponse(
+                                    List.of(new Generation(new AssistantMessage(text.toString()))),
+                                    metadata.get() != null ? metadata.get() : new ChatResponseMetadata()),
+                            start,
+                            conversationId,
+                            traceId,
+                            userId));
+        });
+    }
+
+    private String currentTraceId() {
+        // 安全获取 traceId
+        Span currentSpan = tracer.currentSpan();
+        return currentSpan != null ? currentSpan.context().traceId() : null;
+    }
+
+    private Long currentUserId() {
+        return authenticationServiceFacade
+                .getCurrentAuthenticatedUser()
+                .map(AuthenticatedUserDTO::userId)
+                .orElse(null);
+    }
+
+    private void saveLog(
+            Prompt prompt,
+            ChatResponse chatResponse,
+            Instant start,
+            String conversationId,
+            String traceId,
+            Long userId) {
+        String status = "success";
+        String errorMessage = null;
+        threadPoolTaskExecutor.execute(() -> {
+            try {
+                Instant end = Instant.now();
+                String requestInput = safeSerialize(prompt);
+                String responseOutput = safeSerialize(chatResponse);
+                ChatOptions chatOptions = prompt.getOptions();
+
+                aiChatLogRepository.save(AiChatLog.builder()
+                        .timestamp(Instant.now())
+                        .traceId(traceId)
+                        .conversationId(conversationId)
+                        .requestInput(requestInput)
+                        .responseOutput(responseOutput)
+                        .latency(Duration.between(start, end).toMillis())
+                        .modelName(chatOptions.getModel())
+                        .userId(userId)
+                        .status(status)
+                        .errorMessage(errorMessage)
+                        .promptTokens(chatResponse.getMetadata().getUsage().getPromptTokens())
+                        .completionTokens(chatResponse.getMetadata().getUsage().getCompletionTokens())
+                        .totalTokens(chatResponse.getMetadata().getUsage().getTotalTokens())
+                        .build());
+            } catch (Exception e) {
+                log.error("Failed to save AI chat log", e);
+            }
+        });
+    }
+
     private String safeSerialize(Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
@@ -1,6 +1,7 @@
 package cool.drinkup.drinkup.infrastructure.internal.image.config.properties;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import cool.drinkup.drinkup.shared.spi.ConcurrencyLimitProperties;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -21,6 +22,11 @@ public class FalProperties {
 
     private ImageGenerationRequest imageProperties = new ImageGenerationRequest();
 
+    /**
+     * 每个 endpoint 的并发限制
+     */
+    private ConcurrencyLimitProperties concurrency = new ConcurrencyLimitProperties();
+
     /**
      * 图片生成请求配置
      */
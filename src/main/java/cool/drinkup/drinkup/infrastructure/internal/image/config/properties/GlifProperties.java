@@ -1,5 +1,6 @@
 package cool.drinkup.drinkup.infrastructure.internal.image.config.properties;
 
+import cool.drinkup.drinkup.shared.spi.ConcurrencyLimitProperties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -13,4 +14,9 @@ public class GlifProperties {
     private String glifId;
     private String weights =
             "https://huggingface.co/alvdansen/softpasty-flux-dev/resolve/main/araminta_k_softpasty_diffusion_flux.safetensors";
+
+    /**
+     * 每个 glif 的并发限制
+     */
+    private ConcurrencyLimitProperties concurrency = new ConcurrencyLimitProperties();
 }
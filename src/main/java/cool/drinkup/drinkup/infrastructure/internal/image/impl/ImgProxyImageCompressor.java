@@ -24,6 +24,11 @@ public class ImgProxyImageCompressor implements ImageCompressor {
         return buildSignedUrl(imageUrl, properties.getParam());
     }
 
+    @Override
+    public String preset() {
+        return properties.getParam();
+    }
+
     private String buildSignedUrl(String imageUrl, String processingParam) {
         try {
             String encodedSourceUrl = URLEncoder.encode(imageUrl, StandardCharsets.UTF_8);
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.JsonObject;
 import cool.drinkup.drinkup.infrastructure.spi.image.ImageGenerator;
 import cool.drinkup.drinkup.infrastructure.spi.image.config.FalConfig;
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,20 +21,28 @@ public class FalImageGenerator implements ImageGenerator {
     private final FalConfig config;
     private final FalClient falClient;
     private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
-    private FalImageGenerator(FalConfig config, ObjectMapper objectMapper) {
+    private FalImageGenerator(
+            FalConfig config, ObjectMapper objectMapper, AdaptiveConcurrencyLimiter concurrencyLimiter) {
         this.config = config;
         this.objectMapper = objectMapper;
+        this.concurrencyLimiter = concurrencyLimiter;
         this.falClient =
                 FalClient.withConfig(ClientConfig.withCredentials(CredentialsResolver.fromApiKey(config.apiKey())));
     }
 
-    public static FalImageGenerator create(FalConfig config, ObjectMapper objectMapper) {
-        return new FalImageGenerator(config, objectMapper);
+    public static FalImageGenerator create(
+            FalConfig config, ObjectMapper objectMapper, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new FalImageGenerator(config, objectMapper, concurrencyLimiter);
     }
 
     @Override
     public String generateImage(String prompt) {
+        return concurrencyLimiter.execute(() -> doGenerateImage(prompt));
+    }
+
+    private String doGenerateImage(String prompt) {
         try {
             var input = config.imageProperties();
             var finalPrompt = config.triggerWord() + "," + prompt;
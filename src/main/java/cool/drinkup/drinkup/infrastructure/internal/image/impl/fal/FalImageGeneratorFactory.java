@@ -1,7 +1,12 @@
 package cool.drinkup.drinkup.infrastructure.internal.image.impl.fal;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.infrastructure.internal.image.config.properties.FalProperties;
 import cool.drinkup.drinkup.infrastructure.spi.image.config.FalConfig;
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -14,18 +19,32 @@ import org.springframework.stereotype.Component;
 public class FalImageGeneratorFactory {
 
     private final ObjectMapper objectMapper;
+    private final FalProperties falProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 同一 endpoint 的所有实例共享并发限制
+     */
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
 
     /**
      * 使用完整配置创建实例
      */
     public FalImageGenerator create(FalConfig config) {
-        return FalImageGenerator.create(config, objectMapper);
+        return FalImageGenerator.create(config, objectMapper, limiterFor(config));
     }
 
     /**
      * 使用 Builder 模式创建实例
      */
     public FalImageGenerator create(FalConfig.Builder configBuilder) {
-        return FalImageGenerator.create(configBuilder.build(), objectMapper);
+        return create(configBuilder.build());
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(FalConfig config) {
+        String key = config.endpointId() == null ? "default" : config.endpointId();
+        return limiters.computeIfAbsent(
+                key,
+                k -> new AdaptiveConcurrencyLimiter("image:fal:" + k, falProperties.getConcurrency(), meterRegistry));
     }
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import cool.drinkup.drinkup.infrastructure.internal.image.impl.dto.GlifImageRequest;
 import cool.drinkup.drinkup.infrastructure.spi.image.ImageGenerator;
 import cool.drinkup.drinkup.infrastructure.spi.image.config.GlifConfig;
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.client.RestClient;
@@ -15,19 +16,27 @@ public class GlifImageGenerator implements ImageGenerator {
 
     private final RestClient restClient = RestClient.builder().build();
     private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
     private final GlifConfig config;
 
-    private GlifImageGenerator(GlifConfig config, ObjectMapper objectMapper) {
+    private GlifImageGenerator(
+            GlifConfig config, ObjectMapper objectMapper, AdaptiveConcurrencyLimiter concurrencyLimiter) {
         this.config = config;
         this.objectMapper = objectMapper;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
-    public static GlifImageGenerator create(GlifConfig config, ObjectMapper objectMapper) {
-        return new GlifImageGenerator(config, objectMapper);
+    public static GlifImageGenerator create(
+            GlifConfig config, ObjectMapper objectMapper, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new GlifImageGenerator(config, objectMapper, concurrencyLimiter);
     }
 
     @Override
     public String generateImage(String prompt) {
+        return concurrencyLimiter.execute(() -> doGenerateImage(prompt));
+    }
+
+    private String doGenerateImage(String prompt) {
         try {
             String finalPrompt = prompt + ", " + config.triggerWord();
             GlifImageRequest.Input input = new GlifImageRequest.Input(config.weights(), finalPrompt);
@@ -1,7 +1,12 @@
 package cool.drinkup.drinkup.infrastructure.internal.image.impl.glif;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.infrastructure.internal.image.config.properties.GlifProperties;
 import cool.drinkup.drinkup.infrastructure.spi.image.config.GlifConfig;
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -14,18 +19,32 @@ import org.springframework.stereotype.Component;
 public class GlifImageGeneratorFactory {
 
     private final ObjectMapper objectMapper;
+    private final GlifProperties glifProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 同一 glif 的所有实例共享并发限制
+     */
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
 
     /**
      * 使用完整配置创建实例
      */
     public GlifImageGenerator create(GlifConfig config) {
-        return GlifImageGenerator.create(config, objectMapper);
+        return GlifImageGenerator.create(config, objectMapper, limiterFor(config));
     }
 
     /**
      * 使用 Builder 模式创建实例
      */
     public GlifImageGenerator create(GlifConfig.Builder configBuilder) {
-        return GlifImageGenerator.create(configBuilder.build(), objectMapper);
+        return create(configBuilder.build());
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(GlifConfig config) {
+        String key = config.glifId() == null ? "default" : config.glifId();
+        return limiters.computeIfAbsent(
+                key,
+                k -> new AdaptiveConcurrencyLimiter("image:glif:" + k, glifProperties.getConcurrency(), meterRegistry));
     }
 }
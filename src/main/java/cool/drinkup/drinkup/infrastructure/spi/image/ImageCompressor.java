@@ -11,4 +11,11 @@ public interface ImageCompressor {
      */
     @NewSpan
     public String compress(String imageUrl);
+
+    /**
+     * 当前压缩参数，参数不同时同一图片的压缩结果不同
+     */
+    default String preset() {
+        return "";
+    }
 }
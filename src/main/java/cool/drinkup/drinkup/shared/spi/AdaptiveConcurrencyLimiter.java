@@ -0,0 +1,268 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * 按上游健康状况自动调整的并发限制（AIMD）
+ * 调用耗时在阈值内且并发接近上限时缓慢增加上限；遇到 429、超时或耗时超过阈值时按比例降低上限。
+ * 达到上限的请求进入有界队列按顺序等待，队列已满或等待超时立即拒绝，避免请求堆积在上游重试上
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ConcurrencyLimitProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    /**
+     * 每次降低上限后递增；降低前发出的请求再报告过载时不再重复降低
+     */
+    private long epoch;
+
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.properties = properties;
+        this.limit =
+                Math.max(properties.getMinLimit(), Math.min(properties.getInitialLimit(), properties.getMaxLimit()));
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, name, "queue_full");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, name, "timeout");
+        Gauge.builder("drinkup.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("drinkup.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("drinkup.concurrency.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String name, String reason) {
+        return Counter.builder("drinkup.concurrency.rejected")
+                .tag("name", name)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在并发限制内执行调用
+     * @throws ConcurrencyLimitExceededException 队列已满或排队超时
+     */
+    public <T> T execute(Supplier<T> call) {
+        Permit permit = acquire();
+        try {
+            T value = call.get();
+            permit.success();
+            return value;
+        } catch (RuntimeException | Error e) {
+            permit.failure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取执行许可，调用结束后必须调用 {@link Permit} 的 success、failure 或 ignore 之一释放
+     * @throws ConcurrencyLimitExceededException 队列已满或排队超时
+     */
+    public Permit acquire() {
+        long deadline = System.nanoTime() + properties.getQueueTimeout().toNanos();
+        lock.lock();
+        try {
+            if (hasCapacity() && queued == 0) {
+                return grant();
+            }
+            if (queued >= properties.getMaxQueueSize()) {
+                rejectedQueueFull.increment();
+                throw new ConcurrencyLimitExceededException(name, "queue is full");
+            }
+            queued++;
+            try {
+                while (!hasCapacity()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejectedTimeout.increment();
+                        throw new ConcurrencyLimitExceededException(name, "timed out waiting in queue");
+                    }
+                    available.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrencyLimitExceededException(name, "interrupted while waiting in queue");
+            } finally {
+                queued--;
+            }
+            return grant();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasCapacity() {
+        return !properties.isEnabled() || inFlight < (int) limit;
+    }
+
+    private Permit grant() {
+        inFlight++;
+        return new Permit(epoch);
+    }
+
+    private void release(Permit permit, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            int before = (int) limit;
+            if (overloaded) {
+                if (permit.epoch == epoch) {
+                    limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+                    epoch++;
+                    log.warn("Concurrency limit of {} decreased to {}", name, (int) limit);
+                }
+            } else if (permit.sampled && permit.inFlightAtStart * 2 >= before) {
+                // 只有上限真正被用到时才增加，约每 limit 次成功调用增加 1
+                limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+            }
+            if ((int) limit > before) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Spring AI 的 ResponseErrorHandler 只在异常消息中保留状态码，格式为 "状态码 - 响应体"
+     */
+    private static final String AI_RATE_LIMIT_PREFIX = HttpStatus.TOO_MANY_REQUESTS.value() + " - ";
+
+    /**
+     * 429、超时等表示上游过载的异常，只按 HTTP 状态码判断，不匹配任意消息文本
+     */
+    static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseException
+                    && isRateLimited(responseException.getStatusCode())) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException responseException
+                    && isRateLimited(responseException.getStatusCode())) {
+                return true;
+            }
+            if ((cause instanceof TransientAiException || cause instanceof NonTransientAiException)
+                    && cause.getMessage() != null
+                    && cause.getMessage().startsWith(AI_RATE_LIMIT_PREFIX)) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRateLimited(HttpStatusCode statusCode) {
+        return statusCode.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一次执行许可，重复释放会被忽略
+     */
+    public final class Permit {
+        private final long epoch;
+        private final long startTime = System.nanoTime();
+        private final int inFlightAtStart = inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean sampled;
+
+        private Permit(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * 调用成功，耗时计入上限调整
+         */
+        public void success() {
+            if (released.compareAndSet(false, true)) {
+                sampled = true;
+                long latency = System.nanoTime() - startTime;
+                release(this, latency > properties.getLatencyThreshold().toNanos());
+            }
+        }
+
+        /**
+         * 调用失败，只有过载类异常会降低上限
+         */
+        public void failure(Throwable e) {
+            if (released.compareAndSet(false, true)) {
+                release(this, isOverload(e));
+            }
+        }
+
+        /**
+         * 释放许可但不影响上限，用于取消或耗时不具代表性的调用
+         */
+        public void ignore() {
+            if (released.compareAndSet(false, true)) {
+                release(this, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import lombok.Getter;
+
+/**
+ * 上游并发已满且排队失败时抛出
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final String limiterName;
+    private final String reason;
+
+    public ConcurrencyLimitExceededException(String limiterName, String reason) {
+        super("Too many concurrent requests to " + limiterName + ": " + reason);
+        this.limiterName = limiterName;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,36 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import java.time.Duration;
+import lombok.Data;
+
+/**
+ * 自适应并发限制配置
+ */
+@Data
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+
+    private int initialLimit = 10;
+    private int minLimit = 1;
+    private int maxLimit = 50;
+
+    /**
+     * 达到并发上限后最多排队的请求数，超出时立即拒绝
+     */
+    private int maxQueueSize = 50;
+
+    /**
+     * 排队等待的最长时间，超时后拒绝
+     */
+    private Duration queueTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 单次调用耗时超过该值视为上游过载
+     */
+    private Duration latencyThreshold = Duration.ofSeconds(60);
+
+    /**
+     * 过载时并发上限乘以该系数
+     */
+    private double backoffRatio = 0.7;
+}
@@ -0,0 +1,105 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 相同请求合并：同一键同时只有一个调用方执行上游调用，其余调用方等待并共享其结果或异常
+ * 等待超时的调用方自行执行上游调用，上游过慢时不会让所有请求一起失败
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final Duration waitTimeout;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter leaders;
+    private final Counter waiters;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.waitTimeout = waitTimeout;
+        this.leaders = callCounter(meterRegistry, name, "leader");
+        this.waiters = callCounter(meterRegistry, name, "waiter");
+        this.timeouts = Counter.builder("drinkup.singleflight.timeouts")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("drinkup.singleflight.waiting", waiting, AtomicInteger::get)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String name, String role) {
+        return Counter.builder("drinkup.singleflight.calls")
+                .tag("name", name)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行或加入同一键上正在进行的调用
+     * @param key 规范化后的请求指纹
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing == null) {
+            leaders.increment();
+            try {
+                V value = call.get();
+                created.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, created);
+            }
+        }
+
+        waiters.increment();
+        waiting.incrementAndGet();
+        try {
+            return existing.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn(
+                    "Single flight {} waited {} ms for key {}, calling upstream directly",
+                    name,
+                    waitTimeout.toMillis(),
+                    key);
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for in-flight call", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
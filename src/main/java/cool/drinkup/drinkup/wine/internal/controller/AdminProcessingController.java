@@ -1,7 +1,9 @@
 package cool.drinkup.drinkup.wine.internal.controller;
 
 import cool.drinkup.drinkup.shared.spi.CommonResp;
+import cool.drinkup.drinkup.wine.internal.dto.VectorReindexCheckpointDto;
 import cool.drinkup.drinkup.wine.internal.rag.DataLoaderService;
+import cool.drinkup.drinkup.wine.internal.rag.WineReindexService;
 import cool.drinkup.drinkup.wine.internal.service.refresh.AsyncImageProcessingService;
 import cool.drinkup.drinkup.wine.internal.service.refresh.ImageProcessingTaskService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +20,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -36,6 +39,7 @@ public class AdminProcessingController {
     private final ImageProcessingTaskService taskService;
     private final AsyncImageProcessingService asyncService;
     private final DataLoaderService dataLoaderService;
+    private final WineReindexService wineReindexService;
 
     /**
      * Create image processing tasks for unprocessed images
@@ -136,13 +140,33 @@ public class AdminProcessingController {
         }
     }
 
-    @Operation(summary = "加载酒类数据到向量数据库", description = "将酒类相关数据加载到系统中")
-    @ApiResponse(responseCode = "200", description = "Successfully loaded wine data")
+    @Operation(summary = "加载酒类数据到向量数据库", description = "异步分批重建酒类向量数据，默认从上次未完成的进度续跑")
+    @ApiResponse(responseCode = "200", description = "Successfully started wine data loading")
     @PostMapping("/vector-store/load-wine")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> loadWine() {
-        dataLoaderService.loadData();
-        return ResponseEntity.ok().build();
+    public ResponseEntity<CommonResp<VectorReindexCheckpointDto>> loadWine(
+            @Parameter(description = "是否从上次进度续跑", example = "true") @RequestParam(defaultValue = "true")
+                    boolean resume) {
+        log.info("Admin request to load wine data into vector store, resume: {}", resume);
+        return ResponseEntity.ok(CommonResp.success(wineReindexService.start(resume)));
+    }
+
+    @Operation(summary = "获取酒类向量数据加载进度", description = "获取当前或最近一次向量重建任务的进度")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved loading status")
+    @GetMapping("/vector-store/load-wine")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CommonResp<VectorReindexCheckpointDto>> getLoadWineStatus() {
+        return ResponseEntity.ok(CommonResp.success(wineReindexService.getStatus()));
+    }
+
+    @Operation(summary = "取消酒类向量数据加载", description = "在当前批次完成后停止向量重建任务，进度保留可续跑")
+    @ApiResponse(responseCode = "200", description = "Successfully requested cancellation")
+    @DeleteMapping("/vector-store/load-wine")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CommonResp<Map<String, Object>>> cancelLoadWine() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("cancelled", wineReindexService.cancel());
+        return ResponseEntity.ok(CommonResp.success(response));
     }
 
     @PostMapping("/vector-store/add-wine/{wineId}")
@@ -162,4 +186,14 @@ public class AdminProcessingController {
         dataLoaderService.clearData();
         return ResponseEntity.ok().build();
     }
+
+    @GetMapping("/vector-store/count")
+    @Operation(summary = "获取向量文档总数", description = "从文档ID清单统计向量数据库中的酒类文档数")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved document count")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CommonResp<Map<String, Object>>> getVectorStoreCount() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("documentCount", dataLoaderService.getDocumentCount());
+        return ResponseEntity.ok(CommonResp.success(response));
+    }
 }
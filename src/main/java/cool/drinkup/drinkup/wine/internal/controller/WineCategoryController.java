@@ -6,12 +6,12 @@ import cool.drinkup.drinkup.wine.internal.controller.resp.WineSceneCategoryTreeV
 import cool.drinkup.drinkup.wine.internal.controller.resp.WineSceneVo;
 import cool.drinkup.drinkup.wine.internal.controller.resp.WorkflowWineVo;
 import cool.drinkup.drinkup.wine.internal.mapper.WineCategoryMapper;
-import cool.drinkup.drinkup.wine.internal.mapper.WineMapper;
 import cool.drinkup.drinkup.wine.internal.model.Wine;
 import cool.drinkup.drinkup.wine.internal.model.WineCategory;
 import cool.drinkup.drinkup.wine.internal.model.WineScene;
 import cool.drinkup.drinkup.wine.internal.service.WineCategoryService;
 import cool.drinkup.drinkup.wine.internal.service.WineSceneService;
+import cool.drinkup.drinkup.wine.internal.service.WineService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -36,7 +36,7 @@ public class WineCategoryController {
 
     private final WineSceneService sceneService;
     private final WineCategoryService categoryService;
-    private final WineMapper wineMapper;
+    private final WineService wineService;
     private final WineCategoryMapper categoryMapper;
 
     // ========== 场景相关接口 ==========
@@ -134,7 +134,7 @@ public class WineCategoryController {
             @RequestParam(defaultValue = "10") int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
         Page<Wine> wines = categoryService.getWinesByScene(sceneId, pageRequest);
-        Page<WorkflowWineVo> wineVos = wines.map(wineMapper::toWineVo);
+        Page<WorkflowWineVo> wineVos = wineService.toWineVoPage(wines);
         return ResponseEntity.ok(CommonResp.success(wineVos));
     }
 
@@ -154,7 +154,7 @@ public class WineCategoryController {
             @RequestParam(defaultValue = "10") int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
         Page<Wine> wines = categoryService.getWinesByCategory(categoryId, pageRequest);
-        Page<WorkflowWineVo> wineVos = wines.map(wineMapper::toWineVo);
+        Page<WorkflowWineVo> wineVos = wineService.toWineVoPage(wines);
         return ResponseEntity.ok(CommonResp.success(wineVos));
     }
 }
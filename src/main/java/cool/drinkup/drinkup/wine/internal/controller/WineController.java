@@ -81,7 +81,7 @@ public class WineController {
             @RequestParam(defaultValue = "10") int size) {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("id").ascending());
         Page<Wine> wines = wineService.getWinesByTag(tag, iba, pageRequest);
-        Page<WorkflowWineVo> wineVos = wines.map(wineMapper::toWineVo);
+        Page<WorkflowWineVo> wineVos = wineService.toWineVoPage(wines);
         return ResponseEntity.ok(CommonResp.success(wineVos));
     }
 
@@ -0,0 +1,42 @@
+package cool.drinkup.drinkup.wine.internal.dto;
+
+import cool.drinkup.drinkup.wine.internal.enums.VectorReindexStatusEnum;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class VectorReindexCheckpointDto {
+    private String runId;
+    private VectorReindexStatusEnum status;
+
+    /**
+     * 已完整写入的最后一个酒单ID，续跑时从该ID之后开始
+     */
+    private Long lastWineId = 0L;
+
+    private Long processedWines = 0L;
+
+    /**
+     * 内容指纹未变化而跳过嵌入的酒单数
+     */
+    private Long skippedWines = 0L;
+
+    private Long failedWines = 0L;
+    private Long documentsWritten = 0L;
+    private List<Long> failedWineIds = new ArrayList<>();
+    private String errorMessage;
+    private Long startedAt;
+    private Long updatedAt;
+    private Long finishedAt;
+
+    public static VectorReindexCheckpointDto newRun() {
+        VectorReindexCheckpointDto checkpoint = new VectorReindexCheckpointDto();
+        checkpoint.setRunId(UUID.randomUUID().toString());
+        checkpoint.setStartedAt(System.currentTimeMillis());
+        return checkpoint;
+    }
+}
@@ -0,0 +1,12 @@
+package cool.drinkup.drinkup.wine.internal.enums;
+
+public enum VectorReindexStatusEnum {
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED,
+    /**
+     * 进度显示运行中，但没有实例持有运行租约（进程崩溃或重启），可续跑
+     */
+    INTERRUPTED;
+}
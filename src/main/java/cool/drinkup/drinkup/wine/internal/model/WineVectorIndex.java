@@ -0,0 +1,47 @@
+package cool.drinkup.drinkup.wine.internal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * 酒单向量索引记录，保存已写入向量库的内容指纹和文档ID清单
+ */
+@Entity
+@Table(name = "wine_vector_index")
+@Getter
+@Setter
+public class WineVectorIndex {
+
+    @Id
+    @Column(name = "wine_id")
+    private Long wineId;
+
+    /**
+     * 可嵌入内容 + 分类ID + 嵌入模型 的 SHA-256
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /**
+     * 该酒单写入向量库的文档ID清单，删除和替换时按ID精确操作
+     */
+    @Column(name = "document_ids", columnDefinition = "json")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> documentIds = new ArrayList<>();
+
+    @Column(name = "document_count", nullable = false)
+    private Integer documentCount = 0;
+
+    @Column(name = "indexed_at", columnDefinition = "TIMESTAMP")
+    private ZonedDateTime indexedAt = ZonedDateTime.now(ZoneOffset.UTC);
+}
@@ -0,0 +1,123 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import cool.drinkup.drinkup.wine.internal.rag.config.HybridSearchProperties;
+import cool.drinkup.drinkup.wine.internal.rag.lexical.ReciprocalRankFusion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * 酒单混合检索
+ * 查询与酒名完全一致时直接返回关键词结果，不调用嵌入接口；
+ * 否则关键词检索与向量检索各召回 topK 的若干倍，按 RRF 融合后取前 topK
+ */
+@Slf4j
+@Component
+public class HybridWineRetriever {
+
+    private final VectorStore vectorStore;
+    private final WineSearchRequestFactory wineSearchRequestFactory;
+    private final WineKeywordIndex wineKeywordIndex;
+    private final HybridSearchProperties properties;
+    private final WineSearchResultCache wineSearchResultCache;
+
+    private final Counter exactSearches;
+    private final Counter hybridSearches;
+    private final Counter vectorSearches;
+
+    public HybridWineRetriever(
+            VectorStore vectorStore,
+            WineSearchRequestFactory wineSearchRequestFactory,
+            WineKeywordIndex wineKeywordIndex,
+            HybridSearchProperties properties,
+            WineSearchResultCache wineSearchResultCache,
+            MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.wineSearchRequestFactory = wineSearchRequestFactory;
+        this.wineKeywordIndex = wineKeywordIndex;
+        this.properties = properties;
+        this.wineSearchResultCache = wineSearchResultCache;
+        this.exactSearches = searchCounter(meterRegistry, "exact");
+        this.hybridSearches = searchCounter(meterRegistry, "hybrid");
+        this.vectorSearches = searchCounter(meterRegistry, "vector");
+    }
+
+    private static Counter searchCounter(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("drinkup.wine.search").tag("mode", mode).register(meterRegistry);
+    }
+
+    /**
+     * 先查检索结果缓存，未命中时执行检索；关键词索引构建完成之前不使用缓存，避免缓存只有向量检索的结果
+     * @return 按相关度降序的酒单
+     */
+    public List<WineSearchHit> retrieve(String query, int topK, List<Long> categoryIds) {
+        if (properties.isEnabled() && !wineKeywordIndex.isReady()) {
+            return search(query, topK, categoryIds);
+        }
+        return wineSearchResultCache.getOrSearch(query, topK, categoryIds, () -> search(query, topK, categoryIds));
+    }
+
+    private List<WineSearchHit> search(String query, int topK, List<Long> categoryIds) {
+        if (!properties.isEnabled() || !wineKeywordIndex.isReady()) {
+            vectorSearches.increment();
+            return vectorSearch(query, topK, categoryIds);
+        }
+
+        if (properties.isExactMatchShortCircuit()) {
+            List<Long> exact = wineKeywordIndex.exactMatch(query, categoryIds);
+            if (!exact.isEmpty()) {
+                exactSearches.increment();
+                log.info("Exact name match for query '{}': {}", query, exact);
+                Map<Long, WineSearchHit> hits = new LinkedHashMap<>();
+                exact.forEach(wineId -> hits.put(wineId, new WineSearchHit(wineId, Double.MAX_VALUE)));
+                wineKeywordIndex.search(query, topK, categoryIds).forEach(hit -> hits.putIfAbsent(hit.wineId(), hit));
+                return hits.values().stream().limit(topK).toList();
+            }
+        }
+
+        hybridSearches.increment();
+        int candidates = topK * Math.max(1, properties.getCandidateMultiplier());
+        List<Long> lexical = wineKeywordIndex.search(query, candidates, categoryIds).stream()
+                .map(WineSearchHit::wineId)
+                .toList();
+        List<Long> vector = vectorSearch(query, candidates, categoryIds).stream()
+                .map(WineSearchHit::wineId)
+                .toList();
+        List<WineSearchHit> fused =
+                ReciprocalRankFusion.fuse(List.of(lexical, vector), properties.getRrfK(), topK).stream()
+                        .map(hit -> new WineSearchHit(hit.id(), hit.score()))
+                        .toList();
+        log.info("Hybrid search for query '{}': lexical={}, vector={}, fused={}", query, lexical, vector, fused);
+        return fused;
+    }
+
+    /**
+     * 向量检索，按相似度降序返回去重后的酒单
+     */
+    private List<WineSearchHit> vectorSearch(String query, int topK, List<Long> categoryIds) {
+        List<Document> results = vectorStore.similaritySearch(wineSearchRequestFactory.build(query, topK, categoryIds));
+        Map<Long, WineSearchHit> hits = new LinkedHashMap<>();
+        results.stream()
+                .sorted((doc1, doc2) -> {
+                    Double score1 = doc1.getScore();
+                    Double score2 = doc2.getScore();
+                    if (score1 == null && score2 == null) return 0;
+                    if (score1 == null) return 1; // null分数排在后面
+                    if (score2 == null) return -1;
+                    return Double.compare(score2, score1); // 降序排序，分数高的在前
+                })
+                .forEach(doc -> {
+                    long wineId = (long)
+                            Double.parseDouble(doc.getMetadata().get("wineId").toString());
+                    double score = doc.getScore() == null ? 0 : doc.getScore();
+                    hits.putIfAbsent(wineId, new WineSearchHit(wineId, score));
+                });
+        return List.copyOf(hits.values());
+    }
+}
@@ -0,0 +1,79 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.rag.config.EmbeddingConfig;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 将酒单转换为向量库文档
+ * 每个酒单只生成一个文档，所属分类以数组形式放在 categoryId 元数据中
+ */
+@Component
+@RequiredArgsConstructor
+public class WineDocumentFactory {
+
+    private final EmbeddingConfig embeddingConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().addMixIn(Wine.class, EmbeddableWine.class);
+
+    /**
+     * 收藏数、图片、卡片样式等字段与语义无关且经常变化，不参与嵌入，避免触发无意义的重新嵌入
+     */
+    @JsonIgnoreProperties({"favoriteCount", "favoriteType", "image", "cardImage", "processedImage", "cardStyle"})
+    private abstract static class EmbeddableWine {}
+
+    public Document createDocument(Wine wine, List<Long> categoryIds) throws JsonProcessingException {
+        Long wineId = Long.valueOf(wine.getId());
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("wineId", wineId);
+        if (!CollectionUtils.isEmpty(categoryIds)) {
+            metadata.put("categoryId", categoryIds.stream().sorted().toList());
+        }
+        return new Document(documentId(wineId), toContent(wine), metadata);
+    }
+
+    /**
+     * 计算酒单可嵌入内容的指纹，内容、分类或嵌入模型任一变化都会导致指纹变化
+     */
+    public String fingerprint(Wine wine, List<Long> categoryIds) throws JsonProcessingException {
+        List<Long> sortedCategoryIds =
+                categoryIds == null ? List.of() : categoryIds.stream().sorted().toList();
+        String source = toContent(wine)
+                + "|"
+                + sortedCategoryIds
+                + "|"
+                + embeddingConfig.getOpenai().getModel();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 同一酒单的文档ID固定，便于按ID精确替换
+     */
+    public String documentId(Long wineId) {
+        return UUID.nameUUIDFromBytes(("wine:" + wineId).getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    private String toContent(Wine wine) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(wine);
+    }
+}
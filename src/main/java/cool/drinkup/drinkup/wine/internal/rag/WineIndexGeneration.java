@@ -0,0 +1,47 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import cool.drinkup.drinkup.wine.internal.rag.config.WineSearchCacheProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 酒单索引版本号，保存在 Redis 中供所有实例共享
+ * 向量索引每次写入或删除后递增，检索结果缓存以版本号作为键的一部分，索引变更后旧结果自然失效
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WineIndexGeneration {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final WineSearchCacheProperties properties;
+
+    /**
+     * 当前版本号，Redis 不可用时返回 null，调用方应跳过缓存
+     */
+    public String current() {
+        try {
+            String generation = redisTemplate.opsForValue().get(properties.getGenerationKey());
+            return generation == null ? "0" : generation;
+        } catch (Exception e) {
+            log.warn("Failed to read wine index generation: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return 递增后的版本号，Redis 不可用时返回 null
+     */
+    public Long bump() {
+        try {
+            Long generation = redisTemplate.opsForValue().increment(properties.getGenerationKey());
+            log.debug("Wine index generation bumped to {}", generation);
+            return generation;
+        } catch (Exception e) {
+            log.warn("Failed to bump wine index generation: {}", e.getMessage());
+            return null;
+        }
+    }
+}
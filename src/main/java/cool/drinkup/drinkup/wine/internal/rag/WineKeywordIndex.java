@@ -0,0 +1,344 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.model.WineCategoryMapping;
+import cool.drinkup.drinkup.wine.internal.rag.config.HybridSearchProperties;
+import cool.drinkup.drinkup.wine.internal.rag.lexical.LexicalIndex;
+import cool.drinkup.drinkup.wine.internal.repository.WineCategoryMappingRepository;
+import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 酒单关键词索引，覆盖中英文名称和配料
+ * 启动后在虚拟线程中从数据库全量构建，之后随向量写入同步更新；写入的实例通过 Redis 发布订阅通知其他实例从数据库重新加载变更的酒单。
+ * 记录本实例已同步到的索引版本号，检索结果缓存只在本地索引不落后时使用，避免落后的实例把旧结果写入共享缓存
+ */
+@Slf4j
+@Component
+public class WineKeywordIndex implements MessageListener {
+
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * 版本号出现空缺（消息丢失）后等待补齐的时间，超时后全量重建
+     */
+    private static final Duration GAP_TIMEOUT = Duration.ofSeconds(5);
+
+    record IndexChange(String instanceId, long generation, List<Long> updated, List<Long> removed) {}
+
+    private final WineRepository wineRepository;
+    private final WineCategoryMappingRepository wineCategoryMappingRepository;
+    private final ObjectMapper objectMapper;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final WineIndexGeneration wineIndexGeneration;
+    private final HybridSearchProperties hybridSearchProperties;
+    private volatile LexicalIndex index;
+
+    /**
+     * 重建中的新索引，重建期间的增量写入同时作用于新旧索引
+     */
+    private volatile LexicalIndex building;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean ready;
+
+    /**
+     * 已连续同步到的版本号，-1 表示尚未完成首次构建
+     */
+    private long syncedGeneration = -1;
+
+    /**
+     * 先于前序版本到达的版本号
+     */
+    private final TreeSet<Long> pendingGenerations = new TreeSet<>();
+
+    public WineKeywordIndex(
+            WineRepository wineRepository,
+            WineCategoryMappingRepository wineCategoryMappingRepository,
+            ObjectMapper objectMapper,
+            RedisTemplate<String, String> redisTemplate,
+            WineIndexGeneration wineIndexGeneration,
+            HybridSearchProperties hybridSearchProperties) {
+        this.wineRepository = wineRepository;
+        this.wineCategoryMappingRepository = wineCategoryMappingRepository;
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.wineIndexGeneration = wineIndexGeneration;
+        this.hybridSearchProperties = hybridSearchProperties;
+        this.index = new LexicalIndex(hybridSearchProperties.getNameWeight());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("wine-keyword-index").start(this::rebuild);
+    }
+
+    /**
+     * 从数据库按主键游标分页构建新索引，完成后整体替换
+     */
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        long lastId = 0L;
+        // 先读版本号再读数据库，构建期间的变更由消息补齐
+        String startGeneration = wineIndexGeneration.current();
+        building = new LexicalIndex(hybridSearchProperties.getNameWeight());
+        try {
+            List<Wine> wines;
+            do {
+                wines = wineRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, PAGE_SIZE));
+                if (wines.isEmpty()) {
+                    break;
+                }
+                List<Long> wineIds =
+                        wines.stream().map(wine -> Long.valueOf(wine.getId())).toList();
+                Map<Long, List<Long>> categoryIdsByWineId =
+                        wineCategoryMappingRepository.findByWineIdIn(wineIds).stream()
+                                .collect(Collectors.groupingBy(
+                                        WineCategoryMapping::getWineId,
+                                        Collectors.mapping(WineCategoryMapping::getCategoryId, Collectors.toList())));
+                for (Wine wine : wines) {
+                    Long wineId = Long.valueOf(wine.getId());
+                    put(building, wine, categoryIdsByWineId.getOrDefault(wineId, List.of()));
+                }
+                lastId = wineIds.getLast();
+            } while (wines.size() == PAGE_SIZE);
+            index = building;
+            ready = true;
+            if (startGeneration != null) {
+                resetSyncedGeneration(Long.parseLong(startGeneration));
+            }
+            log.info(
+                    "Built wine keyword index with {} wines in {} ms",
+                    index.size(),
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Failed to build wine keyword index, hybrid search falls back to vector only", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 本实例的关键词索引是否已包含指定版本之前的全部变更；未启用混合检索时关键词索引不影响结果
+     */
+    public boolean isSyncedTo(String generation) {
+        if (!hybridSearchProperties.isEnabled()) {
+            return true;
+        }
+        if (!ready) {
+            return false;
+        }
+        synchronized (pendingGenerations) {
+            return syncedGeneration >= Long.parseLong(generation);
+        }
+    }
+
+    public String getChangeChannel() {
+        return hybridSearchProperties.getChangeChannel();
+    }
+
+    /**
+     * 本实例已更新关键词索引并递增版本号后调用，记录版本并通知其他实例
+     * @param generation 递增后的版本号，为 null 时 Redis 不可用，不通知
+     */
+    public void publishChange(Long generation, List<Long> updated, List<Long> removed) {
+        if (generation == null) {
+            return;
+        }
+        markSynced(generation);
+        try {
+            redisTemplate.convertAndSend(
+                    getChangeChannel(),
+                    objectMapper.writeValueAsString(new IndexChange(instanceId, generation, updated, removed)));
+        } catch (Exception e) {
+            log.warn("Failed to publish wine keyword index change: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        IndexChange change;
+        try {
+            change = objectMapper.readValue(message.getBody(), IndexChange.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed wine keyword index change: {}", e.getMessage());
+            return;
+        }
+        if (instanceId.equals(change.instanceId())) {
+            return;
+        }
+        try {
+            apply(change);
+            markSynced(change.generation());
+        } catch (Exception e) {
+            log.error("Failed to apply wine keyword index change v{}, rebuilding", change.generation(), e);
+            Thread.ofVirtual().name("wine-keyword-index").start(this::rebuild);
+        }
+    }
+
+    /**
+     * 从数据库重新加载变更的酒单，已不存在的酒单从索引中删除
+     */
+    private void apply(IndexChange change) {
+        if (!CollectionUtils.isEmpty(change.updated())) {
+            List<Wine> wines = wineRepository.findAllById(change.updated());
+            Map<Long, List<Long>> categoryIdsByWineId =
+                    wineCategoryMappingRepository.findByWineIdIn(change.updated()).stream()
+                            .collect(Collectors.groupingBy(
+                                    WineCategoryMapping::getWineId,
+                                    Collectors.mapping(WineCategoryMapping::getCategoryId, Collectors.toList())));
+            Set<Long> found = new HashSet<>();
+            for (Wine wine : wines) {
+                Long wineId = Long.valueOf(wine.getId());
+                found.add(wineId);
+                put(wine, categoryIdsByWineId.getOrDefault(wineId, List.of()));
+            }
+            change.updated().stream().filter(wineId -> !found.contains(wineId)).forEach(this::remove);
+        }
+        if (!CollectionUtils.isEmpty(change.removed())) {
+            change.removed().forEach(this::remove);
+        }
+    }
+
+    private void resetSyncedGeneration(long generation) {
+        synchronized (pendingGenerations) {
+            syncedGeneration = Math.max(syncedGeneration, generation);
+            drainPendingGenerations();
+        }
+    }
+
+    private void markSynced(long generation) {
+        boolean gap;
+        synchronized (pendingGenerations) {
+            if (generation <= syncedGeneration) {
+                return;
+            }
+            pendingGenerations.add(generation);
+            drainPendingGenerations();
+            gap = syncedGeneration >= 0 && !pendingGenerations.isEmpty();
+        }
+        if (gap) {
+            Thread.ofVirtual().name("wine-keyword-index-gap").start(() -> rebuildIfStillBehind(generation));
+        }
+    }
+
+    private void drainPendingGenerations() {
+        pendingGenerations.headSet(syncedGeneration, true).clear();
+        while (!pendingGenerations.isEmpty() && pendingGenerations.first() == syncedGeneration + 1) {
+            syncedGeneration = pendingGenerations.pollFirst();
+        }
+    }
+
+    /**
+     * 前序版本的消息迟迟未到时视为丢失，全量重建
+     */
+    private void rebuildIfStillBehind(long generation) {
+        try {
+            Thread.sleep(GAP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (pendingGenerations) {
+            if (syncedGeneration >= generation) {
+                return;
+            }
+        }
+        log.warn("Wine keyword index missed changes before v{}, rebuilding", generation);
+        rebuild();
+    }
+
+    public void put(Wine wine, List<Long> categoryIds) {
+        put(index, wine, categoryIds);
+        LexicalIndex next = building;
+        if (next != null) {
+            put(next, wine, categoryIds);
+        }
+    }
+
+    private void put(LexicalIndex target, Wine wine, List<Long> categoryIds) {
+        List<String> names = new ArrayList<>();
+        names.add(wine.getName());
+        names.add(wine.getNameEn());
+        target.put(Long.parseLong(wine.getId()), names, ingredientText(wine), categoryIds);
+    }
+
+    public void remove(Long wineId) {
+        index.remove(wineId);
+        LexicalIndex next = building;
+        if (next != null) {
+            next.remove(wineId);
+        }
+    }
+
+    /**
+     * 与查询名称完全一致的酒单ID
+     */
+    public List<Long> exactMatch(String query, Collection<Long> categoryIds) {
+        return index.exactMatch(query, categoryIds);
+    }
+
+    /**
+     * 按 BM25 得分降序返回酒单
+     */
+    public List<WineSearchHit> search(String query, int topK, Collection<Long> categoryIds) {
+        return index.search(query, topK, categoryIds).stream()
+                .map(hit -> new WineSearchHit(hit.id(), hit.score()))
+                .toList();
+    }
+
+    /**
+     * 基酒加上配料 JSON 中各名称字段的文本
+     */
+    private String ingredientText(Wine wine) {
+        StringBuilder text = new StringBuilder();
+        if (wine.getBaseIngredient() != null) {
+            text.append(wine.getBaseIngredient()).append(' ');
+        }
+        if (wine.getIngredients() == null || wine.getIngredients().isBlank()) {
+            return text.toString();
+        }
+        try {
+            collectNames(objectMapper.readTree(wine.getIngredients()), null, text);
+        } catch (Exception e) {
+            log.warn("Failed to parse ingredients of wine {}: {}", wine.getId(), e.getMessage());
+        }
+        return text.toString();
+    }
+
+    private static void collectNames(JsonNode node, String fieldName, StringBuilder text) {
+        if (node.isTextual()) {
+            if (fieldName == null || fieldName.toLowerCase().contains("name")) {
+                text.append(node.asText()).append(' ');
+            }
+        } else if (node.isArray()) {
+            node.forEach(element -> collectNames(element, fieldName, text));
+        } else if (node.isObject()) {
+            node.properties().forEach(field -> collectNames(field.getValue(), field.getKey(), text));
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.wine.internal.dto.VectorReindexCheckpointDto;
+import cool.drinkup.drinkup.wine.internal.enums.VectorReindexStatusEnum;
+import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.model.WineCategoryMapping;
+import cool.drinkup.drinkup.wine.internal.rag.config.VectorReindexProperties;
+import cool.drinkup.drinkup.wine.internal.repository.WineCategoryMappingRepository;
+import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * 酒单向量全量重建
+ * 按主键游标分页读取酒单，批量查询分类映射，以有限并发分批写入向量库，
+ * 每页完成后将进度写入 Redis，中断或取消后可从上次进度续跑。
+ * 进度 key 由所有实例共享，同一时间只允许一个实例运行：启动时以 SET NX 获取带过期时间的租约，每批完成后续期，
+ * 实例崩溃后租约过期即可在任一实例续跑。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WineReindexService {
+
+    private static final RedisScript<Long> RENEW_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end"
+                    + " return 0",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final WineRepository wineRepository;
+    private final WineCategoryMappingRepository wineCategoryMappingRepository;
+    private final WineVectorIndexer wineVectorIndexer;
+    private final VectorReindexProperties reindexProperties;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+    private final AtomicBoolean leaseLost = new AtomicBoolean(false);
+
+    /**
+     * 当前实例运行中任务持有的租约令牌
+     */
+    private volatile String leaseToken;
+
+    /**
+     * 启动重建任务
+     * @param resume 是否从上次未完成的进度续跑
+     * @return 启动时的进度；若已有任务在运行，返回该任务的进度
+     */
+    public VectorReindexCheckpointDto start(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Vector reindex is already running, ignore start request");
+            return getStatus();
+        }
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate
+                .opsForValue()
+                .setIfAbsent(reindexProperties.getLeaseKey(), token, reindexProperties.getLeaseTimeout()))) {
+            running.set(false);
+            log.info("Vector reindex is running on another instance, ignore start request");
+            return getStatus();
+        }
+        try {
+            VectorReindexCheckpointDto checkpoint = resume ? loadCheckpoint() : null;
+            if (checkpoint == null || checkpoint.getStatus() == VectorReindexStatusEnum.COMPLETED) {
+                checkpoint = VectorReindexCheckpointDto.newRun();
+                log.info("Starting new vector reindex run: {}", checkpoint.getRunId());
+            } else {
+                log.info(
+                        "Resuming vector reindex run: {} after wine ID: {}",
+                        checkpoint.getRunId(),
+                        checkpoint.getLastWineId());
+            }
+            checkpoint.setStatus(VectorReindexStatusEnum.RUNNING);
+            checkpoint.setErrorMessage(null);
+            checkpoint.setFinishedAt(null);
+            saveCheckpoint(checkpoint);
+
+            redisTemplate.delete(reindexProperties.getCancelKey());
+            cancelRequested.set(false);
+            leaseLost.set(false);
+            leaseToken = token;
+            VectorReindexCheckpointDto finalCheckpoint = checkpoint;
+            executorService.execute(() -> run(finalCheckpoint));
+            return checkpoint;
+        } catch (RuntimeException e) {
+            releaseLease(token);
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求取消当前任务，当前批次完成后停止
+     * 任务在其他实例运行时写入取消标记，由运行实例在续期租约时读取
+     * @return 是否有正在运行的任务
+     */
+    public boolean cancel() {
+        if (running.get()) {
+            log.info("Cancel requested for vector reindex");
+            cancelRequested.set(true);
+            return true;
+        }
+        if (!isRunning()) {
+            return false;
+        }
+        log.info("Cancel requested for vector reindex running on another instance");
+        redisTemplate
+                .opsForValue()
+                .set(reindexProperties.getCancelKey(), "1", reindexProperties.getLeaseTimeout());
+        return true;
+    }
+
+    /**
+     * 任一实例持有租约即视为运行中
+     */
+    public boolean isRunning() {
+        return running.get() || Boolean.TRUE.equals(redisTemplate.hasKey(reindexProperties.getLeaseKey()));
+    }
+
+    public VectorReindexCheckpointDto getStatus() {
+        VectorReindexCheckpointDto checkpoint = loadCheckpoint();
+        if (checkpoint != null && checkpoint.getStatus() == VectorReindexStatusEnum.RUNNING && !isRunning()) {
+            checkpoint.setStatus(VectorReindexStatusEnum.INTERRUPTED);
+        }
+        return checkpoint;
+    }
+
+    private void run(VectorReindexCheckpointDto checkpoint) {
+        try {
+            while (!cancelRequested.get()) {
+                List<Wine> wines = wineRepository.findByIdGreaterThanOrderByIdAsc(
+                        checkpoint.getLastWineId(), PageRequest.of(0, reindexProperties.getPageSize()));
+                if (wines.isEmpty()) {
+                    break;
+                }
+                PageProgress progress = indexPage(wines);
+                if (cancelRequested.get()) {
+                    // 当前页未完整写入，不推进游标也不计入本页计数，续跑时重做本页
+                    break;
+                }
+                progress.applyTo(checkpoint, reindexProperties.getMaxRecordedFailures());
+                checkpoint.setLastWineId(Long.valueOf(wines.getLast().getId()));
+                saveCheckpoint(checkpoint);
+                log.info(
+                        "Vector reindex progress: lastWineId={}, processed={}, failed={}",
+                        checkpoint.getLastWineId(),
+                        checkpoint.getProcessedWines(),
+                        checkpoint.getFailedWines());
+            }
+            checkpoint.setStatus(
+                    cancelRequested.get() ? VectorReindexStatusEnum.CANCELLED : VectorReindexStatusEnum.COMPLETED);
+        } catch (Exception e) {
+            log.error("Vector reindex run {} failed", checkpoint.getRunId(), e);
+            checkpoint.setStatus(VectorReindexStatusEnum.FAILED);
+            checkpoint.setErrorMessage(e.getMessage());
+        } finally {
+            if (leaseLost.get()) {
+                // 租约已被其他实例取得，进度归其所有，不再覆盖
+                log.warn("Vector reindex run {} lost its lease, stop without saving progress", checkpoint.getRunId());
+            } else {
+                try {
+                    checkpoint.setFinishedAt(System.currentTimeMillis());
+                    saveCheckpoint(checkpoint);
+                } finally {
+                    releaseLease(leaseToken);
+                }
+            }
+            running.set(false);
+            log.info(
+                    "Vector reindex run {} finished with status {}, processed={}, failed={}," + " documents={}",
+                    checkpoint.getRunId(),
+                    checkpoint.getStatus(),
+                    checkpoint.getProcessedWines(),
+                    checkpoint.getFailedWines(),
+                    checkpoint.getDocumentsWritten());
+        }
+    }
+
+    private PageProgress indexPage(List<Wine> wines) throws InterruptedException {
+        Map<Long, List<Long>> categoryIdsByWineId = loadCategoryIds(wines);
+        PageProgress progress = new PageProgress();
+        Semaphore permits = new Semaphore(Math.max(1, reindexProperties.getMaxConcurrency()));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        int batchSize = Math.max(1, reindexProperties.getBatchSize());
+        for (int from = 0; from < wines.size(); from += batchSize) {
+            List<Wine> batch = wines.subList(from, Math.min(from + batchSize, wines.size()));
+            permits.acquire();
+            if (cancelRequested.get()) {
+                permits.release();
+                break;
+            }
+            futures.add(CompletableFuture.runAsync(
+                    () -> {
+                        try {
+                            indexBatch(batch, categoryIdsByWineId, progress);
+                        } finally {
+                            permits.release();
+                            renewLease();
+                        }
+                    },
+                    executorService));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return progress;
+    }
+
+    private Map<Long, List<Long>> loadCategoryIds(List<Wine> wines) {
+        List<Long> wineIds =
+                wines.stream().map(wine -> Long.valueOf(wine.getId())).toList();
+        return wineCategoryMappingRepository.findByWineIdIn(wineIds).stream()
+                .collect(Collectors.groupingBy(
+                        WineCategoryMapping::getWineId,
+                        Collectors.mapping(WineCategoryMapping::getCategoryId, Collectors.toList())));
+    }
+
+    private void indexBatch(List<Wine> wines, Map<Long, List<Long>> categoryIdsByWineId, PageProgress progress) {
+        try {
+            WineVectorIndexer.IndexResult result = wineVectorIndexer.index(wines, categoryIdsByWineId);
+            progress.addIndexed(result.indexed(), result.skipped());
+            if (!result.failedWineIds().isEmpty()) {
+                progress.addFailures(result.failedWineIds());
+            }
+        } catch (Exception e) {
+            List<Long> wineIds =
+                    wines.stream().map(wine -> Long.valueOf(wine.getId())).toList();
+            log.error("Error indexing wine batch {}: {}", wineIds, e.getMessage(), e);
+            progress.addFailures(wineIds);
+        }
+    }
+
+    /**
+     * 续期租约并读取其他实例写入的取消标记，租约已失效时停止任务
+     */
+    private void renewLease() {
+        try {
+            Long renewed = redisTemplate.execute(
+                    RENEW_LEASE,
+                    List.of(reindexProperties.getLeaseKey()),
+                    leaseToken,
+                    String.valueOf(reindexProperties.getLeaseTimeout().toMillis()));
+            if (renewed == null || renewed == 0) {
+                if (leaseLost.compareAndSet(false, true)) {
+                    log.warn("Vector reindex lease expired or was taken over, stopping");
+                }
+                cancelRequested.set(true);
+                return;
+            }
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(reindexProperties.getCancelKey()))) {
+                log.info("Cancel requested for vector reindex from another instance");
+                cancelRequested.set(true);
+            }
+        } catch (DataAccessException e) {
+            // 租约剩余时间足够覆盖短暂的 Redis 故障，下一批完成后再续期
+            log.warn("Failed to renew vector reindex lease: {}", e.getMessage());
+        }
+    }
+
+    private void releaseLease(String token) {
+        redisTemplate.execute(RELEASE_LEASE, List.of(reindexProperties.getLeaseKey()), token);
+    }
+
+    private VectorReindexCheckpointDto loadCheckpoint() {
+        String json = redisTemplate.opsForValue().get(reindexProperties.getCheckpointKey());
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, VectorReindexCheckpointDto.class);
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing vector reindex checkpoint: {}", json, e);
+            return null;
+        }
+    }
+
+    private void saveCheckpoint(VectorReindexCheckpointDto checkpoint) {
+        try {
+            checkpoint.setUpdatedAt(System.currentTimeMillis());
+            redisTemplate
+                    .opsForValue()
+                    .set(reindexProperties.getCheckpointKey(), objectMapper.writeValueAsString(checkpoint));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to save vector reindex checkpoint", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelRequested.set(true);
+        executorService.shutdown();
+        log.info("Vector reindex executor service shut down");
+    }
+
+    /**
+     * 一页内各批次的计数，游标推进时才合并进进度，避免取消后续跑重复计数
+     */
+    private static final class PageProgress {
+        private long indexed;
+        private long skipped;
+        private final List<Long> failedWineIds = new ArrayList<>();
+
+        synchronized void addIndexed(long indexedCount, long skippedCount) {
+            indexed += indexedCount;
+            skipped += skippedCount;
+        }
+
+        synchronized void addFailures(List<Long> wineIds) {
+            failedWineIds.addAll(wineIds);
+        }
+
+        synchronized void applyTo(VectorReindexCheckpointDto checkpoint, int maxRecordedFailures) {
+            checkpoint.setProcessedWines(checkpoint.getProcessedWines() + indexed + skipped);
+            checkpoint.setSkippedWines(checkpoint.getSkippedWines() + skipped);
+            checkpoint.setDocumentsWritten(checkpoint.getDocumentsWritten() + indexed);
+            checkpoint.setFailedWines(checkpoint.getFailedWines() + failedWineIds.size());
+            List<Long> recorded = checkpoint.getFailedWineIds();
+            for (Long wineId : failedWineIds) {
+                if (recorded.size() >= maxRecordedFailures) {
+                    break;
+                }
+                recorded.add(wineId);
+            }
+        }
+    }
+}
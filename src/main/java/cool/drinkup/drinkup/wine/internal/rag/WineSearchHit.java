@@ -0,0 +1,7 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+/**
+ * 酒单检索结果
+ * @param score 相关度得分，含义随检索方式不同（向量相似度、BM25 或 RRF），只用于同一次结果内排序
+ */
+public record WineSearchHit(long wineId, double score) {}
@@ -0,0 +1,49 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.milvus.MilvusSearchRequest;
+import org.springframework.ai.vectorstore.milvus.MilvusVectorStore;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 构建酒单向量检索请求
+ * categoryId 元数据为数组，Milvus 下需使用 json_contains_any 进行分类过滤
+ * 全量重建索引前写入的旧文档每个分类一条、categoryId 为单个值，同时按单值匹配，重建完成前分类过滤仍能命中旧文档
+ */
+@Component
+@RequiredArgsConstructor
+public class WineSearchRequestFactory {
+
+    private final VectorStore vectorStore;
+
+    public SearchRequest build(String query, int topK, List<Long> categoryIds) {
+        if (CollectionUtils.isEmpty(categoryIds)) {
+            return SearchRequest.builder().query(query).topK(topK).build();
+        }
+        if (vectorStore instanceof MilvusVectorStore) {
+            String ids = categoryIds.stream().map(String::valueOf).collect(Collectors.joining(", "));
+            return MilvusSearchRequest.milvusBuilder()
+                    .query(query)
+                    .topK(topK)
+                    .nativeExpression("json_contains_any(metadata[\"categoryId\"], ["
+                            + ids
+                            + "]) or metadata[\"categoryId\"] in ["
+                            + ids
+                            + "]")
+                    .build();
+        }
+        return SearchRequest.builder()
+                .query(query)
+                .topK(topK)
+                .filterExpression(new FilterExpressionBuilder()
+                        .in("categoryId", categoryIds.toArray())
+                        .build())
+                .build();
+    }
+}
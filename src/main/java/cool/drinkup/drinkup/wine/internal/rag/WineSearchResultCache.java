@@ -0,0 +1,144 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.shared.spi.LocalLruCache;
+import cool.drinkup.drinkup.shared.spi.SingleFlight;
+import cool.drinkup.drinkup.wine.internal.rag.config.CachingEmbeddingModel;
+import cool.drinkup.drinkup.wine.internal.rag.config.WineSearchCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 酒单检索结果缓存：进程内 + Redis 两级，按归一化查询文本和分类过滤条件缓存排序后的酒单ID及得分
+ * 键中包含索引版本号，索引变更后不会命中旧结果；本实例关键词索引落后于该版本时不使用缓存
+ */
+@Slf4j
+@Component
+public class WineSearchResultCache {
+
+    private static final TypeReference<List<WineSearchHit>> HITS_TYPE = new TypeReference<>() {};
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final WineIndexGeneration wineIndexGeneration;
+    private final WineKeywordIndex wineKeywordIndex;
+    private final WineSearchCacheProperties properties;
+    private final LocalLruCache<String, List<WineSearchHit>> localCache;
+    private final SingleFlight<String, List<WineSearchHit>> singleFlight;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public WineSearchResultCache(
+            RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            WineIndexGeneration wineIndexGeneration,
+            WineKeywordIndex wineKeywordIndex,
+            WineSearchCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.wineIndexGeneration = wineIndexGeneration;
+        this.wineKeywordIndex = wineKeywordIndex;
+        this.properties = properties;
+        this.localCache = new LocalLruCache<>(properties.getLocalMaxSize(), properties.getLocalTtl());
+        this.singleFlight = new SingleFlight<>("wine-search", properties.getCoalesceTimeout(), meterRegistry);
+        this.localHits = cacheCounter(meterRegistry, "local", "hit");
+        this.redisHits = cacheCounter(meterRegistry, "redis", "hit");
+        this.misses = cacheCounter(meterRegistry, "none", "miss");
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("drinkup.wine.search.cache")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 命中缓存时直接返回，否则执行检索并写入缓存
+     */
+    public List<WineSearchHit> getOrSearch(
+            String query, int topK, List<Long> categoryIds, Supplier<List<WineSearchHit>> search) {
+        if (!properties.isEnabled() || query == null) {
+            return search.get();
+        }
+        String generation = wineIndexGeneration.current();
+        if (generation == null || !wineKeywordIndex.isSyncedTo(generation)) {
+            // 本实例的关键词索引尚未同步到该版本时结果可能过期，不读写缓存
+            return search.get();
+        }
+        String key = generation + ":" + digest(query, topK, categoryIds);
+
+        List<WineSearchHit> hits = localCache.get(key);
+        if (hits != null) {
+            localHits.increment();
+            return hits;
+        }
+
+        hits = getFromRedis(key);
+        if (hits != null) {
+            redisHits.increment();
+            localCache.put(key, hits);
+            return hits;
+        }
+
+        misses.increment();
+        // 相同检索的并发请求只执行一次
+        return singleFlight.execute(key, () -> {
+            List<WineSearchHit> searched = List.copyOf(search.get());
+            localCache.put(key, searched);
+            putToRedis(key, searched);
+            return searched;
+        });
+    }
+
+    private static String digest(String query, int topK, List<Long> categoryIds) {
+        String categories = categoryIds == null
+                ? ""
+                : categoryIds.stream().sorted().distinct().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((CachingEmbeddingModel.normalize(query) + "\n" + topK + "\n" + categories)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private List<WineSearchHit> getFromRedis(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(properties.getRedisKeyPrefix() + key);
+            return value == null ? null : objectMapper.readValue(value, HITS_TYPE);
+        } catch (Exception e) {
+            log.warn("Failed to read wine search result from redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String key, List<WineSearchHit> hits) {
+        try {
+            redisTemplate
+                    .opsForValue()
+                    .set(
+                            properties.getRedisKeyPrefix() + key,
+                            objectMapper.writeValueAsString(hits),
+                            properties.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("Failed to write wine search result to redis: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.model.WineVectorIndex;
+import cool.drinkup.drinkup.wine.internal.rag.config.VectorReindexProperties;
+import cool.drinkup.drinkup.wine.internal.repository.WineVectorIndexRepository;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 按内容指纹增量写入酒单向量，指纹未变化的酒单直接跳过
+ * 每个酒单写入的文档ID记录在清单中，替换、删除和计数都按清单执行，不再依赖相似度检索
+ * 向量库有变更时递增索引版本号，使检索结果缓存失效，并通知其他实例同步关键词索引
+ * 文档总数在 Redis 计数器中随写入和删除增减，计数读取为 O(1)；计数器缺失或更新失败时按清单汇总重新初始化
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WineVectorIndexer {
+
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final VectorStore vectorStore;
+    private final WineDocumentFactory wineDocumentFactory;
+    private final WineVectorIndexRepository wineVectorIndexRepository;
+    private final WineKeywordIndex wineKeywordIndex;
+    private final WineIndexGeneration wineIndexGeneration;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final VectorReindexProperties vectorReindexProperties;
+
+    public record IndexResult(int indexed, int skipped, List<Long> failedWineIds) {}
+
+    /**
+     * 写入一批酒单的向量，向量库写入失败时抛出异常，整批不记录指纹
+     * @param categoryIdsByWineId 酒单ID到所属分类ID的映射
+     */
+    public IndexResult index(List<Wine> wines, Map<Long, List<Long>> categoryIdsByWineId) {
+        List<Long> wineIds =
+                wines.stream().map(wine -> Long.valueOf(wine.getId())).toList();
+        Map<Long, WineVectorIndex> existing = wineVectorIndexRepository.findAllById(wineIds).stream()
+                .collect(Collectors.toMap(WineVectorIndex::getWineId, Function.identity()));
+
+        List<Document> documents = new ArrayList<>();
+        List<WineVectorIndex> indexRecords = new ArrayList<>();
+        List<Long> failedWineIds = new ArrayList<>();
+        int skipped = 0;
+        for (Wine wine : wines) {
+            Long wineId = Long.valueOf(wine.getId());
+            List<Long> categoryIds = categoryIdsByWineId.getOrDefault(wineId, List.of());
+            wineKeywordIndex.put(wine, categoryIds);
+            try {
+                String contentHash = wineDocumentFactory.fingerprint(wine, categoryIds);
+                WineVectorIndex current = existing.get(wineId);
+                if (current != null && contentHash.equals(current.getContentHash())) {
+                    skipped++;
+                    continue;
+                }
+                Document document = wineDocumentFactory.createDocument(wine, categoryIds);
+                documents.add(document);
+                indexRecords.add(toIndexRecord(wineId, contentHash, List.of(document.getId())));
+            } catch (JsonProcessingException e) {
+                log.error("Error converting wine {} to JSON string: {}", wineId, e.getMessage());
+                failedWineIds.add(wineId);
+            }
+        }
+
+        if (!indexRecords.isEmpty()) {
+            List<Long> changedWineIds =
+                    indexRecords.stream().map(WineVectorIndex::getWineId).toList();
+            long replacedDocuments = changedWineIds.stream()
+                    .map(existing::get)
+                    .filter(record -> record != null && record.getDocumentCount() != null)
+                    .mapToLong(WineVectorIndex::getDocumentCount)
+                    .sum();
+            deleteDocuments(changedWineIds, existing);
+            vectorStore.add(documents);
+            wineVectorIndexRepository.saveAll(indexRecords);
+            adjustDocumentCount(documents.size() - replacedDocuments);
+            wineKeywordIndex.publishChange(wineIndexGeneration.bump(), changedWineIds, List.of());
+        }
+        return new IndexResult(indexRecords.size(), skipped, failedWineIds);
+    }
+
+    public IndexResult index(Wine wine, List<Long> categoryIds) {
+        return index(List.of(wine), Map.of(Long.valueOf(wine.getId()), categoryIds));
+    }
+
+    /**
+     * 删除指定酒单在向量库中的文档及清单记录
+     */
+    public void remove(Long wineId) {
+        Map<Long, WineVectorIndex> existing = wineVectorIndexRepository
+                .findById(wineId)
+                .map(record -> Map.of(wineId, record))
+                .orElse(Map.of());
+        deleteDocuments(List.of(wineId), existing);
+        wineVectorIndexRepository.deleteById(wineId);
+        WineVectorIndex removed = existing.get(wineId);
+        if (removed != null && removed.getDocumentCount() != null) {
+            adjustDocumentCount(-removed.getDocumentCount());
+        }
+        wineKeywordIndex.remove(wineId);
+        wineKeywordIndex.publishChange(wineIndexGeneration.bump(), List.of(), List.of(wineId));
+    }
+
+    /**
+     * 按清单分批删除全部文档，再按 wineId 清理清单建立之前写入的遗留文档，最后清空清单
+     */
+    public void removeAll() {
+        long deleted = 0;
+        Page<WineVectorIndex> page;
+        int pageNumber = 0;
+        do {
+            page = wineVectorIndexRepository.findAll(PageRequest.of(pageNumber++, DELETE_BATCH_SIZE));
+            List<String> documentIds = page.stream()
+                    .flatMap(record -> record.getDocumentIds().stream())
+                    .toList();
+            if (!documentIds.isEmpty()) {
+                vectorStore.delete(documentIds);
+                deleted += documentIds.size();
+            }
+        } while (page.hasNext());
+        log.info("Deleted {} documents recorded in vector index manifest", deleted);
+
+        try {
+            vectorStore.delete("wineId >= 0");
+        } catch (Exception e) {
+            log.warn("Failed to sweep documents outside the manifest: {}", e.getMessage());
+        }
+        wineVectorIndexRepository.deleteAllInBatch();
+        resetDocumentCount();
+        // 关键词索引来自数据库，清空向量不影响它，只需让各实例确认已同步到新版本
+        wineKeywordIndex.publishChange(wineIndexGeneration.bump(), List.of(), List.of());
+    }
+
+    /**
+     * 清单中记录的向量文档总数，读取 Redis 计数器；计数器不存在时按清单汇总一次并写入
+     */
+    public long documentCount() {
+        String key = vectorReindexProperties.getDocumentCountKey();
+        try {
+            String count = redisTemplate.opsForValue().get(key);
+            if (count != null) {
+                return Long.parseLong(count);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read vector document count: {}", e.getMessage());
+            return wineVectorIndexRepository.sumDocumentCount();
+        }
+        long count = wineVectorIndexRepository.sumDocumentCount();
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count));
+        } catch (Exception e) {
+            log.warn("Failed to initialize vector document count: {}", e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * 计数器存在时才增减，不存在时等下次读取按清单初始化；更新失败时删除计数器，避免计数漂移
+     */
+    private void adjustDocumentCount(long delta) {
+        if (delta == 0) {
+            return;
+        }
+        String key = vectorReindexProperties.getDocumentCountKey();
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                redisTemplate.opsForValue().increment(key, delta);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update vector document count: {}", e.getMessage());
+            resetDocumentCount();
+        }
+    }
+
+    private void resetDocumentCount() {
+        try {
+            redisTemplate.delete(vectorReindexProperties.getDocumentCountKey());
+        } catch (Exception e) {
+            log.warn("Failed to reset vector document count: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 有清单的酒单按文档ID删除，没有清单的按 wineId 过滤删除（兼容早期按分类拆分写入的多份文档）
+     */
+    private void deleteDocuments(List<Long> wineIds, Map<Long, WineVectorIndex> existing) {
+        List<String> documentIds = new ArrayList<>();
+        List<Long> unknownWineIds = new ArrayList<>();
+        for (Long wineId : wineIds) {
+            WineVectorIndex record = existing.get(wineId);
+            if (record == null || CollectionUtils.isEmpty(record.getDocumentIds())) {
+                unknownWineIds.add(wineId);
+            } else {
+                documentIds.addAll(record.getDocumentIds());
+            }
+        }
+        if (!documentIds.isEmpty()) {
+            vectorStore.delete(documentIds);
+        }
+        if (!unknownWineIds.isEmpty()) {
+            vectorStore.delete(new FilterExpressionBuilder()
+                    .in("wineId", unknownWineIds.toArray())
+                    .build());
+        }
+    }
+
+    private WineVectorIndex toIndexRecord(Long wineId, String contentHash, List<String> documentIds) {
+        WineVectorIndex record = new WineVectorIndex();
+        record.setWineId(wineId);
+        record.setContentHash(contentHash);
+        record.setDocumentIds(new ArrayList<>(documentIds));
+        record.setDocumentCount(documentIds.size());
+        record.setIndexedAt(ZonedDateTime.now(ZoneOffset.UTC));
+        return record;
+    }
+}
@@ -0,0 +1,167 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import cool.drinkup.drinkup.shared.spi.LocalLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 查询向量缓存：对单条查询文本的嵌入结果做进程内 + Redis 两级缓存，重复查询不再调用远程嵌入接口
+ * 文档批量嵌入不经过缓存
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final EmbeddingConfig.QueryCache properties;
+    private final String modelName;
+    private final LocalLruCache<String, float[]> localCache;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public CachingEmbeddingModel(
+            EmbeddingModel delegate,
+            RedisTemplate<String, String> redisTemplate,
+            EmbeddingConfig.QueryCache properties,
+            String modelName,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.modelName = modelName;
+        this.localCache = new LocalLruCache<>(properties.getLocalMaxSize(), properties.getLocalTtl());
+        this.localHits = cacheCounter(meterRegistry, "local", "hit");
+        this.redisHits = cacheCounter(meterRegistry, "redis", "hit");
+        this.misses = cacheCounter(meterRegistry, "none", "miss");
+        Gauge.builder("drinkup.embedding.query.cache.size", localCache, LocalLruCache::size)
+                .register(meterRegistry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("drinkup.embedding.query.cache")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (!properties.isEnabled() || text == null) {
+            return delegate.embed(text);
+        }
+        String normalized = normalize(text);
+        String key = cacheKey(normalized);
+
+        float[] embedding = localCache.get(key);
+        if (embedding != null) {
+            localHits.increment();
+            return embedding;
+        }
+
+        embedding = getFromRedis(key);
+        if (embedding != null) {
+            redisHits.increment();
+            localCache.put(key, embedding);
+            return embedding;
+        }
+
+        misses.increment();
+        // 归一化只用于缓存键，嵌入仍使用原文，与文档写入时的大小写保持一致
+        embedding = delegate.embed(text);
+        localCache.put(key, embedding);
+        putToRedis(key, embedding);
+        return embedding;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return delegate.embed(documents, options, batchingStrategy);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 统一大小写、全半角与空白，使仅有格式差异的查询命中同一缓存
+     */
+    public static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private String cacheKey(String normalized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((modelName + "\n" + normalized).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private float[] getFromRedis(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(properties.getRedisKeyPrefix() + key);
+            return value == null ? null : decode(value);
+        } catch (Exception e) {
+            log.warn("Failed to read query embedding from redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String key, float[] embedding) {
+        try {
+            redisTemplate
+                    .opsForValue()
+                    .set(properties.getRedisKeyPrefix() + key, encode(embedding), properties.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("Failed to write query embedding to redis: {}", e.getMessage());
+        }
+    }
+
+    private static String encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] embedding = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(embedding);
+        return embedding;
+    }
+}
@@ -0,0 +1,167 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * 嵌入模型包装：批量嵌入时多个批次并发请求，失败只重试出错的批次，并记录每批耗时与 token 数
+ */
+@Slf4j
+public class ConcurrentBatchEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final RetryTemplate retryTemplate;
+    private final int maxConcurrency;
+
+    private final Timer batchLatency;
+    private final Timer failedBatchLatency;
+    private final DistributionSummary batchTokens;
+    private final DistributionSummary batchSize;
+    private final Counter retries;
+
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ConcurrentBatchEmbeddingModel(
+            EmbeddingModel delegate, RetryTemplate retryTemplate, int maxConcurrency, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryTemplate = retryTemplate;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.batchLatency = Timer.builder("drinkup.embedding.batch.latency")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedBatchLatency = Timer.builder("drinkup.embedding.batch.latency")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.batchTokens = DistributionSummary.builder("drinkup.embedding.batch.tokens")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("drinkup.embedding.batch.size")
+                .baseUnit("documents")
+                .register(meterRegistry);
+        this.retries = Counter.builder("drinkup.embedding.batch.retries").register(meterRegistry);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return retryTemplate.execute(context -> {
+            if (context.getRetryCount() > 0) {
+                retries.increment();
+                log.warn("Retrying embedding request, attempt {}", context.getRetryCount() + 1);
+            }
+            return delegate.call(request);
+        });
+    }
+
+    /**
+     * 单个文档同样经过 {@link #call} 重试，底层模型本身不重试
+     */
+    @Override
+    public float[] embed(Document document) {
+        EmbeddingResponse response = call(new EmbeddingRequest(
+                List.of(document.getText()), EmbeddingOptionsBuilder.builder().build()));
+        return response.getResult().getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        Assert.notNull(documents, "Documents must not be null");
+        List<List<Document>> batches = batchingStrategy.batch(documents);
+        if (batches.size() <= 1) {
+            List<float[]> embeddings = new ArrayList<>(documents.size());
+            for (List<Document> batch : batches) {
+                embeddings.addAll(embedBatch(batch, options));
+            }
+            return embeddings;
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<CompletableFuture<List<float[]>>> futures = new ArrayList<>(batches.size());
+        for (List<Document> batch : batches) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        permits.acquireUninterruptibly();
+                        try {
+                            return embedBatch(batch, options);
+                        } finally {
+                            permits.release();
+                        }
+                    },
+                    executorService));
+        }
+
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        try {
+            // 按批次顺序拼接结果，保证与文档顺序一致
+            for (CompletableFuture<List<float[]>> future : futures) {
+                embeddings.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        Assert.isTrue(
+                embeddings.size() == documents.size(), "Embeddings must have the same number as that of the documents");
+        return embeddings;
+    }
+
+    private List<float[]> embedBatch(List<Document> batch, EmbeddingOptions options) {
+        List<String> texts = batch.stream().map(Document::getText).toList();
+        EmbeddingRequest request = new EmbeddingRequest(texts, options);
+        Timer.Sample sample = Timer.start();
+        try {
+            EmbeddingResponse response = call(request);
+            sample.stop(batchLatency);
+            batchSize.record(batch.size());
+            recordTokens(response);
+            return response.getResults().stream().map(Embedding::getOutput).toList();
+        } catch (RuntimeException e) {
+            sample.stop(failedBatchLatency);
+            log.error("Embedding batch of {} documents failed: {}", batch.size(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private void recordTokens(EmbeddingResponse response) {
+        if (response.getMetadata() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage != null && usage.getPromptTokens() != null) {
+            batchTokens.record(usage.getPromptTokens());
+        }
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+}
@@ -1,5 +1,10 @@
 package cool.drinkup.drinkup.wine.internal.rag.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import lombok.Data;
 import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.embedding.BatchingStrategy;
@@ -7,17 +12,48 @@ import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.ai.openai.OpenAiEmbeddingOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
 
 @Configuration
 @ConfigurationProperties(prefix = "drinkup.embedding")
 @Data
 public class EmbeddingConfig {
 
+    /**
+     * 与 Spring AI 默认处理一致（4xx 为不可重试，其余为可重试），但 429 限流按可重试处理
+     */
+    private static final ResponseErrorHandler RATE_LIMIT_AS_TRANSIENT = new ResponseErrorHandler() {
+        @Override
+        public boolean hasError(ClientHttpResponse response) throws IOException {
+            return RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER.hasError(response);
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) throws IOException {
+            if (response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                String body = StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+                throw new TransientAiException(response.getStatusCode().value() + " - " + body);
+            }
+            RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER.handleError(response);
+        }
+    };
+
     private Model openai = new Model();
+    private Batch batch = new Batch();
+    private QueryCache queryCache = new QueryCache();
 
     @Data
     public static class Model {
@@ -26,21 +62,78 @@ public class EmbeddingConfig {
         private String model;
     }
 
+    @Data
+    public static class Batch {
+        /**
+         * 单次嵌入请求的 token 上限
+         */
+        private int maxTokens = 8000;
+
+        /**
+         * 单次嵌入请求的文档数上限
+         */
+        private int maxItems = 64;
+
+        /**
+         * 同时进行的嵌入请求数
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * 单个批次的最大尝试次数（含首次）
+         */
+        private int maxAttempts = 3;
+
+        private long initialBackoffMillis = 500;
+        private long maxBackoffMillis = 10000;
+    }
+
+    @Data
+    public static class QueryCache {
+        private boolean enabled = true;
+
+        /**
+         * 进程内缓存条数上限
+         */
+        private int localMaxSize = 2000;
+
+        private Duration localTtl = Duration.ofHours(1);
+        private Duration redisTtl = Duration.ofDays(7);
+        private String redisKeyPrefix = "drinkup:embedding:query:";
+    }
+
     @Bean
-    BatchingStrategy customBatchingStrategy() {
-        return new CustomBatchingStrategy();
+    BatchingStrategy tokenBudgetBatchingStrategy() {
+        return new TokenBudgetBatchingStrategy(
+                new JTokkitTokenCountEstimator(), batch.getMaxTokens(), batch.getMaxItems());
     }
 
     @Bean
     @Primary
-    EmbeddingModel customOpenAiEmbeddingModel() {
+    EmbeddingModel customOpenAiEmbeddingModel(
+            MeterRegistry meterRegistry, RedisTemplate<String, String> redisTemplate) {
         OpenAiApi openAiApi = OpenAiApi.builder()
                 .baseUrl(openai.getBaseUrl())
                 .apiKey(openai.getApiKey())
+                .responseErrorHandler(RATE_LIMIT_AS_TRANSIENT)
                 .build();
         OpenAiEmbeddingOptions options =
                 OpenAiEmbeddingOptions.builder().model(openai.model).build();
-        OpenAiEmbeddingModel model = new OpenAiEmbeddingModel(openAiApi, MetadataMode.EMBED, options);
-        return model;
+        // 重试由外层按批次处理，底层模型不再重试
+        OpenAiEmbeddingModel model = new OpenAiEmbeddingModel(
+                openAiApi,
+                MetadataMode.EMBED,
+                options,
+                RetryTemplate.builder().maxAttempts(1).build());
+        // 只重试 5xx、429 和网络 I/O 错误（含超时），鉴权失败、请求错误、输入超长等 4xx 直接失败
+        RetryTemplate batchRetryTemplate = RetryTemplate.builder()
+                .maxAttempts(batch.getMaxAttempts())
+                .exponentialBackoff(batch.getInitialBackoffMillis(), 2, batch.getMaxBackoffMillis())
+                .retryOn(List.of(TransientAiException.class, ResourceAccessException.class))
+                .traversingCauses()
+                .build();
+        EmbeddingModel batchingModel =
+                new ConcurrentBatchEmbeddingModel(model, batchRetryTemplate, batch.getMaxConcurrency(), meterRegistry);
+        return new CachingEmbeddingModel(batchingModel, redisTemplate, queryCache, openai.getModel(), meterRegistry);
     }
 }
@@ -0,0 +1,42 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 进程内 HNSW 向量库配置，spring.ai.vectorstore.type=hnsw 时生效
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.vector-store.hnsw")
+public class HnswVectorStoreProperties {
+    /**
+     * 快照文件路径
+     */
+    private String snapshotPath = ".data/vector-store/wine.hnsw";
+
+    /**
+     * 每个节点在上层的最大邻居数，第 0 层为其两倍
+     */
+    private int m = 16;
+
+    private int efConstruction = 200;
+    private int efSearch = 64;
+
+    /**
+     * 已删除节点占比超过该值时，写快照前重建索引
+     */
+    private double compactionRatio = 0.2;
+
+    /**
+     * 分区使用的元数据键，过滤条件作用于该键时只检索相关分区；为空时不分区
+     */
+    private String partitionKey = "categoryId";
+
+    /**
+     * 快照写入间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,43 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 酒单混合检索配置：关键词检索与向量检索按 RRF 融合
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.wine.search.hybrid")
+public class HybridSearchProperties {
+    /**
+     * 关闭时只使用向量检索
+     */
+    private boolean enabled = true;
+
+    /**
+     * 查询与酒名完全一致时直接返回关键词结果，不调用嵌入接口
+     */
+    private boolean exactMatchShortCircuit = true;
+
+    /**
+     * RRF 平滑常数
+     */
+    private int rrfK = 60;
+
+    /**
+     * 每路召回数量为 topK 的倍数
+     */
+    private int candidateMultiplier = 3;
+
+    /**
+     * 名称中的词相对正文的词频权重
+     */
+    private int nameWeight = 3;
+
+    /**
+     * 关键词索引变更的 Redis 发布订阅频道，各实例收到后同步更新本地索引
+     */
+    private String changeChannel = "drinkup:wine:keyword-index:changes";
+}
@@ -0,0 +1,53 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+/**
+ * 按 token 预算和条数上限顺序打包文档，保持文档原有顺序
+ * 单个文档超过 token 预算时单独成批，由嵌入接口自行截断或报错
+ */
+public class TokenBudgetBatchingStrategy implements BatchingStrategy {
+
+    private final TokenCountEstimator tokenCountEstimator;
+    private final int maxTokensPerBatch;
+    private final int maxItemsPerBatch;
+
+    public TokenBudgetBatchingStrategy(
+            TokenCountEstimator tokenCountEstimator, int maxTokensPerBatch, int maxItemsPerBatch) {
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.maxTokensPerBatch = Math.max(1, maxTokensPerBatch);
+        this.maxItemsPerBatch = Math.max(1, maxItemsPerBatch);
+    }
+
+    @Override
+    public List<List<Document>> batch(List<Document> documents) {
+        List<List<Document>> batches = new ArrayList<>();
+        List<Document> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (Document document : documents) {
+            int tokens = estimate(document);
+            boolean overBudget = currentTokens + tokens > maxTokensPerBatch;
+            if (!current.isEmpty() && (overBudget || current.size() >= maxItemsPerBatch)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(document);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    public int estimate(Document document) {
+        String text = document.getText();
+        return text == null ? 0 : tokenCountEstimator.estimate(text);
+    }
+}
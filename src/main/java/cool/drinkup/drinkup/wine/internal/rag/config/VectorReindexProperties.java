@@ -0,0 +1,56 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.vector-store.reindex")
+public class VectorReindexProperties {
+    /**
+     * 每次按主键游标读取的酒单数量
+     */
+    private int pageSize = 200;
+
+    /**
+     * 每次写入向量库的酒单数量
+     */
+    private int batchSize = 32;
+
+    /**
+     * 同时进行嵌入写入的批次数
+     */
+    private int maxConcurrency = 4;
+
+    /**
+     * 断点续跑进度在 Redis 中的 key
+     */
+    private String checkpointKey = "vector-store:reindex:checkpoint";
+
+    /**
+     * 运行租约在 Redis 中的 key，保证同一时间只有一个实例在重建
+     */
+    private String leaseKey = "vector-store:reindex:lease";
+
+    /**
+     * 租约过期时间，每批写入完成后续期，需大于单批嵌入写入的最长耗时
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 跨实例取消标记在 Redis 中的 key
+     */
+    private String cancelKey = "vector-store:reindex:cancel";
+
+    /**
+     * 进度中最多记录的失败酒单ID数量
+     */
+    private int maxRecordedFailures = 100;
+
+    /**
+     * 向量文档总数计数器在 Redis 中的 key，随写入和删除增减
+     */
+    private String documentCountKey = "vector-store:document-count";
+}
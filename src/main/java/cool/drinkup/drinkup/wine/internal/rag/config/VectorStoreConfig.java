@@ -1,6 +1,14 @@
 package cool.drinkup.drinkup.wine.internal.rag.config;
 
+import cool.drinkup.drinkup.wine.internal.rag.hnsw.HnswVectorStore;
+import io.micrometer.observation.ObservationRegistry;
+import java.nio.file.Path;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
@@ -12,6 +20,28 @@ public class VectorStoreConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
 
+    /**
+     * 进程内 HNSW 向量库，设置 spring.ai.vectorstore.type=hnsw 后替代 Milvus，无需外部向量数据库
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "hnsw")
+    HnswVectorStore hnswVectorStore(
+            EmbeddingModel embeddingModel,
+            BatchingStrategy batchingStrategy,
+            HnswVectorStoreProperties properties,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return HnswVectorStore.builder(embeddingModel)
+                .batchingStrategy(batchingStrategy)
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .snapshotPath(Path.of(properties.getSnapshotPath()))
+                .m(properties.getM())
+                .efConstruction(properties.getEfConstruction())
+                .efSearch(properties.getEfSearch())
+                .compactionRatio(properties.getCompactionRatio())
+                .partitionKey(properties.getPartitionKey())
+                .build();
+    }
+
     // @Bean
     // public JedisPooled jedisPooled() {
     //     return new JedisPooled(redisHost, redisPort);
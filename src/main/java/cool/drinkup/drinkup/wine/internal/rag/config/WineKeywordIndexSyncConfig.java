@@ -0,0 +1,25 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import cool.drinkup.drinkup.wine.internal.rag.WineKeywordIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 在共享的 Redis 订阅容器上监听关键词索引变更
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WineKeywordIndexSyncConfig {
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final WineKeywordIndex wineKeywordIndex;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                wineKeywordIndex, new ChannelTopic(wineKeywordIndex.getChangeChannel()));
+    }
+}
@@ -0,0 +1,35 @@
+package cool.drinkup.drinkup.wine.internal.rag.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 酒单检索结果缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.wine.search.cache")
+public class WineSearchCacheProperties {
+    private boolean enabled = true;
+
+    /**
+     * 进程内缓存条数上限
+     */
+    private int localMaxSize = 1000;
+
+    private Duration localTtl = Duration.ofMinutes(10);
+    private Duration redisTtl = Duration.ofHours(6);
+    private String redisKeyPrefix = "drinkup:wine:search:";
+
+    /**
+     * 相同检索合并时等待进行中检索的最长时间，超时后自行检索
+     */
+    private Duration coalesceTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 向量索引版本号的 Redis 键，索引每次变更时递增
+     */
+    private String generationKey = "drinkup:wine:index:generation";
+}
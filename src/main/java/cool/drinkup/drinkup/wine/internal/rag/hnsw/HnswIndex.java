@@ -0,0 +1,317 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW 近似最近邻索引，使用余弦相似度（写入时归一化，检索时点积）
+ * 删除只打标记，节点仍参与图遍历但不会出现在结果中
+ * 非线程安全，由调用方加锁
+ */
+public class HnswIndex {
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final List<float[]> vectors;
+
+    /** links.get(node)[level] 为该节点在对应层的邻居 */
+    private final List<int[][]> links;
+
+    private final BitSet deleted;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public record SearchResult(int node, float similarity) {}
+
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this(dimension, m, efConstruction, new ArrayList<>(), new ArrayList<>(), new BitSet(), -1, -1);
+    }
+
+    HnswIndex(
+            int dimension,
+            int m,
+            int efConstruction,
+            List<float[]> vectors,
+            List<int[][]> links,
+            BitSet deleted,
+            int entryPoint,
+            int maxLevel) {
+        this.dimension = dimension;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.random = new Random(42);
+        this.vectors = vectors;
+        this.links = links;
+        this.deleted = deleted;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * 写入向量
+     * @return 节点编号，从 0 开始连续递增
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Vector dimension " + vector.length + " does not match index dimension " + dimension);
+        }
+        float[] normalized = normalize(vector);
+        int node = vectors.size();
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[0];
+        }
+        vectors.add(normalized);
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(normalized, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<SearchResult> candidates = searchLayer(normalized, current, efConstruction, l, null);
+            int[] neighbors = selectNeighbors(candidates, m);
+            nodeLinks[l] = neighbors;
+            int maxConnections = l == 0 ? maxM0 : m;
+            for (int neighbor : neighbors) {
+                connect(neighbor, node, l, maxConnections);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+        return node;
+    }
+
+    public void markDeleted(int node) {
+        deleted.set(node);
+    }
+
+    public boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    /**
+     * 检索与查询向量最相似的 k 个节点，按相似度降序
+     * @param filter 节点过滤条件，为 null 时不过滤；不满足条件的节点仍用于图遍历
+     */
+    public List<SearchResult> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedySearch(normalized, current, l);
+        }
+        IntPredicate accept =
+                filter == null ? node -> !deleted.get(node) : node -> !deleted.get(node) && filter.test(node);
+        List<SearchResult> results = searchLayer(normalized, current, Math.max(ef, k), 0, accept);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    public int size() {
+        return vectors.size();
+    }
+
+    public int liveCount() {
+        return vectors.size() - deleted.cardinality();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    int m() {
+        return m;
+    }
+
+    int efConstruction() {
+        return efConstruction;
+    }
+
+    int entryPoint() {
+        return entryPoint;
+    }
+
+    int maxLevel() {
+        return maxLevel;
+    }
+
+    float[] vector(int node) {
+        return vectors.get(node);
+    }
+
+    int[][] links(int node) {
+        return links.get(node);
+    }
+
+    BitSet deleted() {
+        return deleted;
+    }
+
+    private int greedySearch(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, vectors.get(current));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int neighbor : links.get(current)[level]) {
+                float similarity = similarity(query, vectors.get(neighbor));
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层 beam search；accept 不为 null 时结果集只保留满足条件的节点，
+     * 结果未满 ef 之前不会提前停止，保证过滤条件较严格时仍能找到匹配节点
+     */
+    private List<SearchResult> searchLayer(float[] query, int start, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<SearchResult> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble(SearchResult::similarity).reversed());
+        PriorityQueue<SearchResult> results = new PriorityQueue<>(Comparator.comparingDouble(SearchResult::similarity));
+
+        SearchResult first = new SearchResult(start, similarity(query, vectors.get(start)));
+        visited.set(start);
+        candidates.add(first);
+        if (accept == null || accept.test(start)) {
+            results.add(first);
+        }
+
+        while (!candidates.isEmpty()) {
+            SearchResult candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            for (int neighbor : links.get(candidate.node())[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float similarity = similarity(query, vectors.get(neighbor));
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    SearchResult result = new SearchResult(neighbor, similarity);
+                    candidates.add(result);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.add(result);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<SearchResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(SearchResult::similarity).reversed());
+        return sorted;
+    }
+
+    /**
+     * 启发式邻居选择：优先保留彼此分散的候选，不足时用剩余最近的候选补齐
+     */
+    private int[] selectNeighbors(List<SearchResult> candidates, int maxNeighbors) {
+        List<SearchResult> selected = new ArrayList<>(maxNeighbors);
+        List<SearchResult> pruned = new ArrayList<>();
+        for (SearchResult candidate : candidates) {
+            if (selected.size() >= maxNeighbors) {
+                break;
+            }
+            boolean diverse = true;
+            float[] candidateVector = vectors.get(candidate.node());
+            for (SearchResult chosen : selected) {
+                if (similarity(candidateVector, vectors.get(chosen.node())) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < maxNeighbors; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.stream().mapToInt(SearchResult::node).toArray();
+    }
+
+    private void connect(int node, int newNeighbor, int level, int maxConnections) {
+        int[][] nodeLinks = links.get(node);
+        int[] current = nodeLinks[level];
+        if (current.length < maxConnections) {
+            int[] updated = new int[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = newNeighbor;
+            nodeLinks[level] = updated;
+            return;
+        }
+        float[] nodeVector = vectors.get(node);
+        List<SearchResult> candidates = new ArrayList<>(current.length + 1);
+        for (int neighbor : current) {
+            candidates.add(new SearchResult(neighbor, similarity(nodeVector, vectors.get(neighbor))));
+        }
+        candidates.add(new SearchResult(newNeighbor, similarity(nodeVector, vectors.get(newNeighbor))));
+        candidates.sort(Comparator.comparingDouble(SearchResult::similarity).reversed());
+        nodeLinks[level] = selectNeighbors(candidates, maxConnections);
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - random.nextDouble();
+        return (int) Math.floor(-Math.log(r) * levelMultiplier);
+    }
+
+    private static float similarity(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+}
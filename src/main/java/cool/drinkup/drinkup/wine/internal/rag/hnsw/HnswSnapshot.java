@@ -0,0 +1,175 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * HNSW 索引快照文件读写，小端序，读取时使用内存映射
+ *
+ * <pre>
+ * header   : magic, version, dimension, m, efConstruction, count, entryPoint, maxLevel (8 x int32)
+ * vectors  : count x dimension x float32（紧跟 header，4 字节对齐，可直接映射为 FloatBuffer）
+ * deleted  : int32 字数 + int64[]
+ * links    : 每个节点 int32 层数，每层 int32 邻居数 + int32[]
+ * documents: 每个节点 int32 长度 + UTF-8 JSON（已删除节点长度为 0）
+ * </pre>
+ */
+final class HnswSnapshot {
+
+    private static final int MAGIC = 0x44555653;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8 * Integer.BYTES;
+
+    private HnswSnapshot() {}
+
+    record Loaded(HnswIndex index, List<HnswVectorStore.StoredDocument> documents) {}
+
+    static void write(
+            Path path, HnswIndex index, List<HnswVectorStore.StoredDocument> documents, ObjectMapper objectMapper)
+            throws IOException {
+        int count = index.size();
+        int dimension = index.dimension();
+        long[] deletedWords = index.deleted().toLongArray();
+
+        List<byte[]> documentBytes = new ArrayList<>(count);
+        long size = HEADER_BYTES
+                + (long) count * dimension * Float.BYTES
+                + Integer.BYTES
+                + (long) deletedWords.length * Long.BYTES;
+        for (int node = 0; node < count; node++) {
+            int[][] nodeLinks = index.links(node);
+            size += Integer.BYTES;
+            for (int[] levelLinks : nodeLinks) {
+                size += Integer.BYTES + (long) levelLinks.length * Integer.BYTES;
+            }
+            HnswVectorStore.StoredDocument document = documents.get(node);
+            byte[] bytes =
+                    index.isDeleted(node) || document == null ? new byte[0] : objectMapper.writeValueAsBytes(document);
+            documentBytes.add(bytes);
+            size += Integer.BYTES + bytes.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(dimension)
+                .putInt(index.m())
+                .putInt(index.efConstruction())
+                .putInt(count)
+                .putInt(index.entryPoint())
+                .putInt(index.maxLevel());
+        for (int node = 0; node < count; node++) {
+            for (float value : index.vector(node)) {
+                buffer.putFloat(value);
+            }
+        }
+        buffer.putInt(deletedWords.length);
+        for (long word : deletedWords) {
+            buffer.putLong(word);
+        }
+        for (int node = 0; node < count; node++) {
+            int[][] nodeLinks = index.links(node);
+            buffer.putInt(nodeLinks.length);
+            for (int[] levelLinks : nodeLinks) {
+                buffer.putInt(levelLinks.length);
+                for (int neighbor : levelLinks) {
+                    buffer.putInt(neighbor);
+                }
+            }
+        }
+        for (byte[] bytes : documentBytes) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Loaded read(Path path, ObjectMapper objectMapper) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a vector store snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            int dimension = buffer.getInt();
+            int m = buffer.getInt();
+            int efConstruction = buffer.getInt();
+            int count = buffer.getInt();
+            int entryPoint = buffer.getInt();
+            int maxLevel = buffer.getInt();
+
+            List<float[]> vectors = new ArrayList<>(count);
+            var floats = buffer.slice(HEADER_BYTES, count * dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            for (int node = 0; node < count; node++) {
+                float[] vector = new float[dimension];
+                floats.get(vector);
+                vectors.add(vector);
+            }
+            buffer.position(HEADER_BYTES + count * dimension * Float.BYTES);
+
+            long[] deletedWords = new long[buffer.getInt()];
+            for (int i = 0; i < deletedWords.length; i++) {
+                deletedWords[i] = buffer.getLong();
+            }
+
+            List<int[][]> links = new ArrayList<>(count);
+            for (int node = 0; node < count; node++) {
+                int[][] nodeLinks = new int[buffer.getInt()][];
+                for (int level = 0; level < nodeLinks.length; level++) {
+                    int[] levelLinks = new int[buffer.getInt()];
+                    for (int i = 0; i < levelLinks.length; i++) {
+                        levelLinks[i] = buffer.getInt();
+                    }
+                    nodeLinks[level] = levelLinks;
+                }
+                links.add(nodeLinks);
+            }
+
+            List<HnswVectorStore.StoredDocument> documents = new ArrayList<>(count);
+            for (int node = 0; node < count; node++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                documents.add(
+                        bytes.length == 0 ? null : objectMapper.readValue(bytes, HnswVectorStore.StoredDocument.class));
+            }
+
+            HnswIndex index = new HnswIndex(
+                    dimension, m, efConstruction, vectors, links, BitSet.valueOf(deletedWords), entryPoint, maxLevel);
+            return new Loaded(index, documents);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 进程内 HNSW 向量库，适合酒单这类可以完整放入内存的小规模数据
+ * 变更先写内存并标记为脏，定时及关闭时写入快照文件，启动时从快照加载
+ * 配置分区键后，文档按该元数据的每个取值另外写入对应分区的子索引；过滤条件能限定分区时只检索这些分区，
+ * 过滤检索的开销取决于分区大小而不是全部文档数。分区不写入快照，加载和压缩时由全局索引重建
+ */
+@Slf4j
+public class HnswVectorStore extends AbstractObservationVectorStore implements AutoCloseable {
+
+    private static final String COLLECTION_NAME = "wine";
+
+    private final Path snapshotPath;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double compactionRatio;
+    private final String partitionKey;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HnswIndex index;
+    private List<StoredDocument> documents = new ArrayList<>();
+    private Map<String, Integer> nodeById = new HashMap<>();
+    private Map<String, Partition> partitions = new HashMap<>();
+    private volatile boolean dirty;
+
+    record StoredDocument(String id, String text, Map<String, Object> metadata) {}
+
+    /**
+     * 分区子索引，nodes 记录子索引节点对应的全局节点；全局节点删除后由检索时的存活判断过滤
+     */
+    private record Partition(HnswIndex index, List<Integer> nodes) {}
+
+    protected HnswVectorStore(Builder builder) {
+        super(builder);
+        this.snapshotPath = builder.snapshotPath;
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+        this.compactionRatio = builder.compactionRatio;
+        this.partitionKey = builder.partitionKey;
+        loadSnapshot();
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> newDocuments) {
+        List<float[]> embeddings = embeddingModel.embed(
+                newDocuments, EmbeddingOptionsBuilder.builder().build(), batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < newDocuments.size(); i++) {
+                Document document = newDocuments.get(i);
+                float[] embedding = embeddings.get(i);
+                if (index == null) {
+                    index = new HnswIndex(embedding.length, m, efConstruction);
+                }
+                Integer existing = nodeById.get(document.getId());
+                if (existing != null) {
+                    index.markDeleted(existing);
+                    documents.set(existing, null);
+                }
+                int node = index.add(embedding);
+                StoredDocument stored =
+                        new StoredDocument(document.getId(), document.getText(), new HashMap<>(document.getMetadata()));
+                documents.add(stored);
+                nodeById.put(document.getId(), node);
+                addToPartitions(node, embedding, stored);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer node = nodeById.remove(id);
+                if (node != null) {
+                    index.markDeleted(node);
+                    documents.set(node, null);
+                    dirty = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        lock.writeLock().lock();
+        try {
+            for (int node = 0; node < documents.size(); node++) {
+                StoredDocument document = documents.get(node);
+                if (document != null && MetadataFilterEvaluator.matches(filterExpression, document.metadata())) {
+                    nodeById.remove(document.id());
+                    index.markDeleted(node);
+                    documents.set(node, null);
+                    dirty = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        float[] query = embeddingModel.embed(request.getQuery());
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return List.of();
+            }
+            IntPredicate filter = null;
+            Set<String> routed = null;
+            if (request.hasFilterExpression()) {
+                Filter.Expression expression = request.getFilterExpression();
+                filter = node -> {
+                    StoredDocument document = documents.get(node);
+                    return document != null && MetadataFilterEvaluator.matches(expression, document.metadata());
+                };
+                if (partitionKey != null) {
+                    routed = PartitionRouter.route(expression, partitionKey);
+                }
+            }
+            int ef = Math.max(efSearch, request.getTopK());
+            List<HnswIndex.SearchResult> hits = routed == null
+                    ? index.search(query, request.getTopK(), ef, filter)
+                    : searchPartitions(routed, query, request.getTopK(), ef, filter);
+
+            List<Document> results = new ArrayList<>();
+            for (HnswIndex.SearchResult result : hits) {
+                if (result.similarity() < request.getSimilarityThreshold()) {
+                    continue;
+                }
+                StoredDocument document = documents.get(result.node());
+                Map<String, Object> metadata = new HashMap<>(document.metadata());
+                metadata.put("distance", 1 - result.similarity());
+                results.add(Document.builder()
+                        .id(document.id())
+                        .text(document.text())
+                        .metadata(metadata)
+                        .score((double) result.similarity())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在各分区内检索后按相似度合并，同一文档属于多个分区时只保留一次
+     * @param filter 作用于全局节点，已删除文档的 documents 项为 null，因此同时过滤掉已删除节点
+     * @return 全局节点编号的检索结果
+     */
+    private List<HnswIndex.SearchResult> searchPartitions(
+            Set<String> partitionNames, float[] query, int topK, int ef, IntPredicate filter) {
+        Map<Integer, HnswIndex.SearchResult> merged = new HashMap<>();
+        for (String name : partitionNames) {
+            Partition partition = partitions.get(name);
+            if (partition == null) {
+                continue;
+            }
+            IntPredicate partitionFilter =
+                    partitionNode -> filter.test(partition.nodes().get(partitionNode));
+            for (HnswIndex.SearchResult result : partition.index().search(query, topK, ef, partitionFilter)) {
+                int node = partition.nodes().get(result.node());
+                merged.putIfAbsent(node, new HnswIndex.SearchResult(node, result.similarity()));
+            }
+        }
+        return merged.values().stream()
+                .sorted(Comparator.comparingDouble(HnswIndex.SearchResult::similarity)
+                        .reversed())
+                .limit(topK)
+                .toList();
+    }
+
+    private void addToPartitions(int node, float[] embedding, StoredDocument document) {
+        if (partitionKey == null) {
+            return;
+        }
+        for (String name : new LinkedHashSet<>(
+                PartitionRouter.partitionValues(document.metadata().get(partitionKey)))) {
+            Partition partition = partitions.computeIfAbsent(
+                    name, n -> new Partition(new HnswIndex(embedding.length, m, efConstruction), new ArrayList<>()));
+            partition.index().add(embedding);
+            partition.nodes().add(node);
+        }
+    }
+
+    private void rebuildPartitions() {
+        partitions = new HashMap<>();
+        if (partitionKey == null || index == null) {
+            return;
+        }
+        for (int node = 0; node < documents.size(); node++) {
+            StoredDocument document = documents.get(node);
+            if (document != null && !index.isDeleted(node)) {
+                addToPartitions(node, index.vector(node), document);
+            }
+        }
+        log.info("Rebuilt {} vector store partitions on {}", partitions.size(), partitionKey);
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+                .collectionName(COLLECTION_NAME)
+                .dimensions(index == null ? null : index.dimension())
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    /**
+     * 当前有效文档数
+     */
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return nodeById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${drinkup.vector-store.hnsw.flush-interval:PT30S}")
+    public void saveSnapshotIfDirty() {
+        if (dirty) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * 写入快照；已删除节点占比过高时先重建索引
+     */
+    public void saveSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (index == null) {
+                Files.deleteIfExists(snapshotPath);
+                dirty = false;
+                return;
+            }
+            if (index.size() - index.liveCount() > index.size() * compactionRatio) {
+                compact();
+            }
+            HnswSnapshot.write(snapshotPath, index, documents, objectMapper);
+            dirty = false;
+            log.info("Saved vector store snapshot with {} documents to {}", index.liveCount(), snapshotPath);
+        } catch (IOException e) {
+            log.error("Failed to save vector store snapshot to {}", snapshotPath, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compact() {
+        HnswIndex compacted = new HnswIndex(index.dimension(), m, efConstruction);
+        List<StoredDocument> compactedDocuments = new ArrayList<>();
+        Map<String, Integer> compactedNodeById = new HashMap<>();
+        for (int node = 0; node < documents.size(); node++) {
+            StoredDocument document = documents.get(node);
+            if (document == null || index.isDeleted(node)) {
+                continue;
+            }
+            int newNode = compacted.add(index.vector(node));
+            compactedDocuments.add(document);
+            compactedNodeById.put(document.id(), newNode);
+        }
+        log.info("Compacted vector store index from {} to {} nodes", index.size(), compacted.size());
+        index = compacted.size() == 0 ? null : compacted;
+        documents = compactedDocuments;
+        nodeById = compactedNodeById;
+        rebuildPartitions();
+    }
+
+    private void loadSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            log.info("No vector store snapshot found at {}, starting empty", snapshotPath);
+            return;
+        }
+        try {
+            HnswSnapshot.Loaded loaded = HnswSnapshot.read(snapshotPath, objectMapper);
+            index = loaded.index();
+            documents = new ArrayList<>(loaded.documents());
+            for (int node = 0; node < documents.size(); node++) {
+                StoredDocument document = documents.get(node);
+                if (document != null && !index.isDeleted(node)) {
+                    nodeById.put(document.id(), node);
+                }
+            }
+            log.info("Loaded vector store snapshot with {} documents from {}", nodeById.size(), snapshotPath);
+            rebuildPartitions();
+        } catch (IOException e) {
+            log.error("Failed to load vector store snapshot from {}, starting empty", snapshotPath, e);
+            index = null;
+            documents = new ArrayList<>();
+            nodeById = new HashMap<>();
+            partitions = new HashMap<>();
+        }
+    }
+
+    @Override
+    public void close() {
+        saveSnapshotIfDirty();
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private Path snapshotPath;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private double compactionRatio = 0.2;
+        private String partitionKey;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public Builder snapshotPath(Path snapshotPath) {
+            this.snapshotPath = snapshotPath;
+            return this;
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        public Builder compactionRatio(double compactionRatio) {
+            this.compactionRatio = compactionRatio;
+            return this;
+        }
+
+        /**
+         * 分区使用的元数据键，为空时不分区
+         */
+        public Builder partitionKey(String partitionKey) {
+            this.partitionKey = partitionKey == null || partitionKey.isBlank() ? null : partitionKey;
+            return this;
+        }
+
+        @Override
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * 在内存中对文档元数据求值 Spring AI 过滤表达式
+ * 元数据值为集合时，EQ / IN 只要任一元素匹配即成立，NE / NIN 要求所有元素都不匹配
+ */
+public final class MetadataFilterEvaluator {
+
+    private MetadataFilterEvaluator() {}
+
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        return switch (expression.type()) {
+            case AND -> matches(operand(expression.left()), metadata) && matches(operand(expression.right()), metadata);
+            case OR -> matches(operand(expression.left()), metadata) || matches(operand(expression.right()), metadata);
+            case NOT -> !matches(operand(expression.left()), metadata);
+            case EQ, IN -> anyMatch(expression, metadata);
+            case NE, NIN -> !anyMatch(expression, metadata) && metadata.containsKey(key(expression));
+            case GT, GTE, LT, LTE -> compare(expression, metadata);
+        };
+    }
+
+    private static boolean anyMatch(Filter.Expression expression, Map<String, Object> metadata) {
+        Object actual = metadata.get(key(expression));
+        if (actual == null) {
+            return false;
+        }
+        Object expected = ((Filter.Value) expression.right()).value();
+        List<?> expectedValues =
+                expected instanceof Collection<?> collection ? List.copyOf(collection) : List.of(expected);
+        List<?> actualValues = actual instanceof Collection<?> collection ? List.copyOf(collection) : List.of(actual);
+        for (Object a : actualValues) {
+            for (Object e : expectedValues) {
+                if (valueEquals(a, e)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean compare(Filter.Expression expression, Map<String, Object> metadata) {
+        Object actual = metadata.get(key(expression));
+        Object expected = ((Filter.Value) expression.right()).value();
+        if (actual == null || expected == null) {
+            return false;
+        }
+        int result;
+        if (actual instanceof Number a && expected instanceof Number e) {
+            result = Double.compare(a.doubleValue(), e.doubleValue());
+        } else {
+            result = String.valueOf(actual).compareTo(String.valueOf(expected));
+        }
+        return switch (expression.type()) {
+            case GT -> result > 0;
+            case GTE -> result >= 0;
+            case LT -> result < 0;
+            case LTE -> result <= 0;
+            default -> throw new IllegalStateException("Unexpected comparison: " + expression.type());
+        };
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue()) == 0;
+        }
+        return Objects.equals(String.valueOf(actual), String.valueOf(expected));
+    }
+
+    static String key(Filter.Expression expression) {
+        String key = ((Filter.Key) expression.left()).key();
+        // 文本表达式中的键可能带引号
+        if (key.length() > 1
+                && (key.startsWith("\"") && key.endsWith("\"") || key.startsWith("'") && key.endsWith("'"))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        return (Filter.Expression) operand;
+    }
+}
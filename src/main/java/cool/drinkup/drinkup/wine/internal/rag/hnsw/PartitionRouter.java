@@ -0,0 +1,69 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * 根据过滤表达式确定需要检索的分区
+ * 分区键上的 EQ / IN 条件可以路由；AND 取两侧可路由条件的交集，OR 只有两侧都可路由时取并集
+ */
+final class PartitionRouter {
+
+    private PartitionRouter() {}
+
+    /**
+     * @return 需要检索的分区，表达式无法限定分区时返回 null
+     */
+    static Set<String> route(Filter.Expression expression, String partitionKey) {
+        return switch (expression.type()) {
+            case EQ, IN -> {
+                if (!partitionKey.equals(MetadataFilterEvaluator.key(expression))) {
+                    yield null;
+                }
+                yield new LinkedHashSet<>(partitionValues(((Filter.Value) expression.right()).value()));
+            }
+            case AND -> {
+                Set<String> left = route(MetadataFilterEvaluator.operand(expression.left()), partitionKey);
+                Set<String> right = route(MetadataFilterEvaluator.operand(expression.right()), partitionKey);
+                if (left == null || right == null) {
+                    yield left == null ? right : left;
+                }
+                Set<String> both = new LinkedHashSet<>(left);
+                both.retainAll(right);
+                yield both;
+            }
+            case OR -> {
+                Set<String> left = route(MetadataFilterEvaluator.operand(expression.left()), partitionKey);
+                Set<String> right = route(MetadataFilterEvaluator.operand(expression.right()), partitionKey);
+                if (left == null || right == null) {
+                    yield null;
+                }
+                Set<String> either = new HashSet<>(left);
+                either.addAll(right);
+                yield either;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * 元数据值转为分区名，集合按元素展开；整数值不区分 Integer / Long / Double 的表示
+     */
+    static List<String> partitionValues(Object value) {
+        List<String> partitions = new ArrayList<>();
+        if (value instanceof Collection<?> collection) {
+            collection.forEach(element -> partitions.addAll(partitionValues(element)));
+        } else if (value instanceof Number number) {
+            double d = number.doubleValue();
+            partitions.add(d == Math.rint(d) ? String.valueOf(number.longValue()) : number.toString());
+        } else if (value != null) {
+            partitions.add(String.valueOf(value));
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,284 @@
+package cool.drinkup.drinkup.wine.internal.rag.lexical;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内倒排索引，BM25 打分
+ * 拉丁字母和数字按词切分，中日韩文字按相邻二元组切分；名称中的词按更高权重计入词频，
+ * 另外维护归一化名称到文档的映射，用于名称精确匹配
+ */
+public class LexicalIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final int nameWeight;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 词 -> (文档ID -> 词频) */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> idsByName = new HashMap<>();
+    private long totalLength;
+
+    public record ScoredId(long id, double score) {}
+
+    private record Entry(
+            List<String> nameKeys, Map<String, Integer> termFrequencies, int length, Set<Long> categoryIds) {}
+
+    public LexicalIndex(int nameWeight) {
+        this.nameWeight = Math.max(1, nameWeight);
+    }
+
+    /**
+     * 写入或替换文档
+     * @param names 名称，参与精确匹配并按更高权重计分
+     * @param body 其余可检索文本
+     */
+    public void put(long id, List<String> names, String body, Collection<Long> categoryIds) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        List<String> nameKeys = new ArrayList<>();
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            String key = nameKey(name);
+            if (!key.isEmpty()) {
+                nameKeys.add(key);
+            }
+            for (String token : tokenize(name)) {
+                termFrequencies.merge(token, nameWeight, Integer::sum);
+            }
+        }
+        for (String token : tokenize(body)) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        int length =
+                termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        Entry entry = new Entry(nameKeys, termFrequencies, length, Set.copyOf(categoryIds));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            entries.put(id, entry);
+            totalLength += length;
+            termFrequencies.forEach((term, tf) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+            for (String key : nameKeys) {
+                idsByName.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询与某个名称归一化后完全相同的文档
+     * @param categoryIds 分类过滤，为空时不过滤
+     */
+    public List<Long> exactMatch(String query, Collection<Long> categoryIds) {
+        String key = nameKey(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = idsByName.get(key);
+            if (ids == null) {
+                return List.of();
+            }
+            return ids.stream()
+                    .filter(id -> inCategories(entries.get(id), categoryIds))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 检索，按得分降序返回前 k 个文档
+     * @param categoryIds 分类过滤，为空时不过滤
+     */
+    public List<ScoredId> search(String query, int k, Collection<Long> categoryIds) {
+        Set<String> terms = new HashSet<>(tokenize(query));
+        if (terms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (entries.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / entries.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (entries.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((id, tf) -> {
+                    Entry entry = entries.get(id);
+                    if (!inCategories(entry, categoryIds)) {
+                        return;
+                    }
+                    double norm = K1 * (1 - B + B * entry.length() / averageLength);
+                    scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+            return scores.entrySet().stream()
+                    .map(e -> new ScoredId(e.getKey(), e.getValue()))
+                    .sorted(Comparator.comparingDouble(ScoredId::score)
+                            .reversed()
+                            .thenComparingLong(ScoredId::id))
+                    .limit(k)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 切词：拉丁字母和数字连续成词，中日韩文字取相邻二元组，单字时保留单字
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjkRun = new ArrayList<>();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.add(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, tokens);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens);
+        return tokens;
+    }
+
+    /**
+     * 名称精确匹配使用的键：归一化后只保留字母和数字
+     */
+    static String nameKey(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        normalize(name).codePoints().filter(Character::isLetterOrDigit).forEach(key::appendCodePoint);
+        return key.toString();
+    }
+
+    private void removeInternal(long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length();
+        for (String term : previous.termFrequencies().keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (String key : previous.nameKeys()) {
+            Set<Long> ids = idsByName.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByName.remove(key);
+                }
+            }
+        }
+    }
+
+    private static boolean inCategories(Entry entry, Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return true;
+        }
+        for (Long categoryId : categoryIds) {
+            if (entry.categoryIds().contains(categoryId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (!word.isEmpty()) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<Integer> run, List<String> tokens) {
+        if (run.size() == 1) {
+            tokens.add(Character.toString(run.getFirst()));
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            tokens.add(new StringBuilder()
+                    .appendCodePoint(run.get(i))
+                    .appendCodePoint(run.get(i + 1))
+                    .toString());
+        }
+        run.clear();
+    }
+}
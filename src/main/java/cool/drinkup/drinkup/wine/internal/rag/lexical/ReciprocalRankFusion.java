@@ -0,0 +1,37 @@
+package cool.drinkup.drinkup.wine.internal.rag.lexical;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 倒数排名融合（RRF）：score(d) = Σ 1 / (k + rank)，rank 从 1 开始
+ * 只依赖各路结果的名次，不需要对不同检索方式的分数做归一化
+ */
+public final class ReciprocalRankFusion {
+
+    private ReciprocalRankFusion() {}
+
+    public record Fused<T>(T id, double score) {}
+
+    /**
+     * @param rankings 各路检索结果，按相关度降序
+     * @param k 平滑常数，越大名次差异的影响越小
+     * @param limit 返回数量
+     * @return 融合后的 ID 及 RRF 得分，得分相同时按首次出现的顺序
+     */
+    public static <T> List<Fused<T>> fuse(List<List<T>> rankings, int k, int limit) {
+        Map<T, Double> scores = new LinkedHashMap<>();
+        for (List<T> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<T, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(e -> new Fused<>(e.getKey(), e.getValue()))
+                .toList();
+    }
+}
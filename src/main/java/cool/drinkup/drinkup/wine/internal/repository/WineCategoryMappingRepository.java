@@ -1,6 +1,7 @@
 package cool.drinkup.drinkup.wine.internal.repository;
 
 import cool.drinkup.drinkup.wine.internal.model.WineCategoryMapping;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +31,11 @@ public interface WineCategoryMappingRepository extends JpaRepository<WineCategor
      */
     List<WineCategoryMapping> findByWineId(Long wineId);
 
+    /**
+     * 根据多个酒ID批量查询所属分类
+     */
+    List<WineCategoryMapping> findByWineIdIn(Collection<Long> wineIds);
+
     /**
      * 检查酒是否属于指定分类
      */
@@ -1,7 +1,10 @@
 package cool.drinkup.drinkup.wine.internal.repository;
 
 import cool.drinkup.drinkup.wine.internal.model.Wine;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,6 +23,32 @@ public interface WineRepository extends JpaRepository<Wine, Long> {
 
     Page<Wine> findAll(Pageable pageable);
 
+    /**
+     * 按主键游标分页查询，用于全量遍历
+     */
+    List<Wine> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+
+    /**
+     * 按给定ID顺序批量查询，一次 IN 查询，不存在的ID跳过
+     */
+    default List<Wine> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Wine> winesById = new HashMap<>();
+        for (Wine wine : findAllById(ids)) {
+            winesById.put(Long.valueOf(wine.getId()), wine);
+        }
+        List<Wine> wines = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Wine wine = winesById.get(id);
+            if (wine != null) {
+                wines.add(wine);
+            }
+        }
+        return wines;
+    }
+
     @Query(value = "SELECT * FROM wine ORDER BY RAND() LIMIT 1", nativeQuery = true)
     Wine findRandomWine();
 
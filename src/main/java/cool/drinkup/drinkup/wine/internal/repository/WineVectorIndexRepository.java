@@ -0,0 +1,16 @@
+package cool.drinkup.drinkup.wine.internal.repository;
+
+import cool.drinkup.drinkup.wine.internal.model.WineVectorIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WineVectorIndexRepository extends JpaRepository<WineVectorIndex, Long> {
+
+    /**
+     * 统计清单中记录的向量文档总数
+     */
+    @Query("SELECT COALESCE(SUM(v.documentCount), 0) FROM WineVectorIndex v")
+    long sumDocumentCount();
+}
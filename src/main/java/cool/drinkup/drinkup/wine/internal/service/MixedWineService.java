@@ -5,7 +5,6 @@ import cool.drinkup.drinkup.wine.internal.controller.resp.RandomWineResp;
 import cool.drinkup.drinkup.wine.internal.controller.resp.WorkflowUserWineVo;
 import cool.drinkup.drinkup.wine.internal.controller.resp.WorkflowWineVo;
 import cool.drinkup.drinkup.wine.internal.mapper.UserWineMapper;
-import cool.drinkup.drinkup.wine.internal.mapper.WineMapper;
 import cool.drinkup.drinkup.wine.internal.model.UserWine;
 import cool.drinkup.drinkup.wine.internal.model.Wine;
 import java.util.ArrayList;
@@ -22,7 +21,6 @@ public class MixedWineService {
 
     private final WineService wineService;
     private final UserWineService userWineService;
-    private final WineMapper wineMapper;
     private final UserWineMapper userWineMapper;
 
     private RandomWineResp getRandomMixedWine(int count) {
@@ -43,8 +41,7 @@ public class MixedWineService {
         // 批量获取IBA酒
         if (ibaCount > 0) {
             List<Wine> ibaWines = wineService.getRandomWines(ibaCount);
-            for (Wine wine : ibaWines) {
-                WorkflowWineVo wineVo = wineMapper.toWineVo(wine);
+            for (WorkflowWineVo wineVo : wineService.toWineVos(ibaWines)) {
                 mixedWines.add(RandomWineResp.RandomWineContent.builder()
                         .type(RandomWineTypeEnum.IBA.name())
                         .wine(wineVo)
@@ -80,8 +77,7 @@ public class MixedWineService {
             int missingUserCount = userCount - userWines.size();
             if (missingUserCount > 0) {
                 List<Wine> supplementIbaWines = wineService.getRandomWines(missingUserCount);
-                for (Wine wine : supplementIbaWines) {
-                    WorkflowWineVo wineVo = wineMapper.toWineVo(wine);
+                for (WorkflowWineVo wineVo : wineService.toWineVos(supplementIbaWines)) {
                     mixedWines.add(RandomWineResp.RandomWineContent.builder()
                             .type(RandomWineTypeEnum.IBA.name())
                             .wine(wineVo)
@@ -122,10 +118,10 @@ public class MixedWineService {
             return RandomWineResp.builder().build();
         }
 
-        List<RandomWineResp.RandomWineContent> wineContents = randomWines.stream()
-                .map(wine -> RandomWineResp.RandomWineContent.builder()
+        List<RandomWineResp.RandomWineContent> wineContents = wineService.toWineVos(randomWines).stream()
+                .map(wineVo -> RandomWineResp.RandomWineContent.builder()
                         .type(RandomWineTypeEnum.IBA.name())
-                        .wine(wineMapper.toWineVo(wine))
+                        .wine(wineVo)
                         .build())
                 .collect(Collectors.toList());
 
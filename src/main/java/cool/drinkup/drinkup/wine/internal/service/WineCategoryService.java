@@ -5,11 +5,14 @@ import cool.drinkup.drinkup.wine.internal.controller.resp.WineSceneCategoryTreeV
 import cool.drinkup.drinkup.wine.internal.mapper.WineCategoryMapper;
 import cool.drinkup.drinkup.wine.internal.model.Wine;
 import cool.drinkup.drinkup.wine.internal.model.WineCategory;
+import cool.drinkup.drinkup.wine.internal.model.WineCategoryMapping;
 import cool.drinkup.drinkup.wine.internal.model.WineScene;
 import cool.drinkup.drinkup.wine.internal.repository.WineCategoryMappingRepository;
 import cool.drinkup.drinkup.wine.internal.repository.WineCategoryRepository;
 import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
@@ -89,7 +92,7 @@ public class WineCategoryService {
         }
 
         Page<Long> wineIds = mappingRepository.findWineIdsByCategories(categoryIds, pageable);
-        List<Wine> wines = wineRepository.findAllById(wineIds.getContent());
+        List<Wine> wines = wineRepository.findAllByIdInOrder(wineIds.getContent());
 
         return new PageImpl<>(wines, pageable, wineIds.getTotalElements());
     }
@@ -102,7 +105,7 @@ public class WineCategoryService {
         List<Long> allCategoryIds = categoryRepository.findCategoryAndSubCategoryIds(categoryId);
 
         Page<Long> wineIds = mappingRepository.findWineIdsByCategories(allCategoryIds, pageable);
-        List<Wine> wines = wineRepository.findAllById(wineIds.getContent());
+        List<Wine> wines = wineRepository.findAllByIdInOrder(wineIds.getContent());
 
         return new PageImpl<>(wines, pageable, wineIds.getTotalElements());
     }
@@ -130,4 +133,18 @@ public class WineCategoryService {
                 .map(mapping -> mapping.getCategoryId().toString())
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 批量查询多个酒单的分类ID，一次 IN 查询
+     * @return 酒单ID到分类ID的映射，没有分类的酒单不在映射中
+     */
+    public Map<Long, List<String>> getCategoryIdsByWineIds(Collection<Long> wineIds) {
+        if (wineIds.isEmpty()) {
+            return Map.of();
+        }
+        return mappingRepository.findByWineIdIn(wineIds).stream()
+                .collect(Collectors.groupingBy(
+                        WineCategoryMapping::getWineId,
+                        Collectors.mapping(mapping -> mapping.getCategoryId().toString(), Collectors.toList())));
+    }
 }
@@ -3,21 +3,22 @@ package cool.drinkup.drinkup.wine.internal.service;
 import cool.drinkup.drinkup.wine.internal.controller.resp.WorkflowWineVo;
 import cool.drinkup.drinkup.wine.internal.mapper.WineMapper;
 import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.rag.HybridWineRetriever;
+import cool.drinkup.drinkup.wine.internal.rag.WineSearchHit;
 import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
 import cool.drinkup.drinkup.wine.spi.WineServiceFacade;
 import cool.drinkup.drinkup.wine.spi.WorkflowWineResp;
 import cool.drinkup.drinkup.wine.spi.dto.ProcessCocktailRequestDto;
 import jakarta.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,8 +31,8 @@ public class WineService implements WineServiceFacade {
 
     private final WineRepository wineRepository;
     private final WineMapper wineMapper;
-    private final VectorStore vectorStore;
     private final WineCategoryService wineCategoryService;
+    private final HybridWineRetriever hybridWineRetriever;
 
     @Override
     @Cacheable(value = "wine", key = "#id", unless = "#result == null", cacheManager = "cacheManager")
@@ -56,57 +57,15 @@ public class WineService implements WineServiceFacade {
 
     @Override
     public WorkflowWineResp processCocktailRequest(ProcessCocktailRequestDto request) {
-        SearchRequest.Builder searchRequestBuilder =
-                SearchRequest.builder().query(request.getUserInput()).topK(10);
-
         // 如果有分类过滤条件，添加过滤表达式
         if (!CollectionUtils.isEmpty(request.getCategoryIds())) {
-            FilterExpressionBuilder filterBuilder = new FilterExpressionBuilder();
-            Object[] categoryArray = request.getCategoryIds().toArray();
-            var filterExpression = filterBuilder.in("categoryId", categoryArray).build();
-            searchRequestBuilder.filterExpression(filterExpression);
             log.info("Using category filter: categoryIds in {}", request.getCategoryIds());
         }
+        List<Long> wineIds = hybridWineRetriever.retrieve(request.getUserInput(), 10, request.getCategoryIds()).stream()
+                .map(WineSearchHit::wineId)
+                .toList();
 
-        List<Document> results = vectorStore.similaritySearch(searchRequestBuilder.build());
-        log.info("Results: {}", results);
-
-        // 按照相似度分数降序排序（分数越高，相似度越高）
-        List<Document> sortedResults = results.stream()
-                .sorted((doc1, doc2) -> {
-                    Double score1 = doc1.getScore();
-                    Double score2 = doc2.getScore();
-                    if (score1 == null && score2 == null) return 0;
-                    if (score1 == null) return 1; // null分数排在后面
-                    if (score2 == null) return -1;
-                    return Double.compare(score2, score1); // 降序排序，分数高的在前
-                })
-                .collect(Collectors.toList());
-
-        log.info(
-                "Sorted results by score: {}",
-                sortedResults.stream()
-                        .map(doc -> "wineId=" + doc.getMetadata().get("wineId") + ", score=" + doc.getScore())
-                        .collect(Collectors.toList()));
-
-        List<Long> wineIds = sortedResults.stream()
-                .map(Document::getMetadata)
-                .map(metadata ->
-                        (long) Double.parseDouble(metadata.get("wineId").toString()))
-                .distinct()
-                .collect(Collectors.toList());
-
-        List<Wine> wines = wineRepository.findAllById(wineIds);
-        log.info("Wines: {}", wines);
-
-        // 根据原始排序顺序重新排列wines列表，保持按score排序
-        List<Wine> sortedWines = wineIds.stream()
-                .map(wineId -> wines.stream()
-                        .filter(wine -> Long.parseLong(wine.getId()) == wineId)
-                        .findFirst()
-                        .orElse(null))
-                .filter(wine -> wine != null)
-                .collect(Collectors.toList());
+        List<Wine> sortedWines = wineRepository.findAllByIdInOrder(wineIds);
 
         log.info(
                 "Sorted wines by score: {}",
@@ -114,8 +73,7 @@ public class WineService implements WineServiceFacade {
                         .map(wine -> "wineId=" + wine.getId() + ", name=" + wine.getName())
                         .collect(Collectors.toList()));
 
-        List<WorkflowWineVo> workflowUserWineVos =
-                sortedWines.stream().map(this::toWineVo).collect(Collectors.toList());
+        List<WorkflowWineVo> workflowUserWineVos = toWineVos(sortedWines);
 
         WorkflowWineResp workflowUserWIneResp = new WorkflowWineResp();
         workflowUserWIneResp.setWines(workflowUserWineVos);
@@ -130,6 +88,26 @@ public class WineService implements WineServiceFacade {
         return workflowWineVo;
     }
 
+    /**
+     * 批量组装酒单视图，所有酒单的分类ID一次查询，结果顺序与输入一致
+     */
+    public List<WorkflowWineVo> toWineVos(List<Wine> wines) {
+        List<Long> wineIds =
+                wines.stream().map(wine -> Long.valueOf(wine.getId())).toList();
+        Map<Long, List<String>> categoryIdsByWineId = wineCategoryService.getCategoryIdsByWineIds(wineIds);
+        List<WorkflowWineVo> wineVos = new ArrayList<>(wines.size());
+        for (int i = 0; i < wines.size(); i++) {
+            WorkflowWineVo wineVo = wineMapper.toWineVo(wines.get(i));
+            wineVo.setCategoryIds(categoryIdsByWineId.getOrDefault(wineIds.get(i), new ArrayList<>()));
+            wineVos.add(wineVo);
+        }
+        return wineVos;
+    }
+
+    public Page<WorkflowWineVo> toWineVoPage(Page<Wine> wines) {
+        return new PageImpl<>(toWineVos(wines.getContent()), wines.getPageable(), wines.getTotalElements());
+    }
+
     @Transactional
     public Wine updateWineCardImage(Long wineId, String cardImage) {
         Wine wine = wineRepository.findById(wineId).orElseThrow(() -> new RuntimeException("酒不存在，ID: " + wineId));
@@ -3,8 +3,8 @@ package cool.drinkup.drinkup.wine.internal.spi.impl;
 import cool.drinkup.drinkup.favorite.spi.FavoriteObjectLoader;
 import cool.drinkup.drinkup.favorite.spi.ObjectType;
 import cool.drinkup.drinkup.shared.dto.Wine;
-import cool.drinkup.drinkup.wine.internal.mapper.WineMapper;
 import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
+import cool.drinkup.drinkup.wine.internal.service.WineService;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,12 +16,11 @@ import org.springframework.stereotype.Component;
 public class WineFavoriteLoader implements FavoriteObjectLoader<Wine> {
 
     private final WineRepository wineRepository;
-    private final WineMapper wineMapper;
+    private final WineService wineService;
 
     @Override
     public Map<Long, Wine> loadObjects(List<Long> objectIds) {
-        return wineRepository.findAllById(objectIds).stream()
-                .map(wineMapper::toWineVo)
+        return wineService.toWineVos(wineRepository.findAllById(objectIds)).stream()
                 .collect(Collectors.toMap(wine -> Long.parseLong(wine.getId()), wine -> wine));
     }
 
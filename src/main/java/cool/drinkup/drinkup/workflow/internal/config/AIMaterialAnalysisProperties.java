@@ -1,5 +1,6 @@
 package cool.drinkup.drinkup.workflow.internal.config;
 
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
 import lombok.Data;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.deepseek.DeepSeekChatModel;
@@ -16,10 +17,13 @@ public class AIMaterialAnalysisProperties {
     private String server = "openai";
 
     @Bean
-    public ChatModel materialAnalysisChatModel(OpenAiChatModel openAiChatModel, DeepSeekChatModel deepSeekChatModel) {
+    public ChatModel materialAnalysisChatModel(
+            OpenAiChatModel openAiChatModel,
+            DeepSeekChatModel deepSeekChatModel,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
         if ("deepseek".equals(server)) {
-            return deepSeekChatModel;
+            return chatModelConcurrencyLimiters.wrap(deepSeekChatModel);
         }
-        return openAiChatModel;
+        return chatModelConcurrencyLimiters.wrap(openAiChatModel);
     }
 }
@@ -1,5 +1,6 @@
 package cool.drinkup.drinkup.workflow.internal.config;
 
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
 import lombok.Data;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.deepseek.DeepSeekChatModel;
@@ -15,11 +16,24 @@ public class AITranslateProperties {
     private String model = "google/gemini-2.0-flash-001";
     private String server = "openai";
 
+    /**
+     * 批量翻译时单次模型调用的输入 token 上限，超出时拆分为多次并行调用
+     */
+    private int batchTokenBudget = 2000;
+
+    /**
+     * 批量翻译时单次模型调用的最大条数
+     */
+    private int batchMaxItems = 50;
+
     @Bean
-    public ChatModel translateChatModel(OpenAiChatModel openAiChatModel, DeepSeekChatModel deepSeekChatModel) {
+    public ChatModel translateChatModel(
+            OpenAiChatModel openAiChatModel,
+            DeepSeekChatModel deepSeekChatModel,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
         if ("deepseek".equals(server)) {
-            return deepSeekChatModel;
+            return chatModelConcurrencyLimiters.wrap(deepSeekChatModel);
         }
-        return openAiChatModel;
+        return chatModelConcurrencyLimiters.wrap(openAiChatModel);
     }
 }
@@ -0,0 +1,31 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import cool.drinkup.drinkup.shared.spi.ConcurrencyLimitProperties;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 各对话模型的并发限制，按请求实际使用的模型名区分
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.ai.concurrency")
+public class AiConcurrencyProperties {
+
+    /**
+     * 未单独配置的模型使用的限制
+     */
+    private ConcurrencyLimitProperties defaults = new ConcurrencyLimitProperties();
+
+    /**
+     * 按模型名覆盖，模型名含 / 时使用 drinkup.ai.concurrency.models[deepseek/deepseek-chat-v3-0324] 形式配置
+     */
+    private Map<String, ConcurrencyLimitProperties> models = new HashMap<>();
+
+    public ConcurrencyLimitProperties forModel(String model) {
+        return models.getOrDefault(model, defaults);
+    }
+}
@@ -1,5 +1,8 @@
 package cool.drinkup.drinkup.workflow.internal.config;
 
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
+import cool.drinkup.drinkup.workflow.internal.service.hedge.HedgeProperties;
+import java.time.Duration;
 import lombok.Data;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.deepseek.DeepSeekChatModel;
@@ -18,6 +21,13 @@ public class BartenderProperties {
 
     private RecoverableBartenderProperties recoverable = new RecoverableBartenderProperties();
 
+    private ImagePipelineProperties imagePipeline = new ImagePipelineProperties();
+
+    /**
+     * 主模型响应过慢时并行请求备用模型
+     */
+    private HedgeProperties hedge = new HedgeProperties();
+
     @Data
     public static class RecoverableBartenderProperties {
         private String model = "deepseek/deepseek-chat-v3-0324";
@@ -25,20 +35,36 @@ public class BartenderProperties {
         private String server = "openai";
     }
 
+    /**
+     * 调酒结果出图流程各阶段超时
+     */
+    @Data
+    public static class ImagePipelineProperties {
+        private Duration generateTimeout = Duration.ofSeconds(120);
+        private Duration downloadTimeout = Duration.ofSeconds(60);
+        private Duration storeTimeout = Duration.ofSeconds(30);
+        private Duration removeBackgroundTimeout = Duration.ofSeconds(90);
+    }
+
     @Bean
-    public ChatModel bartenderChatModel(OpenAiChatModel openAiChatModel, DeepSeekChatModel deepSeekChatModel) {
+    public ChatModel bartenderChatModel(
+            OpenAiChatModel openAiChatModel,
+            DeepSeekChatModel deepSeekChatModel,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
         if ("deepseek".equals(server)) {
-            return deepSeekChatModel;
+            return chatModelConcurrencyLimiters.wrap(deepSeekChatModel);
         }
-        return openAiChatModel;
+        return chatModelConcurrencyLimiters.wrap(openAiChatModel);
     }
 
     @Bean
     public ChatModel bartenderRecoverableChatModel(
-            OpenAiChatModel openAiChatModel, DeepSeekChatModel deepSeekChatModel) {
-        if ("deepseek".equals(server)) {
-            return deepSeekChatModel;
+            OpenAiChatModel openAiChatModel,
+            DeepSeekChatModel deepSeekChatModel,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
+        if ("deepseek".equals(recoverable.getServer())) {
+            return chatModelConcurrencyLimiters.wrap(deepSeekChatModel);
         }
-        return openAiChatModel;
+        return chatModelConcurrencyLimiters.wrap(openAiChatModel);
     }
 }
@@ -1,9 +1,8 @@
 package cool.drinkup.drinkup.workflow.internal.config;
 
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
+import java.time.Duration;
 import lombok.Data;
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
-import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.deepseek.DeepSeekChatModel;
 import org.springframework.ai.openai.OpenAiChatModel;
@@ -23,21 +22,43 @@ public class ChatBotProperties {
     @Data
     public static class MemoryProperties {
         private int maxMessages = 10;
+
+        /**
+         * 对话窗口的 token 预算，超出时旧消息合并进摘要；不大于 0 时按 maxMessages 条数截断且不生成摘要
+         */
+        private int tokenBudget = 4000;
+
+        /**
+         * 生成摘要使用的模型，为空时使用聊天模型
+         */
+        private String summaryModel;
+
+        private Duration summaryTtl = Duration.ofDays(30);
+
+        /**
+         * 对话记忆存储：redis / memory 为热存储加批量写回数据库，jdbc 为每轮直接读写数据库
+         */
+        private String store = "redis";
+
+        private int flushBatchSize = 200;
+
+        /**
+         * 对话在热存储中的有效期，过期后从数据库重新加载
+         */
+        private Duration hotTtl = Duration.ofHours(24);
+
+        private Duration flushLockTimeout = Duration.ofSeconds(30);
+        private String redisKeyPrefix = "drinkup:chat-memory:";
     }
 
     @Bean
-    public ChatModel chatBotModel(OpenAiChatModel openAiChatModel, DeepSeekChatModel deepSeekChatModel) {
+    public ChatModel chatBotModel(
+            OpenAiChatModel openAiChatModel,
+            DeepSeekChatModel deepSeekChatModel,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
         if ("deepseek".equals(server)) {
-            return deepSeekChatModel;
+            return chatModelConcurrencyLimiters.wrap(deepSeekChatModel);
         }
-        return openAiChatModel;
-    }
-
-    @Bean
-    public ChatMemory chatBotChatMemory(JdbcChatMemoryRepository jdbcChatMemoryRepository) {
-        return MessageWindowChatMemory.builder()
-                .chatMemoryRepository(jdbcChatMemoryRepository)
-                .maxMessages(memory.getMaxMessages())
-                .build();
+        return chatModelConcurrencyLimiters.wrap(openAiChatModel);
     }
 }
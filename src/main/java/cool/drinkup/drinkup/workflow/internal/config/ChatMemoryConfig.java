@@ -1,13 +1,31 @@
 package cool.drinkup.drinkup.workflow.internal.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import cool.drinkup.drinkup.user.spi.AuthenticatedUserDTO;
 import cool.drinkup.drinkup.user.spi.AuthenticationServiceFacade;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.ChatMemoryHotTier;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.ChatMemorySummarizer;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.ConversationSummaryStore;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.InMemoryChatMemoryHotTier;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.RedisChatMemoryHotTier;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.TokenWindowChatMemory;
+import cool.drinkup.drinkup.workflow.internal.service.chat.memory.WriteBehindChatMemoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
 import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepositoryDialect;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 public class ChatMemoryConfig {
@@ -27,6 +45,76 @@ public class ChatMemoryConfig {
                 .build();
     }
 
+    /**
+     * 聊天与调酒对话使用的记忆存储，按 drinkup.chat.memory.store 选择
+     */
+    @Bean
+    public ChatMemoryRepository chatBotChatMemoryRepository(
+            ChatBotProperties chatBotProperties,
+            JdbcChatMemoryRepository jdbcChatMemoryRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            AuthenticationServiceFacade authenticationServiceFacade,
+            MeterRegistry meterRegistry) {
+        ChatBotProperties.MemoryProperties memory = chatBotProperties.getMemory();
+        ChatMemoryHotTier hotTier =
+                switch (memory.getStore()) {
+                    case "jdbc" -> null;
+                    case "memory" -> new InMemoryChatMemoryHotTier(memory.getHotTtl());
+                    case "redis" ->
+                        new RedisChatMemoryHotTier(
+                                redisTemplate,
+                                objectMapper,
+                                memory.getRedisKeyPrefix(),
+                                memory.getHotTtl(),
+                                memory.getFlushLockTimeout());
+                    default -> throw new IllegalArgumentException("Unknown chat memory store: " + memory.getStore());
+                };
+        if (hotTier == null) {
+            return jdbcChatMemoryRepository;
+        }
+        return new WriteBehindChatMemoryRepository(
+                hotTier,
+                jdbcTemplate,
+                new TransactionTemplate(transactionManager),
+                authenticationServiceFacade,
+                memory.getFlushBatchSize(),
+                meterRegistry);
+    }
+
+    /**
+     * 配置了 token 预算时按预算保留最近消息并滚动生成摘要，否则按条数截断
+     */
+    @Bean
+    public ChatMemory chatBotChatMemory(
+            ChatBotProperties chatBotProperties,
+            @Qualifier("chatBotChatMemoryRepository") ChatMemoryRepository chatBotChatMemoryRepository,
+            ChatMemorySummarizer chatMemorySummarizer,
+            RedisTemplate<String, String> redisTemplate,
+            MeterRegistry meterRegistry) {
+        ChatBotProperties.MemoryProperties memory = chatBotProperties.getMemory();
+        if (memory.getTokenBudget() <= 0) {
+            return MessageWindowChatMemory.builder()
+                    .chatMemoryRepository(chatBotChatMemoryRepository)
+                    .maxMessages(memory.getMaxMessages())
+                    .build();
+        }
+        ConversationSummaryStore summaryStore = "memory".equals(memory.getStore())
+                ? ConversationSummaryStore.inMemory()
+                : ConversationSummaryStore.redis(
+                        redisTemplate, memory.getRedisKeyPrefix() + "summary:", memory.getSummaryTtl());
+        return new TokenWindowChatMemory(
+                chatBotChatMemoryRepository,
+                summaryStore,
+                chatMemorySummarizer,
+                new JTokkitTokenCountEstimator(),
+                memory.getTokenBudget(),
+                Executors.newVirtualThreadPerTaskExecutor(),
+                meterRegistry);
+    }
+
     public static class MyChatMemoryRepositoryDialect implements JdbcChatMemoryRepositoryDialect {
 
         private AuthenticationServiceFacade authenticationServiceFacade;
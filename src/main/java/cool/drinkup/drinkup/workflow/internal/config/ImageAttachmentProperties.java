@@ -0,0 +1,24 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.image.attachment")
+public class ImageAttachmentProperties {
+
+    /**
+     * 本地缓存的图片数量上限，按 imgproxy 压缩后约数百 KB 一张估算
+     */
+    private int cacheMaxSize = 64;
+
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * 一条消息中全部图片的加载超时
+     */
+    private Duration loadTimeout = Duration.ofSeconds(60);
+}
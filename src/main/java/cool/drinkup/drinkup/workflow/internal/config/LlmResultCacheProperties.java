@@ -0,0 +1,29 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 翻译、原料分析等大模型结果缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.llm.cache")
+public class LlmResultCacheProperties {
+    private boolean enabled = true;
+
+    /**
+     * 是否写入数据库持久层，关闭后只使用 Redis
+     */
+    private boolean persistent = true;
+
+    private Duration redisTtl = Duration.ofDays(7);
+    private String redisKeyPrefix = "drinkup:llm-cache:";
+
+    /**
+     * 相同请求合并时等待进行中调用的最长时间，超时后自行调用模型
+     */
+    private Duration coalesceTimeout = Duration.ofSeconds(60);
+}
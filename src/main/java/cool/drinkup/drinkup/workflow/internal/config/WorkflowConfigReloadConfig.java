@@ -0,0 +1,25 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 在共享的 Redis 订阅容器上监听提示词和主题配置的重新加载通知
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WorkflowConfigReloadConfig {
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                workflowConfigRegistry, new ChannelTopic(workflowConfigRegistry.getReloadChannel()));
+    }
+}
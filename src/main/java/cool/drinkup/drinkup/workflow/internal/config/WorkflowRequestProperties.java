@@ -0,0 +1,33 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 绑定请求生命周期的工作流超时与断开检测配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "drinkup.workflow.request")
+public class WorkflowRequestProperties {
+
+    private Duration defaultTimeout = Duration.ofSeconds(120);
+
+    /**
+     * 按工作流名覆盖超时
+     */
+    private Map<String, Duration> timeouts = new HashMap<>(Map.of("bartender", Duration.ofSeconds(180)));
+
+    /**
+     * 等待期间写出空白的间隔，客户端断开后最迟约两个间隔内被发现
+     */
+    private Duration keepAliveInterval = Duration.ofSeconds(5);
+
+    public Duration timeoutOf(String workflow) {
+        return timeouts.getOrDefault(workflow, defaultTimeout);
+    }
+}
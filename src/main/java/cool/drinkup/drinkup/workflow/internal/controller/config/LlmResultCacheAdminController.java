@@ -0,0 +1,38 @@
+package cool.drinkup.drinkup.workflow.internal.controller.config;
+
+import cool.drinkup.drinkup.shared.spi.CommonResp;
+import cool.drinkup.drinkup.workflow.internal.service.llmcache.LlmResultCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/llm-cache")
+@RequiredArgsConstructor
+@Tag(name = "管理员大模型缓存", description = "翻译、原料分析结果缓存管理")
+@SecurityRequirement(name = "bearerAuth")
+public class LlmResultCacheAdminController {
+
+    private final LlmResultCache llmResultCache;
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "清理缓存", description = "清理 Redis 与数据库中的缓存结果，不传 task 时清理全部")
+    public ResponseEntity<CommonResp<Map<String, Object>>> purge(
+            @Parameter(description = "任务名：translate / material-analysis") @RequestParam(required = false) String task) {
+        log.info("Admin request to purge llm result cache, task: {}", task);
+        int deleted = llmResultCache.purge(task);
+        return ResponseEntity.ok(CommonResp.success(Map.of("deletedRows", deleted)));
+    }
+}
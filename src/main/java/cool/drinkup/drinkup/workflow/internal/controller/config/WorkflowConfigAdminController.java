@@ -0,0 +1,49 @@
+package cool.drinkup.drinkup.workflow.internal.controller.config;
+
+import cool.drinkup.drinkup.shared.spi.CommonResp;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/workflow-config")
+@RequiredArgsConstructor
+@Tag(name = "管理员工作流配置", description = "提示词与主题配置快照管理")
+@SecurityRequirement(name = "bearerAuth")
+public class WorkflowConfigAdminController {
+
+    private final WorkflowConfigRegistry workflowConfigRegistry;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "查看配置快照", description = "返回当前实例的配置快照版本及提示词、主题数量")
+    public ResponseEntity<CommonResp<Map<String, Object>>> getSnapshot() {
+        return ResponseEntity.ok(CommonResp.success(describe(workflowConfigRegistry.getSnapshot())));
+    }
+
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "重载配置", description = "修改 prompt_content 或 theme_settings 后调用，重载本实例并通过 Redis 通知其他实例")
+    public ResponseEntity<CommonResp<Map<String, Object>>> reload() {
+        log.info("Admin request to reload workflow config");
+        return ResponseEntity.ok(CommonResp.success(describe(workflowConfigRegistry.reloadAndBroadcast())));
+    }
+
+    private static Map<String, Object> describe(WorkflowConfigRegistry.Snapshot snapshot) {
+        return Map.of(
+                "version", snapshot.version(),
+                "prompts", snapshot.prompts().keySet(),
+                "themes", snapshot.themes().keySet());
+    }
+}
@@ -4,6 +4,7 @@ import com.mzt.logapi.starter.annotation.LogRecord;
 import cool.drinkup.drinkup.common.log.event.AIChatEvent;
 import cool.drinkup.drinkup.shared.spi.CommonResp;
 import cool.drinkup.drinkup.workflow.internal.controller.image.resp.ImageUploadResp;
+import cool.drinkup.drinkup.workflow.internal.service.image.ImageFormatDetector;
 import cool.drinkup.drinkup.workflow.internal.service.image.ImageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -32,6 +33,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class ImageController {
 
     private final ImageService imageService;
+    private final ImageFormatDetector imageFormatDetector;
 
     @LogRecord(
             type = AIChatEvent.AI_CHAT,
@@ -65,8 +67,7 @@ public class ImageController {
             Resource imageResource = imageService.loadImage(imageId);
 
             return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG) // Assuming JPEG format, can be enhanced to detect
-                    // actual type
+                    .contentType(MediaType.parseMediaType(imageFormatDetector.detectMimeType(imageId, imageResource)))
                     .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + imageId + "\"")
                     .body(imageResource);
         } catch (Exception e) {
@@ -11,31 +11,39 @@ import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowBa
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowMaterialAnalysisReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowStockRecognitionReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowStockRecognitionStreamReq;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowTranslateBatchReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowTranslateReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserChatReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserChatV2Req;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserReq;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowBartenderStreamResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowMaterialAnalysisResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowStockRecognitionResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowStockRecognitionStreamResp;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowTranslateBatchResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowTranslateResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatResp;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatStreamResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatV2Resp;
 import cool.drinkup.drinkup.workflow.internal.service.WorkflowService;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.WorkflowRequestExecutor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import reactor.core.publisher.Flux;
 
 @Slf4j
@@ -46,6 +54,7 @@ import reactor.core.publisher.Flux;
 public class WorkflowController {
 
     private final WorkflowService workflowService;
+    private final WorkflowRequestExecutor workflowRequestExecutor;
 
     @LogRecord(
             type = WineEvent.WINE,
@@ -80,22 +89,38 @@ public class WorkflowController {
         return ResponseEntity.ok(CommonResp.success(resp));
     }
 
+    @Operation(summary = "与机器人聊天v2", description = "与机器人进行对话v2，客户端断开或超时后停止处理")
+    @ApiResponse(responseCode = "200", description = "Successfully chatted with the bot")
+    @PostMapping("/v2/chat")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseBodyEmitter> chatV2(@RequestBody WorkflowUserChatV2Req userInput) {
+        return workflowRequestExecutor.submit(
+                "chat",
+                () -> workflowService.buildChatParams(userInput),
+                (chatParams, token) -> {
+                    var resp = workflowService.chatV2(userInput, chatParams, token);
+                    if (resp == null) {
+                        return CommonResp.error("Error chatting with the bot");
+                    }
+                    return CommonResp.success(resp);
+                },
+                CommonResp.error("Chatting with the bot timed out"));
+    }
+
     @LogRecord(
             type = AIChatEvent.AI_CHAT,
             subType = AIChatEvent.BehaviorEvent.AI_CHAT,
             bizNo = "null",
-            success = "用户AI聊天成功, 用户请求：{{#userInput.userMessage}}," + " 对话请求Id:{{#_ret.body.data.conversationId}}",
-            extra = "{{@logExtraUtil.getLogExtra(#_ret.body.data)}}")
-    @Operation(summary = "与机器人聊天v2", description = "与机器人进行对话v2")
-    @ApiResponse(responseCode = "200", description = "Successfully chatted with the bot")
-    @PostMapping("/v2/chat")
+            success = "用户AI流式聊天, 用户请求：{{#userInput.userMessage}}")
+    @Operation(summary = "与机器人流式聊天", description = "以 NDJSON 逐条返回回复增量，最后一条 isDone=true 并包含完整回复")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed the chat reply")
+    @PostMapping(
+            value = "/v2/chat-stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CommonResp<WorkflowUserChatV2Resp>> chatV2(@RequestBody WorkflowUserChatV2Req userInput) {
-        var resp = workflowService.chatV2(userInput);
-        if (resp == null) {
-            return ResponseEntity.ok(CommonResp.error("Error chatting with the bot"));
-        }
-        return ResponseEntity.ok(CommonResp.success(resp));
+    public Flux<WorkflowUserChatStreamResp> chatV2Stream(@RequestBody WorkflowUserChatV2Req userInput) {
+        return workflowService.chatV2Stream(userInput);
     }
 
     @LogRecord(
@@ -118,43 +143,62 @@ public class WorkflowController {
         return ResponseEntity.ok(CommonResp.success(resp));
     }
 
+    @Operation(summary = "与调酒师聊天v2", description = "与调酒师进行对话，客户端断开或超时后停止生成")
+    @ApiResponse(responseCode = "200", description = "Successfully chatted with the bartender")
+    @PostMapping("/v2/bartender")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseBodyEmitter> mixDrinkV2(@RequestBody WorkflowBartenderChatV2Req bartenderInput) {
+        return workflowRequestExecutor.submit(
+                "bartender",
+                () -> workflowService.buildBartenderParams(bartenderInput),
+                (bartenderParam, token) -> {
+                    var resp = workflowService.mixDrinkV2(bartenderInput, bartenderParam, token);
+                    if (resp == null) {
+                        return CommonResp.error("Error mixing drink");
+                    }
+                    return CommonResp.success(resp);
+                },
+                CommonResp.error("Mixing drink timed out"));
+    }
+
     @LogRecord(
             type = AIChatEvent.AI_CHAT,
             subType = AIChatEvent.BehaviorEvent.BARTENDER_CHAT,
-            bizNo = "{{#_ret.body.data.id}}",
-            success = "用户调酒师聊天成功，生成酒单：{{#_ret.body.data.name}}",
+            bizNo = "null",
+            success = "用户通过流式调酒师聊天请求酒单",
             extra = "{{@logExtraUtil.getLogExtra(#bartenderInput)}}")
-    @Operation(summary = "与调酒师聊天v2", description = "与调酒师进行对话")
-    @ApiResponse(responseCode = "200", description = "Successfully chatted with the bartender")
-    @PostMapping("/v2/bartender")
+    @Operation(summary = "与调酒师流式聊天", description = "以 SSE 推送酒单文本增量，随后推送出图、存储、背景移除和保存事件，event 名称为事件类型")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed the bartender drink")
+    @PostMapping(
+            value = "/v2/bartender-stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CommonResp<WorkflowBartenderChatDto>> mixDrinkV2(
+    public Flux<ServerSentEvent<WorkflowBartenderStreamResp>> mixDrinkV2Stream(
             @RequestBody WorkflowBartenderChatV2Req bartenderInput) {
-        var resp = workflowService.mixDrinkV2(bartenderInput);
-        if (resp == null) {
-            return ResponseEntity.ok(CommonResp.error("Error mixing drink"));
-        }
-        return ResponseEntity.ok(CommonResp.success(resp));
+        return workflowService.mixDrinkV2Stream(bartenderInput).map(event -> ServerSentEvent.builder(event)
+                .event(event.getType().name())
+                .build());
     }
 
-    @LogRecord(
-            type = AIChatEvent.AI_CHAT,
-            subType = AIChatEvent.BehaviorEvent.STOCK_RECOGNITION,
-            bizNo = "{{#barId}}",
-            success = "用户库存识别成功，识别到{{#_ret.body.data.recognizedStocks.size()}}种库存")
-    @Operation(summary = "库存识别", description = "通过图片识别库存")
+    @Operation(summary = "库存识别", description = "通过图片识别库存，客户端断开或超时后停止识别")
     @ApiResponse(responseCode = "200", description = "Successfully recognized stock from image")
     @PostMapping(value = "/recognize-stock/{barId}", consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CommonResp<WorkflowStockRecognitionResp>> recognizeStock(
+    public ResponseEntity<ResponseBodyEmitter> recognizeStock(
             @Parameter(description = "Bar ID") @PathVariable("barId") Long barId,
             @Parameter(description = "Image file for stock recognition") @RequestBody WorkflowStockRecognitionReq req) {
         req.setBarId(barId);
-        var resp = workflowService.recognizeStock(req);
-        if (resp == null) {
-            return ResponseEntity.ok(CommonResp.error("Error recognizing stock"));
-        }
-        return ResponseEntity.ok(CommonResp.success(resp));
+        return workflowRequestExecutor.submit(
+                "recognize-stock",
+                token -> {
+                    var resp = workflowService.recognizeStock(req, token);
+                    if (resp == null) {
+                        return CommonResp.error("Error recognizing stock");
+                    }
+                    return CommonResp.success(resp);
+                },
+                CommonResp.error("Recognizing stock timed out"));
     }
 
     @LogRecord(
@@ -162,7 +206,7 @@ public class WorkflowController {
             subType = AIChatEvent.BehaviorEvent.STOCK_RECOGNITION,
             bizNo = "{{#barId}}",
             success = "用户库存识别成功通过流式库存识别")
-    @Operation(summary = "流式库存识别", description = "通过图片流式识别库存")
+    @Operation(summary = "流式库存识别", description = "通过图片流式识别库存，每行的 text 为文本增量，recognizedStocks 为新识别出的库存，最后一行返回完整列表")
     @ApiResponse(responseCode = "200", description = "Successfully recognized stock from image")
     @PostMapping(
             value = "/recognize-stock-stream",
@@ -194,6 +238,22 @@ public class WorkflowController {
         return ResponseEntity.ok(CommonResp.success(resp));
     }
 
+    @LogRecord(
+            type = AIChatEvent.AI_CHAT,
+            subType = AIChatEvent.BehaviorEvent.AI_TRANSLATE,
+            bizNo = "null",
+            success = "AI批量翻译成功，翻译{{#translateBatchReq.texts.size()}}条",
+            extra = "{{@logExtraUtil.getLogExtra(#translateBatchReq)}}")
+    @Operation(summary = "AI批量翻译", description = "一次翻译多条文本，结果与请求顺序一致，单条失败时在对应条目中返回失败原因")
+    @ApiResponse(responseCode = "200", description = "Successfully translated texts")
+    @PostMapping("/translate/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CommonResp<WorkflowTranslateBatchResp>> translateBatch(
+            @Parameter(description = "Batch translation request") @Valid @RequestBody
+                    WorkflowTranslateBatchReq translateBatchReq) {
+        return ResponseEntity.ok(CommonResp.success(workflowService.translateBatch(translateBatchReq)));
+    }
+
     @LogRecord(
             type = AIChatEvent.AI_CHAT,
             subType = AIChatEvent.MaterialEvent.MATERIAL_ANALYSIS,
@@ -0,0 +1,17 @@
+package cool.drinkup.drinkup.workflow.internal.controller.workflow.req;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@Schema(description = "AI批量翻译请求")
+public class WorkflowTranslateBatchReq {
+
+    @NotEmpty(message = "翻译文本不能为空")
+    @Size(max = 200, message = "单次最多翻译200条")
+    @Schema(description = "待翻译的文本列表", example = "[\"金酒\", \"青柠汁\"]")
+    private List<@Size(max = 5000, message = "翻译文本长度不能超过5000字符") String> texts;
+}
@@ -0,0 +1,56 @@
+package cool.drinkup.drinkup.workflow.internal.controller.workflow.resp;
+
+import cool.drinkup.drinkup.shared.dto.WorkflowBartenderChatDto;
+import lombok.Data;
+
+/**
+ * 流式调酒事件，事件类型同时作为 SSE 的 event 名称
+ */
+@Data
+public class WorkflowBartenderStreamResp {
+
+    public enum EventType {
+        /**
+         * 酒单文本增量
+         */
+        RECIPE_DELTA,
+        /**
+         * 酒单解析完成，尚未出图
+         */
+        RECIPE,
+        IMAGE_GENERATED,
+        IMAGE_STORED,
+        BACKGROUND_REMOVED,
+        /**
+         * 用户酒单已保存，drink 中为最终结果
+         */
+        SAVED,
+        ERROR
+    }
+
+    private EventType type;
+    private String text;
+    private String imageUrl;
+    private WorkflowBartenderChatDto drink;
+
+    public static WorkflowBartenderStreamResp text(EventType type, String text) {
+        WorkflowBartenderStreamResp resp = new WorkflowBartenderStreamResp();
+        resp.setType(type);
+        resp.setText(text);
+        return resp;
+    }
+
+    public static WorkflowBartenderStreamResp image(EventType type, String imageUrl) {
+        WorkflowBartenderStreamResp resp = new WorkflowBartenderStreamResp();
+        resp.setType(type);
+        resp.setImageUrl(imageUrl);
+        return resp;
+    }
+
+    public static WorkflowBartenderStreamResp drink(EventType type, WorkflowBartenderChatDto drink) {
+        WorkflowBartenderStreamResp resp = new WorkflowBartenderStreamResp();
+        resp.setType(type);
+        resp.setDrink(drink);
+        return resp;
+    }
+}
@@ -0,0 +1,29 @@
+package cool.drinkup.drinkup.workflow.internal.controller.workflow.resp;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@Schema(description = "AI批量翻译响应")
+public class WorkflowTranslateBatchResp {
+
+    @Schema(description = "翻译结果，与请求顺序一致")
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        @Schema(description = "原文")
+        private String text;
+
+        @Schema(description = "翻译结果，失败时为空")
+        private String translatedText;
+
+        @Schema(description = "是否翻译成功")
+        private boolean success;
+
+        @Schema(description = "失败原因")
+        private String error;
+    }
+}
@@ -0,0 +1,19 @@
+package cool.drinkup.drinkup.workflow.internal.controller.workflow.resp;
+
+import lombok.Data;
+
+@Data
+public class WorkflowUserChatStreamResp {
+    private String conversationId;
+    private boolean isDone;
+
+    /**
+     * 未完成时为本次增量文本，完成时为完整回复
+     */
+    private String text;
+
+    /**
+     * 完成时解析后的回复
+     */
+    private WorkflowUserChatV2Resp result;
+}
@@ -6,4 +6,5 @@ public enum PromptTypeEnum {
     BARTENDER,
     TRANSLATE,
     MATERIAL_ANALYSIS,
+    CHAT_SUMMARY,
 }
@@ -0,0 +1,10 @@
+package cool.drinkup.drinkup.workflow.internal.exception;
+
+/**
+ * 对冲请求的主模型和备用模型都已失败，不再走重试恢复逻辑
+ */
+public class HedgeExhaustedException extends RuntimeException {
+    public HedgeExhaustedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,49 @@
+package cool.drinkup.drinkup.workflow.internal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 大模型结果缓存，cache_key 为任务、模型、提示词摘要和归一化输入的 SHA-256
+ */
+@Entity
+@Table(
+        name = "llm_result_cache",
+        indexes = {@Index(name = "UK_llm_result_cache_key", columnList = "cache_key", unique = true)})
+@Getter
+@Setter
+public class LlmResultCacheEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+
+    @Column(nullable = false, length = 32)
+    private String task;
+
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "prompt_hash", nullable = false, length = 64)
+    private String promptHash;
+
+    @Column(columnDefinition = "TEXT")
+    private String input;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String result;
+
+    @Column(name = "created_date", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private ZonedDateTime createdDate = ZonedDateTime.now(ZoneOffset.UTC);
+}
@@ -0,0 +1,24 @@
+package cool.drinkup.drinkup.workflow.internal.repository;
+
+import cool.drinkup.drinkup.workflow.internal.model.LlmResultCacheEntry;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface LlmResultCacheRepository extends JpaRepository<LlmResultCacheEntry, Long> {
+
+    Optional<LlmResultCacheEntry> findByCacheKey(String cacheKey);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LlmResultCacheEntry e WHERE e.task = :task")
+    int deleteByTask(@Param("task") String task);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LlmResultCacheEntry e")
+    int deleteAllEntries();
+}
@@ -2,6 +2,8 @@ package cool.drinkup.drinkup.workflow.internal.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mzt.logapi.starter.annotation.LogRecord;
+import cool.drinkup.drinkup.common.log.event.AIChatEvent;
 import cool.drinkup.drinkup.shared.dto.UserWine;
 import cool.drinkup.drinkup.shared.dto.WorkflowBartenderChatDto;
 import cool.drinkup.drinkup.shared.enums.ThemeEnum;
@@ -9,12 +11,14 @@ import cool.drinkup.drinkup.wine.spi.UserWineServiceFacade;
 import cool.drinkup.drinkup.wine.spi.WineServiceFacade;
 import cool.drinkup.drinkup.wine.spi.WorkflowWineResp;
 import cool.drinkup.drinkup.wine.spi.dto.ProcessCocktailRequestDto;
+import cool.drinkup.drinkup.workflow.internal.config.BartenderProperties;
 import cool.drinkup.drinkup.workflow.internal.constant.WorkflowConstant;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowBartenderChatReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowBartenderChatV2Req;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowMaterialAnalysisReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowStockRecognitionReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowStockRecognitionStreamReq;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowTranslateBatchReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowTranslateReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserChatReq;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserChatV2Req;
@@ -23,11 +27,15 @@ import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.info.Attac
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.info.BarAttachment;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.info.ImageAttachment;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.info.MaterialAttachment;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowBartenderStreamResp;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowBartenderStreamResp.EventType;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowMaterialAnalysisResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowStockRecognitionResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowStockRecognitionStreamResp;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowTranslateBatchResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowTranslateResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatResp;
+import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatStreamResp;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.resp.WorkflowUserChatV2Resp;
 import cool.drinkup.drinkup.workflow.internal.model.Bar;
 import cool.drinkup.drinkup.workflow.internal.model.BarStock;
@@ -35,6 +43,8 @@ import cool.drinkup.drinkup.workflow.internal.model.Material;
 import cool.drinkup.drinkup.workflow.internal.service.bar.BarService;
 import cool.drinkup.drinkup.workflow.internal.service.bartender.BartenderService;
 import cool.drinkup.drinkup.workflow.internal.service.bartender.dto.BartenderParams;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.CancellationToken;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.WorkflowRequestExecutor;
 import cool.drinkup.drinkup.workflow.internal.service.chat.ChatBotService;
 import cool.drinkup.drinkup.workflow.internal.service.chat.dto.ChatParams;
 import cool.drinkup.drinkup.workflow.internal.service.image.ImageGenerateService;
@@ -44,21 +54,29 @@ import cool.drinkup.drinkup.workflow.internal.service.image.ImageService;
 import cool.drinkup.drinkup.workflow.internal.service.material.MaterialAnalysisService;
 import cool.drinkup.drinkup.workflow.internal.service.material.MaterialAnalysisService.MaterialAnalysisResult;
 import cool.drinkup.drinkup.workflow.internal.service.material.MaterialService;
+import cool.drinkup.drinkup.workflow.internal.service.stage.StageGraph;
 import cool.drinkup.drinkup.workflow.internal.service.stock.BarStockService;
 import cool.drinkup.drinkup.workflow.internal.service.theme.Theme;
 import cool.drinkup.drinkup.workflow.internal.service.theme.ThemeFactory;
 import cool.drinkup.drinkup.workflow.internal.service.translate.TranslateService;
 import cool.drinkup.drinkup.workflow.internal.util.StockDescriptionUtil;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -81,6 +99,8 @@ public class WorkflowService {
     private final MaterialService materialService;
     private final StockDescriptionUtil stockDescriptionUtil;
     private final ImageProcessService imageProcessService;
+    private final BartenderProperties bartenderProperties;
+    private final WorkflowRequestExecutor workflowRequestExecutor;
 
     public WorkflowWineResp processCocktailRequest(WorkflowUserReq userInput) {
         ProcessCocktailRequestDto request = new ProcessCocktailRequestDto();
@@ -170,7 +190,10 @@ public class WorkflowService {
         }
     }
 
-    private BartenderParams buildBartenderParams(WorkflowBartenderChatV2Req bartenderInput) {
+    /**
+     * 查询库存等数据库数据，需在请求线程调用以使用请求绑定的 EntityManager
+     */
+    public BartenderParams buildBartenderParams(WorkflowBartenderChatV2Req bartenderInput) {
         Theme theme = themeFactory.getTheme(ThemeEnum.fromValue(bartenderInput.getTheme()));
         return BartenderParams.builder()
                 .userStock(buildStockDescription(bartenderInput.getAttachment()))
@@ -181,30 +204,28 @@ public class WorkflowService {
                 .build();
     }
 
-    public WorkflowBartenderChatDto mixDrinkV2(WorkflowBartenderChatV2Req bartenderInput) {
-        var bartenderParam = buildBartenderParams(bartenderInput);
-        var chatWithBartender = bartenderService.generateDrinkV2(bartenderInput.getConversationId(), bartenderParam);
+    /**
+     * 生成酒单并出图，令牌取消时停止后续阶段
+     */
+    @LogRecord(
+            type = AIChatEvent.AI_CHAT,
+            subType = AIChatEvent.BehaviorEvent.BARTENDER_CHAT,
+            bizNo = "{{#_ret.id}}",
+            success = "用户调酒师聊天成功，生成酒单：{{#_ret.name}}",
+            extra = "{{@logExtraUtil.getLogExtra(#bartenderInput)}}")
+    public WorkflowBartenderChatDto mixDrinkV2(
+            WorkflowBartenderChatV2Req bartenderInput, BartenderParams bartenderParam, CancellationToken token) {
+        var chatWithBartender = token.call(
+                "generateDrink",
+                () -> bartenderService.generateDrinkV2(bartenderInput.getConversationId(), bartenderParam));
         var themeEnum = ThemeEnum.fromValue(bartenderParam.getThemeEnum());
-        Theme theme = themeFactory.getTheme(themeEnum);
         var json = extractJson(chatWithBartender);
         try {
             var chatBotResponse = parseAiResponse(json, WorkflowBartenderChatDto.class);
             if (chatBotResponse == null) {
                 return null;
             }
-            String imageUrl = imageGenerateService.generateImage(chatBotResponse.getImagePrompt(), themeEnum);
-            String imageId = imageService.storeImage(imageUrl);
-            String processedImageUrl = imageProcessService.removeBackground(imageUrl);
-            String processedImageId = imageService.storeImage(processedImageUrl);
-            chatBotResponse.setImage(imageId);
-            chatBotResponse.setProcessedImage(processedImageId);
-            chatBotResponse.setTheme(themeEnum);
-            chatBotResponse.setCardStyle(theme.getCardStyle());
-            // Convert workflow response to wine response for saving
-            UserWine saveUserWine = userWineServiceFacade.saveUserWine(chatBotResponse);
-            chatBotResponse.setId(saveUserWine.getId());
-            chatBotResponse.setImage(imageService.getImageUrl(imageId));
-            chatBotResponse.setProcessedImage(imageService.getImageUrl(processedImageId));
+            completeDrink(chatBotResponse, themeEnum, event -> {}, token);
             return chatBotResponse;
         } catch (JsonProcessingException e) {
             log.error("Error parsing JSON: {}", e.getMessage());
@@ -212,6 +233,122 @@ public class WorkflowService {
         }
     }
 
+    /**
+     * 流式调酒：先推送酒单文本增量，再依次推送出图、存储、背景移除和保存事件
+     * 出图和保存在虚拟线程中执行，并沿用请求线程的登录信息
+     */
+    public Flux<WorkflowBartenderStreamResp> mixDrinkV2Stream(WorkflowBartenderChatV2Req bartenderInput) {
+        var bartenderParam = buildBartenderParams(bartenderInput);
+        var themeEnum = ThemeEnum.fromValue(bartenderParam.getThemeEnum());
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return Flux.defer(() -> {
+                    CancellationToken token = workflowRequestExecutor.newToken("bartender-stream");
+                    StringBuilder recipe = new StringBuilder();
+                    Flux<WorkflowBartenderStreamResp> deltas = bartenderService
+                            .generateDrinkV2Stream(bartenderInput.getConversationId(), bartenderParam)
+                            .doOnNext(recipe::append)
+                            .map(text -> WorkflowBartenderStreamResp.text(EventType.RECIPE_DELTA, text));
+                    Flux<WorkflowBartenderStreamResp> pipeline = Flux.create(sink -> {
+                        // 客户端断开时停止出图和保存
+                        sink.onCancel(() -> token.cancel(CancellationToken.REASON_DISCONNECT));
+                        Thread.ofVirtual()
+                                .name("bartender-stream")
+                                .start(new DelegatingSecurityContextRunnable(
+                                        () -> completeDrinkStream(recipe.toString(), themeEnum, sink, token),
+                                        securityContext));
+                    });
+                    return deltas.concatWith(pipeline);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error streaming bartender drink", e);
+                    return Flux.just(WorkflowBartenderStreamResp.text(EventType.ERROR, "Error mixing drink"));
+                });
+    }
+
+    private void completeDrinkStream(
+            String recipe, ThemeEnum themeEnum, FluxSink<WorkflowBartenderStreamResp> sink, CancellationToken token) {
+        try {
+            var chatBotResponse = parseAiResponse(extractJson(recipe), WorkflowBartenderChatDto.class);
+            if (chatBotResponse == null) {
+                sink.next(WorkflowBartenderStreamResp.text(EventType.ERROR, "Error mixing drink"));
+                sink.complete();
+                return;
+            }
+            sink.next(WorkflowBartenderStreamResp.drink(
+                    EventType.RECIPE, objectMapper.convertValue(chatBotResponse, WorkflowBartenderChatDto.class)));
+            completeDrink(chatBotResponse, themeEnum, sink::next, token);
+            sink.next(WorkflowBartenderStreamResp.drink(EventType.SAVED, chatBotResponse));
+            sink.complete();
+        } catch (Exception e) {
+            sink.error(e);
+        }
+    }
+
+    /**
+     * 生成图片，下载一次后并行存储原图和移除背景，最后保存用户酒单
+     * 完成后 chatBotResponse 中的图片为可访问的URL
+     * @param events 各阶段完成时的事件回调，可能在阶段线程中调用
+     * @param token 取消时中断出图和下载，存储与背景移除执行完当前操作后停止，不再保存酒单
+     */
+    private void completeDrink(
+            WorkflowBartenderChatDto chatBotResponse,
+            ThemeEnum themeEnum,
+            Consumer<WorkflowBartenderStreamResp> events,
+            CancellationToken token) {
+        Theme theme = themeFactory.getTheme(themeEnum);
+        var timeouts = bartenderProperties.getImagePipeline();
+        StageGraph graph = new StageGraph("mixDrinkV2");
+        var generate = graph.stage("generateImage", timeouts.getGenerateTimeout(), token.wrap("generateImage", () -> {
+            String imageUrl = imageGenerateService.generateImage(chatBotResponse.getImagePrompt(), themeEnum);
+            events.accept(WorkflowBartenderStreamResp.image(EventType.IMAGE_GENERATED, imageUrl));
+            return imageUrl;
+        }));
+        var download = graph.stage(
+                "downloadImage",
+                timeouts.getDownloadTimeout(),
+                token.wrap(
+                        "downloadImage",
+                        () -> CancellationToken.interruptibly(
+                                () -> imageService.downloadImageWithRetry(generate.get()))),
+                generate);
+        // 原图存储与背景移除共用同一份下载数据，并行执行
+        var storeOriginal = graph.stage(
+                "storeImage",
+                timeouts.getStoreTimeout(),
+                token.wrap("storeImage", () -> {
+                    String imageId =
+                            imageService.storeImageBytes(download.get(), imageService.extensionOf(generate.get()));
+                    events.accept(WorkflowBartenderStreamResp.image(
+                            EventType.IMAGE_STORED, imageService.getImageUrl(imageId)));
+                    return imageId;
+                }),
+                generate,
+                download);
+        var removeBackground = graph.stage(
+                "removeBackground",
+                timeouts.getRemoveBackgroundTimeout(),
+                token.wrap("removeBackground", () -> {
+                    String imageId = imageProcessService.removeBackgroundReturnImageId(download.get());
+                    events.accept(WorkflowBartenderStreamResp.image(
+                            EventType.BACKGROUND_REMOVED, imageService.getImageUrl(imageId)));
+                    return imageId;
+                }),
+                download);
+        token.onCancel(() -> graph.cancel(token.getReason()));
+        graph.run();
+        String imageId = storeOriginal.get();
+        String processedImageId = removeBackground.get();
+        chatBotResponse.setImage(imageId);
+        chatBotResponse.setProcessedImage(processedImageId);
+        chatBotResponse.setTheme(themeEnum);
+        chatBotResponse.setCardStyle(theme.getCardStyle());
+        // Convert workflow response to wine response for saving
+        UserWine saveUserWine = token.call("saveDrink", () -> userWineServiceFacade.saveUserWine(chatBotResponse));
+        chatBotResponse.setId(saveUserWine.getId());
+        chatBotResponse.setImage(imageService.getImageUrl(imageId));
+        chatBotResponse.setProcessedImage(imageService.getImageUrl(processedImageId));
+    }
+
     private ChatParams buildChatParams(List<Bar> bars, String imageId) {
         ChatParams chatParams = new ChatParams();
         chatParams.setUserStock(buildBarDescription(bars));
@@ -237,10 +374,16 @@ public class WorkflowService {
         return bars.stream().map(Bar::getBarDescription).collect(Collectors.joining("\n"));
     }
 
-    public WorkflowStockRecognitionResp recognizeStock(WorkflowStockRecognitionReq req) {
+    @LogRecord(
+            type = AIChatEvent.AI_CHAT,
+            subType = AIChatEvent.BehaviorEvent.STOCK_RECOGNITION,
+            bizNo = "{{#req.barId}}",
+            success = "用户库存识别成功，识别到{{#_ret.recognizedStocks.size()}}种库存")
+    public WorkflowStockRecognitionResp recognizeStock(WorkflowStockRecognitionReq req, CancellationToken token) {
         try {
             // 使用图像识别服务识别库存
-            List<BarStock> recognizedStocks = imageRecognitionService.recognizeStockFromImage(req.getImageId());
+            List<BarStock> recognizedStocks = token.call(
+                    "recognizeStock", () -> imageRecognitionService.recognizeStockFromImage(req.getImageId()));
 
             Bar bar = new Bar();
             bar.setId(req.getBarId());
@@ -248,7 +391,7 @@ public class WorkflowService {
             recognizedStocks.forEach(stock -> stock.setBar(bar));
 
             // 保存识别的库存到数据库
-            List<BarStock> savedStocks = barStockService.saveAll(recognizedStocks);
+            List<BarStock> savedStocks = token.call("saveStocks", () -> barStockService.saveAll(recognizedStocks));
 
             // 构建响应
             WorkflowStockRecognitionResp resp = new WorkflowStockRecognitionResp();
@@ -256,6 +399,8 @@ public class WorkflowService {
             resp.setRecognizedStocks(savedStocks);
 
             return resp;
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error recognizing stock from image", e);
             return null;
@@ -293,6 +438,28 @@ public class WorkflowService {
         }
     }
 
+    /**
+     * AI批量翻译，单条失败时在对应条目中返回失败原因
+     */
+    public WorkflowTranslateBatchResp translateBatch(WorkflowTranslateBatchReq req) {
+        List<WorkflowTranslateBatchResp.Item> items = translateService.translateBatch(req.getTexts()).stream()
+                .map(result -> {
+                    WorkflowTranslateBatchResp.Item item = new WorkflowTranslateBatchResp.Item();
+                    item.setText(result.text());
+                    item.setSuccess(result.error() == null);
+                    item.setTranslatedText(
+                            result.translatedText() == null
+                                    ? null
+                                    : result.translatedText().trim());
+                    item.setError(result.error());
+                    return item;
+                })
+                .toList();
+        WorkflowTranslateBatchResp resp = new WorkflowTranslateBatchResp();
+        resp.setItems(items);
+        return resp;
+    }
+
     public WorkflowMaterialAnalysisResp analyzeMaterial(WorkflowMaterialAnalysisReq materialReq) {
         String materialText = getMaterialText(materialReq);
         MaterialAnalysisResult result = materialAnalysisService.analyzeMaterial(materialText);
@@ -321,9 +488,17 @@ public class WorkflowService {
         throw new RuntimeException("Invalid material analysis type: " + materialReq);
     }
 
-    public WorkflowUserChatV2Resp chatV2(WorkflowUserChatV2Req userInput) {
-        ChatBotService.ChatBotResponse chatResponse = chatBotService.chatV2(
-                userInput.getConversationId(), userInput.getUserMessage(), buildChatParams(userInput));
+    @LogRecord(
+            type = AIChatEvent.AI_CHAT,
+            subType = AIChatEvent.BehaviorEvent.AI_CHAT,
+            bizNo = "null",
+            success = "用户AI聊天成功, 用户请求：{{#userInput.userMessage}}," + " 对话请求Id:{{#_ret.conversationId}}",
+            extra = "{{@logExtraUtil.getLogExtra(#_ret)}}")
+    public WorkflowUserChatV2Resp chatV2(
+            WorkflowUserChatV2Req userInput, ChatParams chatParams, CancellationToken token) {
+        ChatBotService.ChatBotResponse chatResponse = token.call(
+                "chat",
+                () -> chatBotService.chatV2(userInput.getConversationId(), userInput.getUserMessage(), chatParams));
         var json = extractJson(chatResponse.content());
         try {
             var chatBotResponse = objectMapper.readValue(json, WorkflowUserChatV2Resp.class);
@@ -335,7 +510,44 @@ public class WorkflowService {
         }
     }
 
-    private ChatParams buildChatParams(WorkflowUserChatV2Req userInput) {
+    /**
+     * 流式聊天，逐个返回回复增量，最后一条包含完整回复及其解析结果
+     */
+    public Flux<WorkflowUserChatStreamResp> chatV2Stream(WorkflowUserChatV2Req userInput) {
+        ChatBotService.ChatBotStream chatStream = chatBotService.chatV2Stream(
+                userInput.getConversationId(), userInput.getUserMessage(), buildChatParams(userInput));
+        String conversationId = chatStream.conversationId();
+        return Flux.defer(() -> {
+                    StringBuilder reply = new StringBuilder();
+                    return chatStream
+                            .deltas()
+                            .doOnNext(reply::append)
+                            .map(delta -> chatStreamResp(conversationId, false, delta, null))
+                            .concatWith(Mono.fromCallable(() -> {
+                                var result = objectMapper.readValue(
+                                        extractJson(reply.toString()), WorkflowUserChatV2Resp.class);
+                                result.setConversationId(conversationId);
+                                return chatStreamResp(conversationId, true, reply.toString(), result);
+                            }));
+                })
+                .doOnError(e -> log.error("Error streaming chat: {}", e.getMessage(), e))
+                .onErrorReturn(chatStreamResp(conversationId, true, "Error chatting with the bot", null));
+    }
+
+    private static WorkflowUserChatStreamResp chatStreamResp(
+            String conversationId, boolean done, String text, WorkflowUserChatV2Resp result) {
+        WorkflowUserChatStreamResp resp = new WorkflowUserChatStreamResp();
+        resp.setConversationId(conversationId);
+        resp.setDone(done);
+        resp.setText(text);
+        resp.setResult(result);
+        return resp;
+    }
+
+    /**
+     * 查询库存等数据库数据，需在请求线程调用以使用请求绑定的 EntityManager
+     */
+    public ChatParams buildChatParams(WorkflowUserChatV2Req userInput) {
         List<ImageAttachment> imageAttachmentList = userInput.getAttachment().getImageAttachmentList();
         List<ChatParams.ImageAttachment> imageAttachments = imageAttachmentList.stream()
                 .map(imageAttachment -> ChatParams.ImageAttachment.builder()
@@ -1,19 +1,27 @@
 package cool.drinkup.drinkup.workflow.internal.service.bartender;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import cool.drinkup.drinkup.common.chatLog.annotation.AiLog;
 import cool.drinkup.drinkup.workflow.internal.config.BartenderProperties;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowBartenderChatReq.WorkflowBartenderChatVo;
 import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
+import cool.drinkup.drinkup.workflow.internal.exception.HedgeExhaustedException;
 import cool.drinkup.drinkup.workflow.internal.exception.RetryException;
-import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
-import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
 import cool.drinkup.drinkup.workflow.internal.service.bartender.dto.BartenderParams;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.CancellationToken;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.hedge.HedgedExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.annotation.Observed;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.text.StringSubstitutor;
 import org.springframework.ai.chat.memory.ChatMemory;
@@ -33,6 +41,7 @@ import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @Service
@@ -44,26 +53,37 @@ public class BartenderService {
 
     private final BartenderProperties bartenderProperties;
 
-    private final PromptRepository promptRepository;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
     private final ChatMemory chatMemory;
 
+    private final ObjectMapper objectMapper;
+
+    private final HedgedExecutor hedgedExecutor;
+
+    private static final Pattern JSON_BLOCK = Pattern.compile("```json\\s*(.*?)\\s*```", Pattern.DOTALL);
+
     public BartenderService(
             @Qualifier("bartenderChatModel") ChatModel chatModel,
             @Qualifier("bartenderRecoverableChatModel") ChatModel recoverableChatModel,
             BartenderProperties bartenderProperties,
-            PromptRepository promptRepository,
-            ChatMemory chatMemory)
+            WorkflowConfigRegistry workflowConfigRegistry,
+            ChatMemory chatMemory,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry)
             throws IOException {
         this.chatModel = chatModel;
         this.recoverableChatModel = recoverableChatModel;
         this.bartenderProperties = bartenderProperties;
-        this.promptRepository = promptRepository;
+        this.workflowConfigRegistry = workflowConfigRegistry;
         this.chatMemory = chatMemory;
+        this.objectMapper = objectMapper;
+        this.hedgedExecutor = new HedgedExecutor("bartender", bartenderProperties.getHedge(), meterRegistry);
     }
 
     @Retryable(
             value = {RuntimeException.class},
+            notRecoverable = {HedgeExhaustedException.class},
             maxAttempts = 1,
             backoff = @Backoff(delay = 1000))
     @Observed(
@@ -74,7 +94,9 @@ public class BartenderService {
         try {
             var prompt = buildPromptV2(conversationId, bartenderParams);
             BartenderService proxy = (BartenderService) AopContext.currentProxy();
-            var response = proxy.bartenderChatV2(conversationId, prompt);
+            var response = bartenderProperties.getHedge().isEnabled()
+                    ? hedgedChat(proxy, conversationId, prompt)
+                    : proxy.bartenderChatV2(conversationId, prompt);
             log.info("bartender response: {}", response);
 
             if (response.getResult() == null) {
@@ -85,12 +107,51 @@ public class BartenderService {
             String text = response.getResult().getOutput().getText();
             log.info("Chat response: {}", text);
             return text;
+        } catch (HedgeExhaustedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error generating drink recommendation", e);
             throw new RetryException("Error generating drink recommendation");
         }
     }
 
+    /**
+     * 主模型超过近期延迟分位数未返回时并行请求备用模型，取先返回有效 JSON 的结果
+     * 备用模型已经参与过对冲，失败时抛出 {@link HedgeExhaustedException}，不再由 {@code @Recover} 重复调用备用模型
+     */
+    private ChatResponse hedgedChat(BartenderService proxy, String conversationId, Prompt prompt) {
+        var recoverablePrompt = recoverablePrompt(prompt);
+        try {
+            return hedgedExecutor.execute(
+                    new HedgedExecutor.Candidate<>(
+                            bartenderProperties.getModel(), () -> proxy.bartenderChatV2(conversationId, prompt)),
+                    new HedgedExecutor.Candidate<>(
+                            bartenderProperties.getRecoverable().getModel(),
+                            () -> proxy.bartenderChatRecoverableV2(conversationId, recoverablePrompt)),
+                    this::isValidDrinkResponse);
+        } catch (RuntimeException e) {
+            log.error("Hedged bartender chat failed on both models", e);
+            throw new HedgeExhaustedException("Error generating drink recommendation", e);
+        }
+    }
+
+    private boolean isValidDrinkResponse(ChatResponse response) {
+        if (response == null
+                || response.getResult() == null
+                || response.getResult().getOutput() == null
+                || !StringUtils.hasText(response.getResult().getOutput().getText())) {
+            return false;
+        }
+        String text = response.getResult().getOutput().getText();
+        Matcher matcher = JSON_BLOCK.matcher(text);
+        String json = matcher.find() ? matcher.group(1) : text;
+        try {
+            return objectMapper.readTree(json).isObject();
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
     @AiLog(conversationId = "#conversationId")
     public ChatResponse bartenderChatV2(String conversationId, Prompt prompt) throws Exception {
         return chatModel.call(prompt);
@@ -101,14 +162,56 @@ public class BartenderService {
         return recoverableChatModel.call(prompt);
     }
 
+    @AiLog(conversationId = "#conversationId")
+    public Flux<ChatResponse> bartenderChatV2Stream(String conversationId, Prompt prompt) {
+        return chatModel.stream(prompt);
+    }
+
+    @AiLog(conversationId = "#conversationId")
+    public Flux<ChatResponse> bartenderChatRecoverableV2Stream(String conversationId, Prompt prompt) {
+        return recoverableChatModel.stream(prompt);
+    }
+
+    /**
+     * 流式生成酒单，返回文本增量
+     * 主模型在输出任何内容之前失败时切换到备用模型
+     */
+    public Flux<String> generateDrinkV2Stream(String conversationId, BartenderParams bartenderParams) {
+        BartenderService proxy = (BartenderService) AopContext.currentProxy();
+        return Flux.defer(() -> {
+            var prompt = buildPromptV2(conversationId, bartenderParams);
+            AtomicBoolean emitted = new AtomicBoolean();
+            return textOf(proxy.bartenderChatV2Stream(conversationId, prompt))
+                    .doOnNext(text -> emitted.set(true))
+                    .onErrorResume(e -> {
+                        if (emitted.get()) {
+                            return Flux.error(e);
+                        }
+                        log.warn("Bartender stream failed before first token, using recoverable model", e);
+                        return textOf(
+                                proxy.bartenderChatRecoverableV2Stream(conversationId, recoverablePrompt(prompt)));
+                    });
+        });
+    }
+
+    private static Flux<String> textOf(Flux<ChatResponse> responses) {
+        return responses
+                .filter(response ->
+                        response.getResult() != null && response.getResult().getOutput() != null)
+                .map(response -> response.getResult().getOutput().getText())
+                .filter(StringUtils::hasLength);
+    }
+
     @Recover
     @Observed(
             name = "ai.bartender.chat",
             contextualName = "Bartender聊天重试",
             lowCardinalityKeyValues = {"Tag", "ai"})
     public String generateDrinkV2(RetryException exception, String conversationId, BartenderParams bartenderParams) {
+        // 请求已取消时不再调用备用模型
+        CancellationToken.throwIfCurrentCancelled();
         try {
-            var prompt = buildPromptV2(conversationId, bartenderParams);
+            var prompt = recoverablePrompt(buildPromptV2(conversationId, bartenderParams));
             BartenderService proxy = (BartenderService) AopContext.currentProxy();
             var response = proxy.bartenderChatRecoverableV2(conversationId, prompt);
             log.info("bartender response: {}", response);
@@ -146,6 +249,22 @@ public class BartenderService {
                         .build());
     }
 
+    /**
+     * 相同的消息，使用备用模型的参数
+     */
+    private Prompt recoverablePrompt(Prompt prompt) {
+        var recoverable = bartenderProperties.getRecoverable();
+        return new Prompt(
+                prompt.getInstructions(),
+                OpenAiChatOptions.builder()
+                        .model(recoverable.getModel())
+                        .temperature(recoverable.getTemperature())
+                        .responseFormat(ResponseFormat.builder()
+                                .type(ResponseFormat.Type.JSON_OBJECT)
+                                .build())
+                        .build());
+    }
+
     @Deprecated
     @Retryable(
             value = {RuntimeException.class},
@@ -209,10 +328,7 @@ public class BartenderService {
     }
 
     private String getPromptTemplate() {
-        PromptContent prompt = promptRepository.findByType(PromptTypeEnum.BARTENDER.name());
-        if (prompt == null) {
-            return "";
-        }
-        return prompt.getSystemPrompt();
+        String prompt = workflowConfigRegistry.getPrompt(PromptTypeEnum.BARTENDER);
+        return prompt == null ? "" : prompt;
     }
 }
@@ -0,0 +1,230 @@
+package cool.drinkup.drinkup.workflow.internal.service.cancel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 一次工作流请求的取消令牌
+ * 客户端断开或请求超时时取消，依次执行注册的回调（取消阶段图等），并按取消时正在执行的阶段计数。
+ * 阶段默认只在开始前检查取消；只有 {@link #interruptibly} 标记的区域（模型调用、出图轮询、排队等待等不占用连接池连接的操作）
+ * 会被中断，避免中断 JDBC 或 S3 上传导致连接池中的连接损坏
+ */
+@Slf4j
+public final class CancellationToken {
+
+    public static final String REASON_DISCONNECT = "disconnect";
+    public static final String REASON_TIMEOUT = "timeout";
+
+    private static final String NO_STAGE = "none";
+
+    private final String workflow;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> activeStages = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private final AtomicReference<String> reason = new AtomicReference<>();
+
+    /**
+     * 正在执行可中断区域的线程
+     */
+    private final Set<Thread> interruptibleThreads = new HashSet<>();
+
+    /**
+     * 当前线程所在阶段的令牌，由 {@link #call} 和 {@link #wrap} 设置
+     */
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    public CancellationToken(String workflow, MeterRegistry meterRegistry) {
+        this.workflow = workflow;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 不会被取消的令牌，用于不绑定请求生命周期的调用
+     */
+    public static CancellationToken none() {
+        return new CancellationToken(NO_STAGE, null);
+    }
+
+    public boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    public String getReason() {
+        return reason.get();
+    }
+
+    public void throwIfCancelled() {
+        String cancelReason = reason.get();
+        if (cancelReason != null) {
+            throw new CancellationException("Workflow " + workflow + " cancelled: " + cancelReason);
+        }
+    }
+
+    /**
+     * 注册取消回调，已取消时立即执行
+     */
+    public void onCancel(Runnable callback) {
+        synchronized (callbacks) {
+            if (!isCancelled()) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * 在当前线程执行一个阶段，开始前已取消则直接抛出 CancellationException
+     */
+    public <T> T call(String stage, Supplier<T> task) {
+        throwIfCancelled();
+        activeStages.add(stage);
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+            activeStages.remove(stage);
+        }
+    }
+
+    /**
+     * 包装在其他线程执行的阶段
+     */
+    public <T> Callable<T> wrap(String stage, Callable<T> task) {
+        return () -> {
+            throwIfCancelled();
+            activeStages.add(stage);
+            CancellationToken previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+                activeStages.remove(stage);
+            }
+        };
+    }
+
+    /**
+     * 让在其他线程执行的任务沿用当前线程的令牌，用于阶段内部再派生线程的场景（如对冲请求）
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            return task;
+        }
+        return () -> {
+            CancellationToken previous = CURRENT.get();
+            CURRENT.set(token);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(CancellationToken previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 当前线程所在阶段的令牌已取消时抛出 CancellationException，不在阶段中时不做任何事
+     */
+    public static void throwIfCurrentCancelled() {
+        CancellationToken token = CURRENT.get();
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    /**
+     * 执行可安全中断的操作，当前阶段的令牌取消时中断执行线程，并抛出 CancellationException
+     * 只用于不持有连接池连接、中断后不会留下半完成写入的操作；离开区域后清除取消引起的中断标记，不影响后续操作
+     */
+    public static <T> T interruptibly(Supplier<T> task) {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            return task.get();
+        }
+        Thread thread = Thread.currentThread();
+        boolean registered;
+        synchronized (token.interruptibleThreads) {
+            token.throwIfCancelled();
+            registered = token.interruptibleThreads.add(thread);
+        }
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            if (token.isCancelled()) {
+                CancellationException cancellation =
+                        new CancellationException("Workflow " + token.workflow + " cancelled: " + token.getReason());
+                cancellation.initCause(e);
+                throw cancellation;
+            }
+            throw e;
+        } finally {
+            if (registered) {
+                synchronized (token.interruptibleThreads) {
+                    token.interruptibleThreads.remove(thread);
+                }
+                if (token.isCancelled()) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 首次取消时返回 true
+     */
+    public boolean cancel(String cancelReason) {
+        if (!reason.compareAndSet(null, cancelReason)) {
+            return false;
+        }
+        Set<String> stages = Set.copyOf(activeStages);
+        log.info("Workflow {} cancelled ({}) during stages {}", workflow, cancelReason, stages);
+        if (meterRegistry != null) {
+            for (String stage : stages.isEmpty() ? Set.of(NO_STAGE) : stages) {
+                Counter.builder("drinkup.workflow.cancellations")
+                        .tag("workflow", workflow)
+                        .tag("stage", stage)
+                        .tag("reason", cancelReason)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+        synchronized (interruptibleThreads) {
+            interruptibleThreads.forEach(Thread::interrupt);
+        }
+        List<Runnable> registered;
+        synchronized (callbacks) {
+            registered = List.copyOf(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable callback : registered) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.warn("Cancellation callback of workflow {} failed: {}", workflow, e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,206 @@
+package cool.drinkup.drinkup.workflow.internal.service.cancel;
+
+import cool.drinkup.drinkup.workflow.internal.config.WorkflowRequestProperties;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * 以异步 Servlet 执行工作流请求，响应体为 JSON
+ * 工作流在虚拟线程中执行并沿用请求线程的登录与链路上下文。等待期间按固定间隔写出一个空格（JSON 允许前导空白），
+ * Servlet 容器只有在写出时才能发现客户端已断开，写出失败即取消令牌；超时则取消令牌并返回超时结果。
+ * 进行中的模型调用和出图轮询被中断，数据库写入和上传在当前操作完成后的阶段边界停止。
+ * 首次写出后状态码已提交，工作流抛出的异常只能中断响应，因此工作流应自行把失败转为错误响应体
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkflowRequestExecutor {
+
+    private static final String KEEP_ALIVE = " ";
+
+    private final WorkflowRequestProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ContextSnapshotFactory contextSnapshotFactory =
+            ContextSnapshotFactory.builder().build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("workflow-keep-alive").daemon().factory());
+
+    public CancellationToken newToken(String workflow) {
+        return new CancellationToken(workflow, meterRegistry);
+    }
+
+    /**
+     * 先在请求线程执行 prepare，再把结果交给虚拟线程中的工作流
+     * 虚拟线程没有绑定 open-session-in-view 的 EntityManager，读取懒加载关联（如酒柜库存）的参数准备必须放在 prepare 中；
+     * prepare 抛出的异常直接在请求线程抛出
+     *
+     * @param timeoutResult 超时时返回给客户端的结果
+     */
+    public <P, T> ResponseEntity<ResponseBodyEmitter> submit(
+            String workflow, Supplier<P> prepare, BiFunction<P, CancellationToken, T> task, T timeoutResult) {
+        P params = prepare.get();
+        return submit(workflow, token -> task.apply(params, token), timeoutResult);
+    }
+
+    /**
+     * @param timeoutResult 超时时返回给客户端的结果
+     */
+    public <T> ResponseEntity<ResponseBodyEmitter> submit(
+            String workflow, Function<CancellationToken, T> task, T timeoutResult) {
+        CancellationToken token = newToken(workflow);
+        Duration timeout = properties.timeoutOf(workflow);
+        Duration keepAliveInterval = properties.getKeepAliveInterval();
+        // 截止时间由调度器处理，容器超时只作兜底
+        ResponseBodyEmitter emitter = newEmitter(timeout.plus(keepAliveInterval).toMillis());
+        PendingResponse<T> response = new PendingResponse<>(workflow, emitter, token);
+        emitter.onTimeout(() -> response.abandon(CancellationToken.REASON_TIMEOUT));
+        emitter.onError(e -> response.abandon(CancellationToken.REASON_DISCONNECT));
+        emitter.onCompletion(response::stopSchedules);
+
+        long intervalMillis = keepAliveInterval.toMillis();
+        response.track(scheduler.scheduleAtFixedRate(
+                response::keepAlive, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+        response.track(
+                scheduler.schedule(() -> response.timeout(timeoutResult), timeout.toMillis(), TimeUnit.MILLISECONDS));
+
+        Runnable work = contextSnapshotFactory.captureAll().wrap(() -> {
+            try {
+                response.complete(task.apply(token));
+            } catch (CancellationException e) {
+                log.info("Workflow {} stopped after cancellation: {}", workflow, e.getMessage());
+            } catch (RuntimeException | Error e) {
+                if (token.isCancelled()) {
+                    log.info("Workflow {} stopped after cancellation: {}", workflow, e.getMessage());
+                } else {
+                    response.fail(e);
+                }
+            }
+        });
+        Thread.ofVirtual().name("workflow-" + workflow).start(new DelegatingSecurityContextRunnable(work));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(emitter);
+    }
+
+    ResponseBodyEmitter newEmitter(long timeoutMillis) {
+        return new ResponseBodyEmitter(timeoutMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一次进行中的响应，结果、超时、断开三者只有最先发生的一个生效
+     */
+    private static final class PendingResponse<T> {
+
+        private final String workflow;
+        private final ResponseBodyEmitter emitter;
+        private final CancellationToken token;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final List<Future<?>> schedules = new ArrayList<>();
+
+        private PendingResponse(String workflow, ResponseBodyEmitter emitter, CancellationToken token) {
+            this.workflow = workflow;
+            this.emitter = emitter;
+            this.token = token;
+        }
+
+        void track(Future<?> schedule) {
+            synchronized (schedules) {
+                if (finished.get()) {
+                    schedule.cancel(false);
+                } else {
+                    schedules.add(schedule);
+                }
+            }
+        }
+
+        void stopSchedules() {
+            synchronized (schedules) {
+                schedules.forEach(schedule -> schedule.cancel(false));
+                schedules.clear();
+            }
+        }
+
+        private boolean finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return false;
+            }
+            stopSchedules();
+            return true;
+        }
+
+        void keepAlive() {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                emitter.send(KEEP_ALIVE, MediaType.TEXT_PLAIN);
+            } catch (IOException | IllegalStateException e) {
+                if (finish()) {
+                    log.info("Workflow {} client went away: {}", workflow, e.getMessage());
+                    token.cancel(CancellationToken.REASON_DISCONNECT);
+                }
+            }
+        }
+
+        void timeout(T timeoutResult) {
+            if (finish()) {
+                token.cancel(CancellationToken.REASON_TIMEOUT);
+                write(timeoutResult);
+            }
+        }
+
+        void complete(T result) {
+            if (finish()) {
+                write(result);
+            }
+        }
+
+        void fail(Throwable e) {
+            if (finish()) {
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * 容器报告超时或连接错误，响应已无法写出
+         */
+        void abandon(String reason) {
+            if (finish()) {
+                token.cancel(reason);
+            }
+        }
+
+        private void write(T body) {
+            try {
+                emitter.send(body, MediaType.APPLICATION_JSON);
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.info("Workflow {} could not write its response: {}", workflow, e.getMessage());
+            }
+        }
+    }
+}
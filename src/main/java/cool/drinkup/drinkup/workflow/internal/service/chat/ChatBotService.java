@@ -4,16 +4,15 @@ import cool.drinkup.drinkup.common.chatLog.annotation.AiLog;
 import cool.drinkup.drinkup.workflow.internal.config.ChatBotProperties;
 import cool.drinkup.drinkup.workflow.internal.controller.workflow.req.WorkflowUserChatReq.WorkflowUserChatVo;
 import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
-import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
-import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
 import cool.drinkup.drinkup.workflow.internal.service.chat.dto.ChatParams;
 import cool.drinkup.drinkup.workflow.internal.service.chat.dto.ChatParams.ImageAttachment;
-import cool.drinkup.drinkup.workflow.internal.service.image.ImageService;
-import cool.drinkup.drinkup.workflow.internal.util.ContentTypeUtil;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.image.ImageAttachmentLoader;
+import cool.drinkup.drinkup.workflow.internal.service.image.ImageFormatDetector;
 import io.micrometer.observation.annotation.Observed;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -31,9 +30,15 @@ import org.springframework.ai.openai.api.ResponseFormat;
 import org.springframework.aop.framework.AopContext;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.Resource;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeType;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Service
@@ -41,28 +46,28 @@ public class ChatBotService {
 
     private final ChatModel chatModel;
 
-    private final ImageService imageService;
+    private final ImageAttachmentLoader imageAttachmentLoader;
 
-    private final ContentTypeUtil contentTypeUtil;
+    private final ImageFormatDetector imageFormatDetector;
 
     private final ChatBotProperties chatBotProperties;
 
-    private final PromptRepository promptRepository;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
     private final ChatMemory chatMemory;
 
     public ChatBotService(
             @Qualifier("chatBotModel") ChatModel chatModel,
             @Qualifier("chatBotChatMemory") ChatMemory chatMemory,
-            ImageService imageService,
-            ContentTypeUtil contentTypeUtil,
+            ImageAttachmentLoader imageAttachmentLoader,
+            ImageFormatDetector imageFormatDetector,
             ChatBotProperties chatBotProperties,
-            PromptRepository promptRepository) {
+            WorkflowConfigRegistry workflowConfigRegistry) {
         this.chatModel = chatModel;
-        this.imageService = imageService;
-        this.contentTypeUtil = contentTypeUtil;
+        this.imageAttachmentLoader = imageAttachmentLoader;
+        this.imageFormatDetector = imageFormatDetector;
         this.chatBotProperties = chatBotProperties;
-        this.promptRepository = promptRepository;
+        this.workflowConfigRegistry = workflowConfigRegistry;
         this.chatMemory = chatMemory;
     }
 
@@ -99,18 +104,14 @@ public class ChatBotService {
         allMessages.add(systemMessage);
         allMessages.addAll(historyMessages);
         if (params.getImageId() != null) {
-            Resource resource = imageService.loadImage(params.getImageId());
-            try {
-                String mime = contentTypeUtil.detectMimeType(resource);
-                Media media = new Media(MimeType.valueOf(mime), resource);
-                UserMessage userMessage = UserMessage.builder()
-                        .text("This is the image of the user's stock: ")
-                        .media(List.of(media))
-                        .build();
-                allMessages.add(userMessage);
-            } catch (IOException e) {
-                log.error("Error loading image: {}", e.getMessage());
-            }
+            Resource resource = imageAttachmentLoader.load(params.getImageId());
+            String mime = imageFormatDetector.detectMimeType(params.getImageId(), resource);
+            Media media = new Media(MimeType.valueOf(mime), resource);
+            UserMessage userMessage = UserMessage.builder()
+                    .text("This is the image of the user's stock: ")
+                    .media(List.of(media))
+                    .build();
+            allMessages.add(userMessage);
         }
 
         return new Prompt(
@@ -128,6 +129,22 @@ public class ChatBotService {
             contextualName = "AI聊天",
             lowCardinalityKeyValues = {"Tag", "ai"})
     public ChatBotResponse chatV2(String conversationId, String userContent, ChatParams params) {
+        conversationId = addUserTurn(conversationId, userContent, params);
+        Prompt prompt = buildPrompt(conversationId, params);
+        ChatBotService proxy = (ChatBotService) AopContext.currentProxy();
+        var response = proxy.aiChatV2(conversationId, prompt);
+        this.chatMemory.add(conversationId, response.getResult().getOutput());
+        log.info("ai response : {}", response);
+        String text = response.getResult().getOutput().getText();
+        log.info("Chat response: {}", text);
+        return new ChatBotResponse(conversationId, text);
+    }
+
+    /**
+     * 新对话时先写入 SystemMessage，再把用户消息写入对话记忆
+     * @return 对话ID
+     */
+    private String addUserTurn(String conversationId, String userContent, ChatParams params) {
         if (!StringUtils.hasText(conversationId)) {
             conversationId = UUID.randomUUID().toString();
             SystemMessage message = buildSystemMessage(params);
@@ -135,14 +152,45 @@ public class ChatBotService {
         }
         var userMessageList = buildUserMessage(userContent, params);
         this.chatMemory.add(conversationId, userMessageList);
+        return conversationId;
+    }
+
+    public record ChatBotStream(String conversationId, Flux<String> deltas) {}
+
+    /**
+     * 流式聊天，对话记忆处理与 {@link #chatV2} 一致
+     * 回复增量在模型输出时逐个返回，流正常结束后才把完整回复写入对话记忆，取消或失败时不写入。
+     * 写入在其他线程执行，沿用调用线程的登录信息，以便对话记忆按用户保存
+     */
+    public ChatBotStream chatV2Stream(String conversationId, String userContent, ChatParams params) {
+        conversationId = addUserTurn(conversationId, userContent, params);
         Prompt prompt = buildPrompt(conversationId, params);
+        String finalConversationId = conversationId;
         ChatBotService proxy = (ChatBotService) AopContext.currentProxy();
-        var response = proxy.aiChatV2(conversationId, prompt);
-        this.chatMemory.add(conversationId, response.getResult().getOutput());
-        log.info("ai response : {}", response);
-        String text = response.getResult().getOutput().getText();
-        log.info("Chat response: {}", text);
-        return new ChatBotResponse(conversationId, text);
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        Flux<String> deltas = Flux.defer(() -> {
+            StringBuilder reply = new StringBuilder();
+            return proxy.aiChatV2Stream(finalConversationId, prompt)
+                    .filter(response ->
+                            response.getResult() != null && response.getResult().getOutput() != null)
+                    .map(response -> response.getResult().getOutput().getText())
+                    .filter(StringUtils::hasLength)
+                    .doOnNext(reply::append)
+                    .concatWith(Mono.<String>fromRunnable(new DelegatingSecurityContextRunnable(
+                                    () -> {
+                                        log.info("Chat stream response: {}", reply);
+                                        this.chatMemory.add(
+                                                finalConversationId, new AssistantMessage(reply.toString()));
+                                    },
+                                    securityContext))
+                            .subscribeOn(Schedulers.boundedElastic()));
+        });
+        return new ChatBotStream(conversationId, deltas);
+    }
+
+    @AiLog(conversationId = "#conversationId")
+    public Flux<ChatResponse> aiChatV2Stream(String conversationId, Prompt prompt) {
+        return chatModel.stream(prompt);
     }
 
     @AiLog(conversationId = "#conversationId")
@@ -200,20 +248,17 @@ public class ChatBotService {
                 && !params.getImageAttachmentList().isEmpty()) {
             List<Message> userMessages = new ArrayList<>();
             userMessages.add(UserMessage.builder().text(userInput).build());
+            Map<String, Resource> images = imageAttachmentLoader.loadAll(params.getImageAttachmentList().stream()
+                    .map(ImageAttachment::getImageId)
+                    .toList());
             for (ImageAttachment imageAttachment : params.getImageAttachmentList()) {
-                Resource resource = imageService.loadImage(imageAttachment.getImageId());
-                try {
-                    String mime = contentTypeUtil.detectMimeType(resource);
-                    Media media = new Media(MimeType.valueOf(mime), resource);
-                    userMessages.add(UserMessage.builder()
-                            .text("This is the image of the user's uploaded. image id is "
-                                    + imageAttachment.getImageId())
-                            .media(List.of(media))
-                            .build());
-                } catch (IOException e) {
-                    log.error("Error loading image: {}", e.getMessage(), e);
-                    throw new RuntimeException("Image load error");
-                }
+                Resource resource = images.get(imageAttachment.getImageId());
+                String mime = imageFormatDetector.detectMimeType(imageAttachment.getImageId(), resource);
+                Media media = new Media(MimeType.valueOf(mime), resource);
+                userMessages.add(UserMessage.builder()
+                        .text("This is the image of the user's uploaded. image id is " + imageAttachment.getImageId())
+                        .media(List.of(media))
+                        .build());
             }
             return userMessages;
         } else {
@@ -222,10 +267,7 @@ public class ChatBotService {
     }
 
     private String getPromptTemplate() {
-        PromptContent prompt = promptRepository.findByType(PromptTypeEnum.CHAT.name());
-        if (prompt == null) {
-            return "";
-        }
-        return prompt.getSystemPrompt();
+        String prompt = workflowConfigRegistry.getPrompt(PromptTypeEnum.CHAT);
+        return prompt == null ? "" : prompt;
     }
 }
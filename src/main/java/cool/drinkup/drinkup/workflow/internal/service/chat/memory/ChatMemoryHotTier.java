@@ -0,0 +1,47 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import java.util.List;
+
+/**
+ * 活跃对话的热存储，记录尚未写入数据库的对话
+ * 每次写入都会递增对话版本号，写回数据库后按版本号清除待写标记，写回期间的新写入不会丢失
+ * 待写对话不会因有效期被淘汰，清除待写标记后才开始计算有效期
+ */
+public interface ChatMemoryHotTier {
+
+    record Entry(List<StoredMessage> messages, Long userId, long version) {}
+
+    /**
+     * @return 对话不在热存储中时返回 null
+     */
+    Entry get(String conversationId);
+
+    /**
+     * 追加消息并标记待写
+     */
+    void append(String conversationId, List<StoredMessage> messages, Long userId);
+
+    /**
+     * 整体替换消息
+     * @param dirty 是否标记待写，从数据库加载时为 false
+     */
+    void replace(String conversationId, List<StoredMessage> messages, Long userId, boolean dirty);
+
+    void remove(String conversationId);
+
+    List<String> dirtyIds(int limit);
+
+    long dirtyCount();
+
+    /**
+     * 版本号未变化时清除待写标记，version 为负数时无条件清除
+     */
+    void markClean(String conversationId, long version);
+
+    /**
+     * 集群内同一时间只允许一个实例写回
+     */
+    boolean tryLockFlush();
+
+    void unlockFlush();
+}
@@ -0,0 +1,17 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import java.util.List;
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * 把移出窗口的旧消息合并进对话摘要
+ */
+public interface ChatMemorySummarizer {
+
+    /**
+     * @param previousSummary 已有摘要，首次摘要时为 null
+     * @param evicted 本次移出窗口的消息，按时间顺序
+     * @return 新摘要
+     */
+    String summarize(String previousSummary, List<Message> evicted);
+}
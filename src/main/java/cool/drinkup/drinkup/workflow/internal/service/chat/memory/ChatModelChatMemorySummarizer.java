@@ -0,0 +1,72 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import cool.drinkup.drinkup.workflow.internal.config.ChatBotProperties;
+import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import java.util.List;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 使用聊天模型生成对话摘要，提示词可通过 CHAT_SUMMARY 类型配置
+ */
+@Component
+public class ChatModelChatMemorySummarizer implements ChatMemorySummarizer {
+
+    private static final String DEFAULT_PROMPT =
+            """
+            You maintain a running summary of a conversation between a user and a bartender assistant.
+            Merge the previous summary and the new messages into one concise summary of at most 200 words.
+            Keep the user's preferences, available ingredients, drinks already suggested and any open requests.
+            Reply with the summary text only, in the language of the conversation.""";
+
+    private final ChatModel chatModel;
+    private final ChatBotProperties chatBotProperties;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
+
+    public ChatModelChatMemorySummarizer(
+            @Qualifier("chatBotModel") ChatModel chatModel,
+            ChatBotProperties chatBotProperties,
+            WorkflowConfigRegistry workflowConfigRegistry) {
+        this.chatModel = chatModel;
+        this.chatBotProperties = chatBotProperties;
+        this.workflowConfigRegistry = workflowConfigRegistry;
+    }
+
+    @Override
+    public String summarize(String previousSummary, List<Message> evicted) {
+        StringBuilder content = new StringBuilder();
+        if (StringUtils.hasText(previousSummary)) {
+            content.append("Previous summary:\n").append(previousSummary).append("\n\n");
+        }
+        content.append("New messages:\n");
+        for (Message message : evicted) {
+            if (StringUtils.hasText(message.getText())) {
+                content.append(message.getMessageType().getValue())
+                        .append(": ")
+                        .append(message.getText())
+                        .append('\n');
+            }
+        }
+
+        String model = chatBotProperties.getMemory().getSummaryModel();
+        var prompt = new Prompt(
+                List.of(new SystemMessage(getPromptTemplate()), new UserMessage(content.toString())),
+                OpenAiChatOptions.builder()
+                        .model(StringUtils.hasText(model) ? model : chatBotProperties.getModel())
+                        .build());
+        return chatModel.call(prompt).getResult().getOutput().getText();
+    }
+
+    private String getPromptTemplate() {
+        String prompt = workflowConfigRegistry.getPrompt(PromptTypeEnum.CHAT_SUMMARY);
+        return StringUtils.hasText(prompt) ? prompt : DEFAULT_PROMPT;
+    }
+}
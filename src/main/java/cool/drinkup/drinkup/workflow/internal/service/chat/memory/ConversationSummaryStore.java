@@ -0,0 +1,60 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 对话摘要存储
+ */
+public interface ConversationSummaryStore {
+
+    /**
+     * @return 没有摘要时返回 null
+     */
+    String get(String conversationId);
+
+    void put(String conversationId, String summary);
+
+    void remove(String conversationId);
+
+    static ConversationSummaryStore inMemory() {
+        Map<String, String> summaries = new ConcurrentHashMap<>();
+        return new ConversationSummaryStore() {
+            @Override
+            public String get(String conversationId) {
+                return summaries.get(conversationId);
+            }
+
+            @Override
+            public void put(String conversationId, String summary) {
+                summaries.put(conversationId, summary);
+            }
+
+            @Override
+            public void remove(String conversationId) {
+                summaries.remove(conversationId);
+            }
+        };
+    }
+
+    static ConversationSummaryStore redis(RedisTemplate<String, String> redisTemplate, String keyPrefix, Duration ttl) {
+        return new ConversationSummaryStore() {
+            @Override
+            public String get(String conversationId) {
+                return redisTemplate.opsForValue().get(keyPrefix + conversationId);
+            }
+
+            @Override
+            public void put(String conversationId, String summary) {
+                redisTemplate.opsForValue().set(keyPrefix + conversationId, summary, ttl);
+            }
+
+            @Override
+            public void remove(String conversationId) {
+                redisTemplate.delete(keyPrefix + conversationId);
+            }
+        };
+    }
+}
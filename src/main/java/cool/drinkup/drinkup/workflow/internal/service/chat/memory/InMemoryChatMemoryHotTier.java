@@ -0,0 +1,118 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单实例部署使用的进程内热存储，进程退出前未写回的消息会丢失，关闭时由写回任务最后一次写回
+ */
+public class InMemoryChatMemoryHotTier implements ChatMemoryHotTier {
+
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+    private final Map<String, Long> dirty = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final long ttlMillis;
+
+    public InMemoryChatMemoryHotTier(Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    private static final class Conversation {
+        private final List<StoredMessage> messages = new ArrayList<>();
+        private Long userId;
+        private long version;
+        private volatile long lastAccess = System.currentTimeMillis();
+    }
+
+    @Override
+    public Entry get(String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) {
+            return null;
+        }
+        synchronized (conversation) {
+            conversation.lastAccess = System.currentTimeMillis();
+            return new Entry(List.copyOf(conversation.messages), conversation.userId, conversation.version);
+        }
+    }
+
+    @Override
+    public void append(String conversationId, List<StoredMessage> messages, Long userId) {
+        Conversation conversation = conversations.computeIfAbsent(conversationId, id -> new Conversation());
+        synchronized (conversation) {
+            conversation.messages.addAll(messages);
+            touch(conversationId, conversation, userId, true);
+        }
+    }
+
+    @Override
+    public void replace(String conversationId, List<StoredMessage> messages, Long userId, boolean dirty) {
+        Conversation conversation = conversations.computeIfAbsent(conversationId, id -> new Conversation());
+        synchronized (conversation) {
+            conversation.messages.clear();
+            conversation.messages.addAll(messages);
+            touch(conversationId, conversation, userId, dirty);
+        }
+    }
+
+    private void touch(String conversationId, Conversation conversation, Long userId, boolean markDirty) {
+        if (userId != null) {
+            conversation.userId = userId;
+        }
+        conversation.version++;
+        conversation.lastAccess = System.currentTimeMillis();
+        if (markDirty) {
+            dirty.put(conversationId, conversation.version);
+        }
+    }
+
+    @Override
+    public void remove(String conversationId) {
+        conversations.remove(conversationId);
+        dirty.remove(conversationId);
+    }
+
+    @Override
+    public List<String> dirtyIds(int limit) {
+        evictIdle();
+        return dirty.keySet().stream().limit(limit).toList();
+    }
+
+    @Override
+    public long dirtyCount() {
+        return dirty.size();
+    }
+
+    @Override
+    public void markClean(String conversationId, long version) {
+        if (version < 0) {
+            dirty.remove(conversationId);
+        } else {
+            dirty.remove(conversationId, version);
+        }
+    }
+
+    /**
+     * 淘汰已写回且超过有效期未访问的对话
+     */
+    private void evictIdle() {
+        long expireBefore = System.currentTimeMillis() - ttlMillis;
+        conversations
+                .entrySet()
+                .removeIf(entry -> entry.getValue().lastAccess < expireBefore && !dirty.containsKey(entry.getKey()));
+    }
+
+    @Override
+    public boolean tryLockFlush() {
+        return flushLock.tryLock();
+    }
+
+    @Override
+    public void unlockFlush() {
+        flushLock.unlock();
+    }
+}
@@ -0,0 +1,187 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 基于 Redis 的热存储，多实例共享
+ * 每个对话一个消息列表和一个元数据哈希（userId、version），待写对话放在集合中，进程崩溃后由任一实例继续写回
+ * 待写对话不设置过期时间，写回后才开始计算有效期，数据库长时间不可用时也不会因过期丢失消息
+ */
+public class RedisChatMemoryHotTier implements ChatMemoryHotTier {
+
+    private static final RedisScript<Long> MARK_CLEAN = new DefaultRedisScript<>(
+            "if ARGV[2] == '-1' or redis.call('HGET', KEYS[1], 'version') == ARGV[2] then"
+                    + " local removed = redis.call('SREM', KEYS[2], ARGV[1])"
+                    + " redis.call('PEXPIRE', KEYS[1], ARGV[3]) redis.call('PEXPIRE', KEYS[3],"
+                    + " ARGV[3]) return removed end return 0",
+            Long.class);
+
+    private static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL'," + " KEYS[1]) end return 0",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final String lockToken = UUID.randomUUID().toString();
+
+    public RedisChatMemoryHotTier(
+            RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            String keyPrefix,
+            Duration ttl,
+            Duration lockTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+    }
+
+    private String messagesKey(String conversationId) {
+        return keyPrefix + "messages:" + conversationId;
+    }
+
+    private String metaKey(String conversationId) {
+        return keyPrefix + "meta:" + conversationId;
+    }
+
+    private String dirtyKey() {
+        return keyPrefix + "dirty";
+    }
+
+    private String lockKey() {
+        return keyPrefix + "flush-lock";
+    }
+
+    @Override
+    public Entry get(String conversationId) {
+        List<Object> meta = redisTemplate.opsForHash().multiGet(metaKey(conversationId), List.of("version", "userId"));
+        Object version = meta.get(0);
+        if (version == null) {
+            return null;
+        }
+        Object userId = meta.get(1);
+        List<String> values = redisTemplate.opsForList().range(messagesKey(conversationId), 0, -1);
+        List<StoredMessage> messages = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                messages.add(read(value));
+            }
+        }
+        return new Entry(
+                messages, userId == null ? null : Long.valueOf(userId.toString()), Long.parseLong(version.toString()));
+    }
+
+    @Override
+    public void append(String conversationId, List<StoredMessage> messages, Long userId) {
+        write(conversationId, messages, userId, false, true);
+    }
+
+    @Override
+    public void replace(String conversationId, List<StoredMessage> messages, Long userId, boolean dirty) {
+        write(conversationId, messages, userId, true, dirty);
+    }
+
+    private void write(
+            String conversationId, List<StoredMessage> messages, Long userId, boolean replace, boolean dirty) {
+        List<String> values = messages.stream().map(this::serialize).toList();
+        String messagesKey = messagesKey(conversationId);
+        String metaKey = metaKey(conversationId);
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = operations;
+                ops.multi();
+                if (replace) {
+                    ops.delete(messagesKey);
+                }
+                if (!values.isEmpty()) {
+                    ops.opsForList().rightPushAll(messagesKey, values);
+                }
+                ops.opsForHash().increment(metaKey, "version", 1);
+                if (userId != null) {
+                    ops.opsForHash().put(metaKey, "userId", userId.toString());
+                }
+                if (dirty) {
+                    ops.opsForSet().add(dirtyKey(), conversationId);
+                    ops.persist(messagesKey);
+                    ops.persist(metaKey);
+                } else {
+                    ops.expire(messagesKey, ttl);
+                    ops.expire(metaKey, ttl);
+                }
+                return ops.exec();
+            }
+        });
+    }
+
+    @Override
+    public void remove(String conversationId) {
+        redisTemplate.delete(List.of(messagesKey(conversationId), metaKey(conversationId)));
+        redisTemplate.opsForSet().remove(dirtyKey(), conversationId);
+    }
+
+    @Override
+    public List<String> dirtyIds(int limit) {
+        Set<String> ids = redisTemplate.opsForSet().distinctRandomMembers(dirtyKey(), limit);
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+
+    @Override
+    public long dirtyCount() {
+        Long size = redisTemplate.opsForSet().size(dirtyKey());
+        return size == null ? 0 : size;
+    }
+
+    @Override
+    public void markClean(String conversationId, long version) {
+        redisTemplate.execute(
+                MARK_CLEAN,
+                List.of(metaKey(conversationId), dirtyKey(), messagesKey(conversationId)),
+                conversationId,
+                version < 0 ? "-1" : String.valueOf(version),
+                String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public boolean tryLockFlush() {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(), lockToken, lockTimeout));
+    }
+
+    @Override
+    public void unlockFlush() {
+        redisTemplate.execute(UNLOCK, List.of(lockKey()), lockToken);
+    }
+
+    private String serialize(StoredMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize chat message", e);
+        }
+    }
+
+    private StoredMessage read(String value) {
+        try {
+            return objectMapper.readValue(value, StoredMessage.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize chat message", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import java.util.List;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+/**
+ * 对话记忆中保存的消息，与 SPRING_AI_CHAT_MEMORY 表一致只保留类型和文本
+ */
+public record StoredMessage(String type, String content) {
+
+    public static StoredMessage of(Message message) {
+        return new StoredMessage(message.getMessageType().name(), message.getText());
+    }
+
+    public Message toMessage() {
+        return switch (MessageType.valueOf(type)) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            case TOOL -> new ToolResponseMessage(List.of());
+        };
+    }
+}
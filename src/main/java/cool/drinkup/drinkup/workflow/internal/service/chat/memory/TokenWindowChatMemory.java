@@ -0,0 +1,198 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.StringUtils;
+
+/**
+ * 按 token 预算保留最近消息的对话记忆
+ * SystemMessage 始终保留，其余消息超出预算时从最早的开始移出窗口，并异步合并进对话摘要；
+ * 摘要只在窗口滚动时重新生成，读取时作为第二条 SystemMessage 插入，因此每轮提示词大小基本稳定
+ */
+@Slf4j
+public class TokenWindowChatMemory implements ChatMemory {
+
+    static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+    /**
+     * 图片等附件按固定 token 数估算
+     */
+    private static final int MEDIA_TOKENS = 1000;
+
+    /**
+     * 每条消息的角色与分隔符开销
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ChatMemoryRepository repository;
+    private final ConversationSummaryStore summaryStore;
+    private final ChatMemorySummarizer summarizer;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final int tokenBudget;
+    private final Executor executor;
+
+    /**
+     * 同一对话的摘要任务串行执行，后一次摘要基于前一次的结果
+     */
+    private final Map<String, CompletableFuture<Void>> pendingSummaries = new ConcurrentHashMap<>();
+
+    private final Counter summarySuccess;
+    private final Counter summaryFailure;
+
+    public TokenWindowChatMemory(
+            ChatMemoryRepository repository,
+            ConversationSummaryStore summaryStore,
+            ChatMemorySummarizer summarizer,
+            TokenCountEstimator tokenCountEstimator,
+            int tokenBudget,
+            Executor executor,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.summaryStore = summaryStore;
+        this.summarizer = summarizer;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.tokenBudget = tokenBudget;
+        this.executor = executor;
+        this.summarySuccess = Counter.builder("drinkup.chat.memory.summary")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.summaryFailure = Counter.builder("drinkup.chat.memory.summary")
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        List<Message> memory = new ArrayList<>(repository.findByConversationId(conversationId));
+        // 与 MessageWindowChatMemory 一致，新的 SystemMessage 替换旧的
+        if (messages.stream().anyMatch(SystemMessage.class::isInstance)) {
+            memory.removeIf(SystemMessage.class::isInstance);
+        }
+        memory.addAll(messages);
+
+        List<Message> system = new ArrayList<>();
+        List<Message> window = new ArrayList<>();
+        for (Message message : memory) {
+            (message instanceof SystemMessage ? system : window).add(message);
+        }
+        String summary = summaryStore.get(conversationId);
+        int tokens = estimate(system) + estimate(window);
+        if (summary != null) {
+            tokens += estimate(new SystemMessage(SUMMARY_PREFIX + summary));
+        }
+
+        int evictCount = 0;
+        while (tokens > tokenBudget && evictCount < window.size() - 1) {
+            tokens -= estimate(window.get(evictCount++));
+        }
+        // 按轮次移出，窗口不以助手回复开头
+        while (evictCount > 0 && evictCount < window.size() - 1 && window.get(evictCount) instanceof AssistantMessage) {
+            evictCount++;
+        }
+        if (evictCount == 0) {
+            repository.saveAll(conversationId, memory);
+            return;
+        }
+
+        List<Message> evicted = List.copyOf(window.subList(0, evictCount));
+        List<Message> kept = new ArrayList<>(system);
+        kept.addAll(window.subList(evictCount, window.size()));
+        repository.saveAll(conversationId, kept);
+        scheduleSummary(conversationId, evicted);
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        List<Message> messages = repository.findByConversationId(conversationId);
+        String summary = summaryStore.get(conversationId);
+        if (!StringUtils.hasText(summary)) {
+            return messages;
+        }
+        int insertAt = 0;
+        while (insertAt < messages.size() && messages.get(insertAt) instanceof SystemMessage) {
+            insertAt++;
+        }
+        List<Message> result = new ArrayList<>(messages.size() + 1);
+        result.addAll(messages.subList(0, insertAt));
+        result.add(new SystemMessage(SUMMARY_PREFIX + summary));
+        result.addAll(messages.subList(insertAt, messages.size()));
+        return result;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        repository.deleteByConversationId(conversationId);
+        summaryStore.remove(conversationId);
+    }
+
+    private void scheduleSummary(String conversationId, List<Message> evicted) {
+        CompletableFuture<Void> scheduled = pendingSummaries.compute(conversationId, (id, previous) -> {
+            CompletableFuture<Void> after = previous == null ? CompletableFuture.completedFuture(null) : previous;
+            return after.thenRunAsync(() -> summarize(id, evicted), executor);
+        });
+        scheduled.whenComplete((result, e) -> pendingSummaries.remove(conversationId, scheduled));
+    }
+
+    private void summarize(String conversationId, List<Message> evicted) {
+        long startTime = System.currentTimeMillis();
+        try {
+            String summary = summarizer.summarize(summaryStore.get(conversationId), evicted);
+            if (StringUtils.hasText(summary)) {
+                summaryStore.put(conversationId, summary);
+            }
+            summarySuccess.increment();
+            log.debug(
+                    "Summarized {} messages of conversation {} in {} ms",
+                    evicted.size(),
+                    conversationId,
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // 保留旧摘要，本次移出的消息不再进入摘要
+            summaryFailure.increment();
+            log.warn("Failed to summarize conversation {}: {}", conversationId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 等待对话当前的摘要任务完成，用于测试
+     */
+    void awaitSummary(String conversationId) {
+        CompletableFuture<Void> pending = pendingSummaries.get(conversationId);
+        if (pending != null) {
+            pending.join();
+        }
+    }
+
+    private int estimate(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += estimate(message);
+        }
+        return tokens;
+    }
+
+    private int estimate(Message message) {
+        int tokens = MESSAGE_OVERHEAD_TOKENS;
+        if (StringUtils.hasLength(message.getText())) {
+            tokens += tokenCountEstimator.estimate(message.getText());
+        }
+        if (message instanceof UserMessage userMessage) {
+            tokens += userMessage.getMedia().size() * MEDIA_TOKENS;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,211 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import cool.drinkup.drinkup.user.spi.AuthenticatedUserDTO;
+import cool.drinkup.drinkup.user.spi.AuthenticationServiceFacade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 写回式对话记忆：读写都走热存储，由定时任务批量写回 SPRING_AI_CHAT_MEMORY
+ * 新消息只追加到热存储，对话轮次不再等待数据库写入；写回按对话整体替换，可重复执行，崩溃后重放不会产生重复消息
+ */
+@Slf4j
+public class WriteBehindChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+    private static final String SELECT_MESSAGES_SQL =
+            "SELECT content, type FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ? ORDER BY" + " `timestamp`";
+    private static final String SELECT_CONVERSATION_IDS_SQL =
+            "SELECT DISTINCT conversation_id FROM SPRING_AI_CHAT_MEMORY";
+    private static final String DELETE_MESSAGES_SQL = "DELETE FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ?";
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, `timestamp`,"
+                    + " user_id) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * 单次写回最多处理的批次数，避免持续写入时写回任务不退出
+     */
+    private static final int MAX_ROUNDS = 10;
+
+    private final ChatMemoryHotTier hotTier;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuthenticationServiceFacade authenticationServiceFacade;
+    private final int batchSize;
+
+    private final Counter flushed;
+    private final Counter flushFailures;
+    private final Counter dropped;
+
+    public WriteBehindChatMemoryRepository(
+            ChatMemoryHotTier hotTier,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            AuthenticationServiceFacade authenticationServiceFacade,
+            int batchSize,
+            MeterRegistry meterRegistry) {
+        this.hotTier = hotTier;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.authenticationServiceFacade = authenticationServiceFacade;
+        this.batchSize = batchSize;
+        this.flushed = Counter.builder("drinkup.chat.memory.flush")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("drinkup.chat.memory.flush")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("drinkup.chat.memory.dropped").register(meterRegistry);
+        Gauge.builder("drinkup.chat.memory.pending", hotTier, ChatMemoryHotTier::dirtyCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        flush();
+        return jdbcTemplate.queryForList(SELECT_CONVERSATION_IDS_SQL, String.class);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        ChatMemoryHotTier.Entry entry = hotTier.get(conversationId);
+        List<StoredMessage> messages;
+        if (entry != null) {
+            messages = entry.messages();
+        } else {
+            messages = jdbcTemplate.query(
+                    SELECT_MESSAGES_SQL,
+                    (rs, rowNum) -> new StoredMessage(rs.getString("type"), rs.getString("content")),
+                    conversationId);
+            if (!messages.isEmpty()) {
+                hotTier.replace(conversationId, messages, null, false);
+            }
+        }
+        List<Message> result = new ArrayList<>(messages.size());
+        messages.forEach(message -> result.add(message.toMessage()));
+        return result;
+    }
+
+    /**
+     * 新列表以热存储中的消息为前缀时只追加新增部分，否则（窗口滑动或改写 SystemMessage）整体替换
+     */
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        List<StoredMessage> stored = messages.stream().map(StoredMessage::of).toList();
+        Long userId = currentUserId();
+        ChatMemoryHotTier.Entry entry = hotTier.get(conversationId);
+        if (entry != null
+                && stored.size() >= entry.messages().size()
+                && stored.subList(0, entry.messages().size()).equals(entry.messages())) {
+            List<StoredMessage> added = stored.subList(entry.messages().size(), stored.size());
+            if (!added.isEmpty()) {
+                hotTier.append(conversationId, added, userId);
+            }
+            return;
+        }
+        hotTier.replace(conversationId, stored, userId, true);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        hotTier.remove(conversationId);
+        jdbcTemplate.update(DELETE_MESSAGES_SQL, conversationId);
+    }
+
+    /**
+     * 批量写回待写对话，每批在一个事务中按对话删除后重新插入
+     * 间隔由 drinkup.chat.memory.flush-interval 配置，即数据库相对热存储的最大延迟
+     */
+    @Scheduled(fixedDelayString = "${drinkup.chat.memory.flush-interval:PT1S}")
+    public void flush() {
+        if (!hotTier.tryLockFlush()) {
+            return;
+        }
+        try {
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                List<String> ids = hotTier.dirtyIds(batchSize);
+                if (ids.isEmpty()) {
+                    return;
+                }
+                flushBatch(ids);
+                if (ids.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("Failed to flush chat memory, will retry: {}", e.getMessage(), e);
+        } finally {
+            hotTier.unlockFlush();
+        }
+    }
+
+    private void flushBatch(List<String> ids) {
+        Map<String, ChatMemoryHotTier.Entry> entries = new LinkedHashMap<>();
+        for (String id : ids) {
+            ChatMemoryHotTier.Entry entry = hotTier.get(id);
+            if (entry == null) {
+                // 待写对话不会过期，只有被外部淘汰（如 Redis 内存淘汰策略）时才会出现，未写回的消息已丢失
+                dropped.increment();
+                log.warn(
+                        "Chat memory conversation {} was evicted from hot tier before flush,"
+                                + " unsaved messages lost",
+                        id);
+                hotTier.markClean(id, -1);
+            } else {
+                entries.put(id, entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> deletes = new ArrayList<>(entries.size());
+        List<Object[]> inserts = new ArrayList<>();
+        long timestamp = System.currentTimeMillis();
+        for (Map.Entry<String, ChatMemoryHotTier.Entry> entry : entries.entrySet()) {
+            deletes.add(new Object[] {entry.getKey()});
+            for (StoredMessage message : entry.getValue().messages()) {
+                inserts.add(new Object[] {
+                    entry.getKey(),
+                    message.content(),
+                    message.type(),
+                    new Timestamp(timestamp++),
+                    entry.getValue().userId()
+                });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DELETE_MESSAGES_SQL, deletes);
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, inserts);
+        });
+
+        entries.forEach((id, entry) -> hotTier.markClean(id, entry.version()));
+        flushed.increment(entries.size());
+        log.debug("Flushed {} conversations with {} messages to database", entries.size(), inserts.size());
+    }
+
+    private Long currentUserId() {
+        return authenticationServiceFacade
+                .getCurrentAuthenticatedUser()
+                .map(AuthenticatedUserDTO::userId)
+                .orElse(null);
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
@@ -0,0 +1,34 @@
+package cool.drinkup.drinkup.workflow.internal.service.concurrency;
+
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
+import cool.drinkup.drinkup.workflow.internal.config.AiConcurrencyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每个上游模型一个并发限制器，多个业务的 ChatModel 使用同一模型时共享限制
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatModelConcurrencyLimiters {
+
+    private final AiConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter forModel(String model) {
+        return limiters.computeIfAbsent(
+                model, key -> new AdaptiveConcurrencyLimiter("chat:" + key, properties.forModel(key), meterRegistry));
+    }
+
+    public ChatModel wrap(ChatModel chatModel) {
+        if (chatModel instanceof ConcurrencyLimitedChatModel) {
+            return chatModel;
+        }
+        return new ConcurrencyLimitedChatModel(chatModel, this);
+    }
+}
@@ -0,0 +1,86 @@
+package cool.drinkup.drinkup.workflow.internal.service.concurrency;
+
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.CancellationToken;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 按请求使用的模型限制并发的 ChatModel
+ */
+public class ConcurrencyLimitedChatModel implements ChatModel {
+
+    private static final String UNKNOWN_MODEL = "default";
+
+    private final ChatModel delegate;
+    private final ChatModelConcurrencyLimiters limiters;
+
+    ConcurrencyLimitedChatModel(ChatModel delegate, ChatModelConcurrencyLimiters limiters) {
+        this.delegate = delegate;
+        this.limiters = limiters;
+    }
+
+    /**
+     * 排队和模型调用都不持有连接池连接，请求取消时可以安全中断
+     */
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return CancellationToken.interruptibly(() -> limiterFor(prompt).execute(() -> delegate.call(prompt)));
+    }
+
+    /**
+     * 流式调用从订阅开始占用许可直到结束，总耗时取决于输出长度，不参与上限调整
+     * 排队等待会阻塞线程，在 boundedElastic 上获取许可，不占用订阅方的事件循环线程；排队期间取消时，之后拿到的许可直接释放
+     */
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            AtomicReference<AdaptiveConcurrencyLimiter.Permit> acquired = new AtomicReference<>();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            return Mono.fromCallable(() -> {
+                        AdaptiveConcurrencyLimiter.Permit permit =
+                                limiterFor(prompt).acquire();
+                        acquired.set(permit);
+                        if (cancelled.get()) {
+                            permit.ignore();
+                        }
+                        return permit;
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(permit ->
+                            delegate.stream(prompt).doOnComplete(permit::ignore).doOnError(permit::failure))
+                    .doOnCancel(() -> {
+                        cancelled.set(true);
+                        AdaptiveConcurrencyLimiter.Permit permit = acquired.get();
+                        if (permit != null) {
+                            permit.ignore();
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(Prompt prompt) {
+        String model = modelOf(prompt.getOptions());
+        if (model == null) {
+            model = modelOf(delegate.getDefaultOptions());
+        }
+        return limiters.forModel(model == null ? UNKNOWN_MODEL : model);
+    }
+
+    private static String modelOf(ChatOptions options) {
+        return options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : null;
+    }
+}
@@ -0,0 +1,132 @@
+package cool.drinkup.drinkup.workflow.internal.service.config;
+
+import cool.drinkup.drinkup.shared.enums.ThemeEnum;
+import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
+import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
+import cool.drinkup.drinkup.workflow.internal.model.ThemeSettings;
+import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
+import cool.drinkup.drinkup.workflow.internal.repository.ThemeSettingsRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提示词与主题配置的内存快照
+ * 启动时从数据库全量加载为不可变快照，查询不访问数据库；管理员触发重载后通过 Redis 发布订阅通知所有实例整体替换快照
+ */
+@Slf4j
+@Component
+public class WorkflowConfigRegistry implements MessageListener {
+
+    public record ThemeConfig(String themeContent, String imageConfig, String imagePrompt) {}
+
+    public record Snapshot(long version, Map<String, String> prompts, Map<ThemeEnum, ThemeConfig> themes) {}
+
+    private final PromptRepository promptRepository;
+    private final ThemeSettingsRepository themeSettingsRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String reloadChannel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile Snapshot snapshot = new Snapshot(0, Map.of(), Map.of());
+
+    public WorkflowConfigRegistry(
+            PromptRepository promptRepository,
+            ThemeSettingsRepository themeSettingsRepository,
+            RedisTemplate<String, String> redisTemplate,
+            @Value("${drinkup.workflow.config.reload-channel:drinkup:workflow:config:reload}") String reloadChannel) {
+        this.promptRepository = promptRepository;
+        this.themeSettingsRepository = themeSettingsRepository;
+        this.redisTemplate = redisTemplate;
+        this.reloadChannel = reloadChannel;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public String getReloadChannel() {
+        return reloadChannel;
+    }
+
+    /**
+     * 指定类型的系统提示词，不存在时返回 null
+     */
+    public String getPrompt(PromptTypeEnum type) {
+        return snapshot.prompts().get(type.name());
+    }
+
+    public Optional<ThemeConfig> getTheme(ThemeEnum type) {
+        return Optional.ofNullable(snapshot.themes().get(type));
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 从数据库重新加载并替换快照
+     */
+    public synchronized Snapshot reload() {
+        Map<String, String> prompts = new HashMap<>();
+        for (PromptContent prompt : promptRepository.findAll()) {
+            if (prompt.getType() != null && prompt.getSystemPrompt() != null) {
+                prompts.putIfAbsent(prompt.getType(), prompt.getSystemPrompt());
+            }
+        }
+        Map<ThemeEnum, ThemeConfig> themes = new EnumMap<>(ThemeEnum.class);
+        for (ThemeSettings settings : themeSettingsRepository.findAll()) {
+            if (settings.getType() != null) {
+                themes.putIfAbsent(
+                        settings.getType(),
+                        new ThemeConfig(
+                                settings.getThemeContent(), settings.getImageConfig(), settings.getImagePrompt()));
+            }
+        }
+        Snapshot loaded = new Snapshot(versions.incrementAndGet(), Map.copyOf(prompts), Map.copyOf(themes));
+        this.snapshot = loaded;
+        log.info(
+                "Loaded workflow config snapshot v{} with {} prompts and {} themes",
+                loaded.version(),
+                prompts.size(),
+                themes.size());
+        return loaded;
+    }
+
+    /**
+     * 重载本实例并通知其他实例重载
+     */
+    public Snapshot reloadAndBroadcast() {
+        Snapshot loaded = reload();
+        try {
+            redisTemplate.convertAndSend(reloadChannel, instanceId);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast workflow config reload: {}", e.getMessage());
+        }
+        return loaded;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (instanceId.equals(new String(message.getBody()))) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Failed to reload workflow config, keeping snapshot v{}", snapshot.version(), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cool.drinkup.drinkup.workflow.internal.service.hedge;
+
+import java.time.Duration;
+import lombok.Data;
+
+/**
+ * 对冲请求配置
+ */
+@Data
+public class HedgeProperties {
+    private boolean enabled = false;
+
+    /**
+     * 主调用延迟达到该分位数仍未返回时发出对冲请求
+     */
+    private double percentile = 0.9;
+
+    /**
+     * 延迟样本不足时的对冲等待时间
+     */
+    private Duration initialDelay = Duration.ofSeconds(15);
+
+    private Duration minDelay = Duration.ofSeconds(2);
+    private int windowSize = 200;
+    private int minSamples = 20;
+
+    /**
+     * 两个请求合计的最长等待时间
+     */
+    private Duration timeout = Duration.ofSeconds(120);
+}
@@ -0,0 +1,177 @@
+package cool.drinkup.drinkup.workflow.internal.service.hedge;
+
+import cool.drinkup.drinkup.workflow.internal.service.cancel.CancellationToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+
+/**
+ * 对冲请求：主调用超过近期延迟分位数仍未返回时，向备用模型发出相同请求，先返回有效结果的一方胜出并取消另一方
+ * 主调用在对冲前失败或结果无效时立即发出备用请求
+ */
+@Slf4j
+public class HedgedExecutor {
+
+    public record Candidate<T>(String model, Callable<T> call) {}
+
+    private final String name;
+    private final HedgeProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LatencyWindow primaryLatency;
+
+    public HedgedExecutor(String name, HedgeProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.primaryLatency = new LatencyWindow(properties.getWindowSize());
+    }
+
+    private Counter counter(String metric, String model, String role) {
+        return Counter.builder(metric)
+                .tag("name", name)
+                .tag("model", model)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 当前的对冲等待时间：样本不足时使用初始值，否则为主调用延迟的配置分位数，不低于最小值
+     */
+    public Duration hedgeDelay() {
+        long percentile = primaryLatency.percentile(properties.getPercentile(), properties.getMinSamples());
+        if (percentile < 0) {
+            return properties.getInitialDelay();
+        }
+        return Duration.ofNanos(Math.max(percentile, properties.getMinDelay().toNanos()));
+    }
+
+    public <T> T execute(Candidate<T> primary, Candidate<T> hedge, Predicate<T> valid) {
+        long startTime = System.nanoTime();
+        long hedgeAt = startTime + hedgeDelay().toNanos();
+        long deadline = startTime + properties.getTimeout().toNanos();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<T>, Candidate<T>> running = new HashMap<>();
+        running.put(
+                completionService.submit(
+                        new DelegatingSecurityContextCallable<>(CancellationToken.propagate(primary.call()))),
+                primary);
+        counter("drinkup.ai.hedge.calls", primary.model(), "primary").increment();
+        boolean hedged = false;
+        Throwable lastError = null;
+        try {
+            while (!running.isEmpty() || !hedged) {
+                Future<T> done;
+                if (!hedged) {
+                    long wait = hedgeAt - System.nanoTime();
+                    done = wait > 0 ? completionService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (done == null) {
+                        hedged = true;
+                        startHedge(completionService, running, hedge, "primary slow");
+                        continue;
+                    }
+                } else {
+                    done = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        throw new RuntimeException("Hedged call " + name + " timed out");
+                    }
+                }
+
+                Candidate<T> candidate = running.remove(done);
+                try {
+                    T value = done.get();
+                    if (valid.test(value)) {
+                        if (candidate == primary) {
+                            primaryLatency.record(System.nanoTime() - startTime);
+                        }
+                        counter("drinkup.ai.hedge.wins", candidate.model(), candidate == primary ? "primary" : "hedge")
+                                .increment();
+                        return value;
+                    }
+                    lastError = new RuntimeException("Invalid response from " + candidate.model());
+                } catch (ExecutionException e) {
+                    lastError = e.getCause();
+                }
+                log.warn("Hedged call {} attempt on {} failed: {}", name, candidate.model(), lastError.getMessage());
+                if (!hedged) {
+                    hedged = true;
+                    startHedge(completionService, running, hedge, "primary failed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Hedged call " + name + " interrupted", e);
+        } finally {
+            // 主调用被对冲请求击败时，已等待的时间作为延迟下界计入样本，避免分位数只统计快速请求
+            if (running.containsValue(primary)) {
+                primaryLatency.record(System.nanoTime() - startTime);
+            }
+            running.keySet().forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+        if (lastError instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new RuntimeException("Hedged call " + name + " failed", lastError);
+    }
+
+    private <T> void startHedge(
+            CompletionService<T> completionService,
+            Map<Future<T>, Candidate<T>> running,
+            Candidate<T> hedge,
+            String reason) {
+        log.info("Hedged call {} sending request to {}: {}", name, hedge.model(), reason);
+        running.put(
+                completionService.submit(
+                        new DelegatingSecurityContextCallable<>(CancellationToken.propagate(hedge.call()))),
+                hedge);
+        counter("drinkup.ai.hedge.calls", hedge.model(), "hedge").increment();
+    }
+
+    /**
+     * 最近若干次主调用延迟的环形缓冲区
+     */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[Math.max(1, capacity)];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        /**
+         * @return 样本数少于 minSamples 时返回 -1
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (size == 0 || size < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.min(Math.max(index, 0), size - 1)];
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+import cool.drinkup.drinkup.infrastructure.spi.image.ImageCompressor;
+import cool.drinkup.drinkup.shared.spi.LocalLruCache;
+import cool.drinkup.drinkup.workflow.internal.config.ImageAttachmentProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * 聊天与原料识别的图片附件加载
+ * 同一消息中的图片去重后并行下载，按图片ID + imgproxy 压缩参数缓存字节，并发请求同一图片时只下载一次
+ */
+@Slf4j
+@Component
+public class ImageAttachmentLoader {
+
+    private final ImageService imageService;
+    private final ImageCompressor imageCompressor;
+    private final ImageAttachmentProperties properties;
+    private final LocalLruCache<String, byte[]> cache;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ImageAttachmentLoader(
+            ImageService imageService,
+            ImageCompressor imageCompressor,
+            ImageAttachmentProperties properties,
+            MeterRegistry meterRegistry) {
+        this.imageService = imageService;
+        this.imageCompressor = imageCompressor;
+        this.properties = properties;
+        this.cache = new LocalLruCache<>(properties.getCacheMaxSize(), properties.getCacheTtl());
+        this.hits = Counter.builder("drinkup.image.attachment.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("drinkup.image.attachment.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("drinkup.image.attachment.cache.size", cache, LocalLruCache::size)
+                .register(meterRegistry);
+    }
+
+    public Resource load(String imageId) {
+        return loadAll(List.of(imageId)).get(imageId);
+    }
+
+    /**
+     * 并行加载多张图片，任一图片失败时抛出异常
+     * @return 图片ID到图片内容，按首次出现顺序排列，重复的图片ID只出现一次
+     */
+    public Map<String, Resource> loadAll(Collection<String> imageIds) {
+        Map<String, CompletableFuture<byte[]>> futures = new LinkedHashMap<>();
+        for (String imageId : new LinkedHashSet<>(imageIds)) {
+            futures.put(imageId, fetch(imageId));
+        }
+
+        long deadline = System.nanoTime() + properties.getLoadTimeout().toNanos();
+        Map<String, Resource> resources = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<byte[]>> entry : futures.entrySet()) {
+            try {
+                byte[] bytes = entry.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                resources.put(entry.getKey(), new ByteArrayResource(bytes));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Failed to load image: " + entry.getKey(), e.getCause());
+            } catch (TimeoutException e) {
+                throw new RuntimeException("Timed out loading image: " + entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Image loading interrupted", e);
+            }
+        }
+        return resources;
+    }
+
+    private CompletableFuture<byte[]> fetch(String imageId) {
+        String key = imageId + "|" + imageCompressor.preset();
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+        misses.increment();
+        executorService.execute(() -> {
+            try {
+                byte[] bytes = imageService.loadImageBytes(imageId);
+                cache.put(key, bytes);
+                created.complete(bytes);
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+}
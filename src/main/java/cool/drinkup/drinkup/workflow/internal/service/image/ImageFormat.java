@@ -0,0 +1,118 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+/**
+ * 常见图片格式，按文件头魔数识别
+ */
+public enum ImageFormat {
+    JPEG(".jpg", "image/jpeg"),
+    PNG(".png", "image/png"),
+    GIF(".gif", "image/gif"),
+    WEBP(".webp", "image/webp"),
+    HEIC(".heic", "image/heic"),
+    BMP(".bmp", "image/bmp");
+
+    /**
+     * 识别所需的文件头长度
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private final String extension;
+    private final String mimeType;
+
+    ImageFormat(String extension, String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * 只读取前 {@link #HEADER_LENGTH} 个字节，不分配内存
+     * @param length 有效字节数，可小于数组长度
+     * @return 无法识别时返回 null
+     */
+    public static ImageFormat detect(byte[] header, int length) {
+        int n = Math.min(length, header.length);
+        if (n >= 3 && u(header, 0) == 0xFF && u(header, 1) == 0xD8 && u(header, 2) == 0xFF) {
+            return JPEG;
+        }
+        if (n >= 8
+                && u(header, 0) == 0x89
+                && header[1] == 'P'
+                && header[2] == 'N'
+                && header[3] == 'G'
+                && header[4] == 0x0D
+                && header[5] == 0x0A
+                && header[6] == 0x1A
+                && header[7] == 0x0A) {
+            return PNG;
+        }
+        if (n >= 6
+                && header[0] == 'G'
+                && header[1] == 'I'
+                && header[2] == 'F'
+                && header[3] == '8'
+                && (header[4] == '7' || header[4] == '9')
+                && header[5] == 'a') {
+            return GIF;
+        }
+        if (n >= 12
+                && header[0] == 'R'
+                && header[1] == 'I'
+                && header[2] == 'F'
+                && header[3] == 'F'
+                && header[8] == 'W'
+                && header[9] == 'E'
+                && header[10] == 'B'
+                && header[11] == 'P') {
+            return WEBP;
+        }
+        // ISO BMFF: 4 字节 box 长度 + ftyp + 主品牌
+        if (n >= 12
+                && header[4] == 'f'
+                && header[5] == 't'
+                && header[6] == 'y'
+                && header[7] == 'p'
+                && isHeifBrand(header)) {
+            return HEIC;
+        }
+        if (n >= 2 && header[0] == 'B' && header[1] == 'M') {
+            return BMP;
+        }
+        return null;
+    }
+
+    public static ImageFormat detect(byte[] header) {
+        return detect(header, header.length);
+    }
+
+    private static boolean isHeifBrand(byte[] header) {
+        return brand(header, "heic")
+                || brand(header, "heix")
+                || brand(header, "hevc")
+                || brand(header, "hevx")
+                || brand(header, "heim")
+                || brand(header, "heis")
+                || brand(header, "mif1")
+                || brand(header, "msf1");
+    }
+
+    private static boolean brand(byte[] header, String brand) {
+        for (int i = 0; i < 4; i++) {
+            if (header[8 + i] != brand.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u(byte[] bytes, int index) {
+        return bytes[index] & 0xFF;
+    }
+}
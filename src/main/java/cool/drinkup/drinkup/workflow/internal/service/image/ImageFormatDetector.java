@@ -0,0 +1,84 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+import cool.drinkup.drinkup.infrastructure.spi.image.ImageCompressor;
+import cool.drinkup.drinkup.shared.spi.LocalLruCache;
+import cool.drinkup.drinkup.workflow.internal.util.ContentTypeUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图片格式识别，上传、图片代理和多模态消息共用
+ * 常见格式只比较文件头魔数并按图片ID和压缩参数缓存结果，无法识别时才回退到 Tika
+ */
+@Slf4j
+@Component
+public class ImageFormatDetector {
+
+    private static final String FALLBACK_MIME_TYPE = "application/octet-stream";
+
+    private final ContentTypeUtil contentTypeUtil;
+    private final ImageCompressor imageCompressor;
+    private final LocalLruCache<String, String> mimeTypes = new LocalLruCache<>(10_000, Duration.ofHours(1));
+
+    public ImageFormatDetector(ContentTypeUtil contentTypeUtil, ImageCompressor imageCompressor) {
+        this.contentTypeUtil = contentTypeUtil;
+        this.imageCompressor = imageCompressor;
+    }
+
+    /**
+     * @return 无法识别时返回 null
+     */
+    public ImageFormat detect(byte[] bytes) {
+        return ImageFormat.detect(bytes);
+    }
+
+    /**
+     * 读取输入流的文件头识别格式，调用方负责关闭输入流
+     * @return 无法识别时返回 null
+     */
+    public ImageFormat detect(InputStream inputStream) throws IOException {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+        int length = inputStream.readNBytes(header, 0, header.length);
+        return ImageFormat.detect(header, length);
+    }
+
+    /**
+     * 识别图片的 MIME 类型，结果按图片ID和压缩参数缓存，与图片字节缓存的 key 一致，压缩参数变化后不会沿用旧格式
+     */
+    public String detectMimeType(String imageId, Resource resource) {
+        String key = imageId + "|" + imageCompressor.preset();
+        String cached = mimeTypes.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String mimeType = detectMimeType(resource);
+        mimeTypes.put(key, mimeType);
+        return mimeType;
+    }
+
+    private String detectMimeType(Resource resource) {
+        try {
+            ImageFormat format;
+            if (resource instanceof ByteArrayResource byteArrayResource) {
+                format = detect(byteArrayResource.getByteArray());
+            } else {
+                try (InputStream inputStream = resource.getInputStream()) {
+                    format = detect(inputStream);
+                }
+            }
+            if (format != null) {
+                return format.getMimeType();
+            }
+            log.info("Unknown image header, falling back to Tika");
+            return contentTypeUtil.detectMimeType(resource);
+        } catch (IOException e) {
+            log.error("Failed to detect image MIME type", e);
+            return FALLBACK_MIME_TYPE;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import cool.drinkup.drinkup.infrastructure.spi.image.ImageGenerator;
 import cool.drinkup.drinkup.infrastructure.spi.image.factory.ImageGeneratorFactory;
 import cool.drinkup.drinkup.shared.enums.ThemeEnum;
 import cool.drinkup.drinkup.workflow.internal.exception.RetryException;
+import cool.drinkup.drinkup.workflow.internal.service.cancel.CancellationToken;
 import cool.drinkup.drinkup.workflow.internal.service.theme.ThemeFactory;
 import io.micrometer.observation.annotation.Observed;
 import lombok.extern.slf4j.Slf4j;
@@ -49,7 +50,7 @@ public class ImageGenerateService {
             var theme = themeFactory.getTheme(themeEnum);
             var themeImageConfig = theme.getThemeImageConfig();
             var imageGenerator = imageGeneratorFactory.getImageGenerator(themeImageConfig);
-            return imageGenerator.generateImage(prompt);
+            return CancellationToken.interruptibly(() -> imageGenerator.generateImage(prompt));
         } catch (Exception e) {
             log.error("[IMAGE] generate image failed, use glif to generate image", e);
             throw new RetryException(e.getMessage());
@@ -62,6 +63,7 @@ public class ImageGenerateService {
             lowCardinalityKeyValues = {"Tag", "image"})
     @Recover
     public String recover(RetryException e, String prompt, ThemeEnum themeEnum) {
-        return glifImageGenerator.generateImage(prompt);
+        // 请求已取消时 interruptibly 直接抛出，不再使用备用生成器
+        return CancellationToken.interruptibly(() -> glifImageGenerator.generateImage(prompt));
     }
 }
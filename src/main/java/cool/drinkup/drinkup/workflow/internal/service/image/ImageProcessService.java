@@ -52,9 +52,24 @@ public class ImageProcessService implements ImageProcessServiceFacade {
     @Override
     public String removeBackgroundReturnImageId(String imageUrl) {
         byte[] imageBytes = imageService.downloadImageWithRetry(imageUrl);
+        return removeBackgroundReturnImageId(imageBytes);
+    }
+
+    /**
+     * 对已下载的图片移除背景并返回图片ID，供已持有图片数据的调用方避免重复下载
+     * @param imageBytes 图片数据
+     * @return imageId   图片ID
+     */
+    @Observed(
+            name = "image.removeBackground",
+            contextualName = "移除图片背景",
+            lowCardinalityKeyValues = {
+                "Tag", "image",
+                "Server", "imageProcessor"
+            })
+    public String removeBackgroundReturnImageId(byte[] imageBytes) {
         String imageBase64 = java.util.Base64.getEncoder().encodeToString(imageBytes);
         String processedImageBase64 = imageProcessor.removeBackground(imageBase64);
-        String processedImageId = imageService.storeImageBase64(processedImageBase64);
-        return processedImageId;
+        return imageService.storeImageBase64(processedImageBase64);
     }
 }
@@ -6,10 +6,8 @@ import cool.drinkup.drinkup.workflow.internal.controller.bar.req.BarStockCreateR
 import cool.drinkup.drinkup.workflow.internal.controller.bar.req.BarStockCreateReq.InnerBarStockCreateReq;
 import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
 import cool.drinkup.drinkup.workflow.internal.model.BarStock;
-import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
-import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
-import cool.drinkup.drinkup.workflow.internal.util.ContentTypeUtil;
-import jakarta.annotation.PostConstruct;
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
@@ -36,10 +34,9 @@ public class ImageRecognitionService {
     private final ChatModel chatModel;
 
     private final ObjectMapper objectMapper;
-    private final ImageService imageService;
-    private final ContentTypeUtil contentTypeUtil;
-    private final PromptRepository promptRepository;
-    private String promptTemplate;
+    private final ImageAttachmentLoader imageAttachmentLoader;
+    private final ImageFormatDetector imageFormatDetector;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
     @Value("${drinkup.image.recognition.model:google/gemini-2.0-flash-001}")
     private String model;
@@ -47,29 +44,25 @@ public class ImageRecognitionService {
     public ImageRecognitionService(
             @Qualifier("openAiChatModel") ChatModel chatModel,
             ObjectMapper objectMapper,
-            ImageService imageService,
-            ContentTypeUtil contentTypeUtil,
-            PromptRepository promptRepository) {
-        this.chatModel = chatModel;
+            ImageAttachmentLoader imageAttachmentLoader,
+            ImageFormatDetector imageFormatDetector,
+            WorkflowConfigRegistry workflowConfigRegistry,
+            ChatModelConcurrencyLimiters chatModelConcurrencyLimiters) {
+        this.chatModel = chatModelConcurrencyLimiters.wrap(chatModel);
         this.objectMapper = objectMapper;
-        this.imageService = imageService;
-        this.contentTypeUtil = contentTypeUtil;
-        this.promptRepository = promptRepository;
-    }
-
-    @PostConstruct
-    public void init() {
-        PromptContent prompt = promptRepository.findByType(PromptTypeEnum.IMAGE_RECOGNITION.name());
-        if (prompt == null) {
-            return;
-        }
-        this.promptTemplate = prompt.getSystemPrompt();
+        this.imageAttachmentLoader = imageAttachmentLoader;
+        this.imageFormatDetector = imageFormatDetector;
+        this.workflowConfigRegistry = workflowConfigRegistry;
     }
 
+    /**
+     * 流式识别结果：未结束时 text 为文本增量，barStocks 为本次新识别出的库存；结束时 barStocks 为完整列表
+     */
     public record StreamBarStockResult(boolean isDone, String text, List<BarStock> barStocks) {}
 
     public Flux<StreamBarStockResult> recognizeStockFromImageStream(String imageId) {
         try {
+            String promptTemplate = workflowConfigRegistry.getPrompt(PromptTypeEnum.IMAGE_RECOGNITION);
             if (promptTemplate == null || promptTemplate.trim().isEmpty()) {
                 log.error("Prompt template is not initialized");
                 return Flux.just(new StreamBarStockResult(true, "Error: Prompt template not found", new ArrayList<>()));
@@ -77,8 +70,8 @@ public class ImageRecognitionService {
 
             List<Message> messages = new ArrayList<>();
             messages.add(new SystemMessage(promptTemplate));
-            Resource image = imageService.loadImage(imageId);
-            String mimeType = contentTypeUtil.detectMimeType(image).toString();
+            Resource image = imageAttachmentLoader.load(imageId);
+            String mimeType = imageFormatDetector.detectMimeType(imageId, image);
             UserMessage userMessage = UserMessage.builder()
                     .text("这是原料图片，请开始识别")
                     .media(List.of(new Media(MimeType.valueOf(mimeType), image)))
@@ -86,57 +79,18 @@ public class ImageRecognitionService {
             messages.add(userMessage);
             Prompt prompt = new Prompt(messages);
 
-            // 创建一个共享的flux来避免重复调用AI模型
-            Flux<ChatResponse> sharedResponseFlux = chatModel.stream(prompt).share();
-
-            // 获取流式的中间结果
-            Flux<StreamBarStockResult> streamingResults = sharedResponseFlux
-                    .scan(new StringBuilder(), (acc, chatResponse) -> {
-                        // 提取当前chunk的文本并累积
-                        if (chatResponse.getResult() != null
-                                && chatResponse.getResult().getOutput() != null) {
-                            String text = chatResponse.getResult().getOutput().getText();
-                            if (text != null && !text.isEmpty()) {
-                                acc.append(text);
-                            }
-                        }
-                        return acc;
-                    })
-                    .skip(1) // 跳过初始的空StringBuilder
-                    .map(accumulatedText -> {
-                        // 返回实时的累积结果，isDone=false表示还在streaming
-                        return new StreamBarStockResult(false, accumulatedText.toString(), null);
-                    });
-
-            // 获取最终结果
-            Mono<StreamBarStockResult> finalResult = sharedResponseFlux
-                    .reduce(new StringBuilder(), (acc, chatResponse) -> {
-                        if (chatResponse.getResult() != null
-                                && chatResponse.getResult().getOutput() != null) {
-                            String text = chatResponse.getResult().getOutput().getText();
-                            if (text != null) {
-                                acc.append(text);
-                            }
-                        }
-                        return acc;
-                    })
-                    .map(fullText -> {
-                        List<BarStock> barStocks = parseRecognitionResponse(fullText.toString());
-                        return new StreamBarStockResult(true, fullText.toString(), barStocks);
-                    });
-
-            // 合并流式结果和最终结果
-            return streamingResults
-                    .concatWith(finalResult)
+            return Flux.defer(() -> streamRecognition(prompt))
                     .doOnNext(result -> {
-                        if (!result.isDone()) {
-                            log.debug("Streaming text length: {}", result.text().length());
-                        } else {
+                        if (result.isDone()) {
                             log.info(
                                     "Stream completed with {} recognized stocks",
                                     result.barStocks() != null
                                             ? result.barStocks().size()
                                             : 0);
+                        } else if (result.barStocks() != null) {
+                            log.debug(
+                                    "Streamed {} recognized stocks",
+                                    result.barStocks().size());
                         }
                     })
                     .doOnError(e -> log.error("Error processing image for stock recognition stream", e))
@@ -150,13 +104,42 @@ public class ImageRecognitionService {
         }
     }
 
+    private Flux<StreamBarStockResult> streamRecognition(Prompt prompt) {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+        StringBuilder fullText = new StringBuilder();
+        List<BarStock> recognized = new ArrayList<>();
+
+        // 每个 chunk 只发送文本增量，以及本次 chunk 中闭合的库存条目
+        Flux<StreamBarStockResult> streamingResults = chatModel.stream(prompt)
+                .map(ImageRecognitionService::textOf)
+                .filter(text -> !text.isEmpty())
+                .map(delta -> {
+                    fullText.append(delta);
+                    List<BarStock> barStocks = new ArrayList<>();
+                    for (String element : parser.feed(delta)) {
+                        BarStock barStock = parseStockElement(element);
+                        if (barStock != null) {
+                            barStocks.add(barStock);
+                        }
+                    }
+                    recognized.addAll(barStocks);
+                    return new StreamBarStockResult(false, delta, barStocks.isEmpty() ? null : barStocks);
+                });
+
+        // 结束时返回完整的库存列表；增量解析没有结果时按完整文本再解析一次
+        Mono<StreamBarStockResult> finalResult = Mono.fromSupplier(() -> new StreamBarStockResult(
+                true, null, recognized.isEmpty() ? parseRecognitionResponse(fullText.toString()) : recognized));
+
+        return streamingResults.concatWith(finalResult);
+    }
+
     public List<BarStock> recognizeStockFromImage(String imageId) {
         try {
 
             List<Message> messages = new ArrayList<>();
-            messages.add(new SystemMessage(promptTemplate));
-            Resource image = imageService.loadImage(imageId);
-            String mimeType = contentTypeUtil.detectMimeType(image).toString();
+            messages.add(new SystemMessage(workflowConfigRegistry.getPrompt(PromptTypeEnum.IMAGE_RECOGNITION)));
+            Resource image = imageAttachmentLoader.load(imageId);
+            String mimeType = imageFormatDetector.detectMimeType(imageId, image);
             UserMessage userMessage = UserMessage.builder()
                     .text("这是原料图片，请开始识别")
                     .media(List.of(new Media(MimeType.valueOf(mimeType), image)))
@@ -188,13 +171,7 @@ public class ImageRecognitionService {
             // Convert to BarStock objects
             List<BarStock> barStocks = new ArrayList<>();
             for (InnerBarStockCreateReq item : stockItems) {
-                BarStock stock = new BarStock();
-                stock.setName(item.getName());
-                stock.setNameEn(item.getNameEn());
-                stock.setType(item.getType());
-                stock.setIconType(item.getIconType());
-                stock.setDescription(item.getDescription());
-                barStocks.add(stock);
+                barStocks.add(toBarStock(item));
             }
 
             return barStocks;
@@ -204,6 +181,33 @@ public class ImageRecognitionService {
         }
     }
 
+    private BarStock parseStockElement(String json) {
+        try {
+            return toBarStock(objectMapper.readValue(json, InnerBarStockCreateReq.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unparseable stock item: {}", json, e);
+            return null;
+        }
+    }
+
+    private static BarStock toBarStock(InnerBarStockCreateReq item) {
+        BarStock stock = new BarStock();
+        stock.setName(item.getName());
+        stock.setNameEn(item.getNameEn());
+        stock.setType(item.getType());
+        stock.setIconType(item.getIconType());
+        stock.setDescription(item.getDescription());
+        return stock;
+    }
+
+    private static String textOf(ChatResponse chatResponse) {
+        if (chatResponse.getResult() == null || chatResponse.getResult().getOutput() == null) {
+            return "";
+        }
+        String text = chatResponse.getResult().getOutput().getText();
+        return text == null ? "" : text;
+    }
+
     private String extractJsonContent(String response) {
         if (response == null || response.trim().isEmpty()) {
             return "{\"bar_stocks\":[]}";
@@ -27,6 +27,7 @@ public class ImageService implements ImageServiceFacade {
     private final S3Client s3Client;
     private final ImageCompressor imageCompressor;
     private final ImageMetadataProcessor imageMetadataProcessor;
+    private final ImageFormatDetector imageFormatDetector;
 
     private final RestClient restClient;
     private static String prefix = "images/";
@@ -41,10 +42,14 @@ public class ImageService implements ImageServiceFacade {
     private String bucket;
 
     public ImageService(
-            S3Client s3Client, ImageCompressor imageCompressor, ImageMetadataProcessor imageMetadataProcessor) {
+            S3Client s3Client,
+            ImageCompressor imageCompressor,
+            ImageMetadataProcessor imageMetadataProcessor,
+            ImageFormatDetector imageFormatDetector) {
         this.s3Client = s3Client;
         this.imageCompressor = imageCompressor;
         this.imageMetadataProcessor = imageMetadataProcessor;
+        this.imageFormatDetector = imageFormatDetector;
 
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
         factory.setConnectTimeout(30000); // 30 seconds
@@ -69,6 +74,16 @@ public class ImageService implements ImageServiceFacade {
                 extension = originalFilename.substring(originalFilename.lastIndexOf("."));
             }
 
+            // 按文件头识别格式，客户端声明的类型只作为兜底
+            ImageFormat format;
+            try (var inputStream = file.getInputStream()) {
+                format = imageFormatDetector.detect(inputStream);
+            }
+            String contentType = format != null ? format.getMimeType() : file.getContentType();
+            if (extension.isEmpty() && format != null) {
+                extension = format.getExtension();
+            }
+
             // Create the final filename with ID
             String filename = imageId + extension;
             String key = prefix + filename;
@@ -77,7 +92,7 @@ public class ImageService implements ImageServiceFacade {
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
-                    .contentType(file.getContentType())
+                    .contentType(contentType)
                     .build();
 
             s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
@@ -93,8 +108,13 @@ public class ImageService implements ImageServiceFacade {
     public String storeImage(String imageUrl) {
         log.info("Storing image from URL: {}", imageUrl);
         byte[] imageBytes = downloadImageWithRetry(imageUrl);
+        return storeImageBytes(imageBytes, extensionOf(imageUrl));
+    }
 
-        // Extract extension from original URL
+    /**
+     * 从图片URL路径中提取扩展名，缺省为 .jpg
+     */
+    public String extensionOf(String imageUrl) {
         String extension = ".jpg"; // Default extension
         if (imageUrl.contains(".")) {
             String urlPath = URI.create(imageUrl).getPath();
@@ -103,7 +123,16 @@ public class ImageService implements ImageServiceFacade {
                 extension = urlPath.substring(lastDotIndex);
             }
         }
+        return extension;
+    }
 
+    /**
+     * 存储已下载的图片数据，添加默认元数据
+     * @param imageBytes 图片数据
+     * @param extension 扩展名，如 .png
+     * @return 图片ID
+     */
+    public String storeImageBytes(byte[] imageBytes, String extension) {
         String imageId = UUID.randomUUID().toString();
         String filename = imageId + extension;
         String key = prefix + filename;
@@ -123,7 +152,7 @@ public class ImageService implements ImageServiceFacade {
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
-                    .contentType(getContentTypeFromExtension(extension))
+                    .contentType(contentTypeOf(imageBytes, extension))
                     .build();
 
             s3Client.putObject(
@@ -138,7 +167,7 @@ public class ImageService implements ImageServiceFacade {
                     key);
             return filename;
         } catch (Exception e) {
-            log.error("Failed to store image from URL: {}", imageUrl, e);
+            log.error("Failed to store image with key: {}", key, e);
             throw new RuntimeException("Failed to store image: " + e.getMessage(), e);
         }
     }
@@ -148,8 +177,8 @@ public class ImageService implements ImageServiceFacade {
         String imageId = UUID.randomUUID().toString();
 
         // 检测图片格式并获取相应的扩展名和内容类型
-        ImageFormatInfo formatInfo = detectImageFormatFromBase64(imageBase64);
-        String filename = imageId + formatInfo.extension;
+        ImageFormat format = detectImageFormatFromBase64(imageBase64);
+        String filename = imageId + format.getExtension();
         String key = prefix + filename;
 
         try {
@@ -170,7 +199,7 @@ public class ImageService implements ImageServiceFacade {
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
-                    .contentType(formatInfo.contentType)
+                    .contentType(format.getMimeType())
                     .build();
 
             s3Client.putObject(
@@ -190,74 +219,18 @@ public class ImageService implements ImageServiceFacade {
         }
     }
 
-    private ImageFormatInfo detectImageFormatFromBase64(String imageBase64) {
+    private ImageFormat detectImageFormatFromBase64(String imageBase64) {
         try {
             byte[] imageBytes = java.util.Base64.getDecoder().decode(imageBase64);
-            return detectImageFormat(imageBytes);
+            ImageFormat format = imageFormatDetector.detect(imageBytes);
+            if (format != null) {
+                return format;
+            }
+            log.warn("Unknown image format, using default JPEG format");
         } catch (Exception e) {
             log.warn("Failed to detect image format from base64, using default JPEG format", e);
-            return new ImageFormatInfo(".jpg", "image/jpeg");
-        }
-    }
-
-    private ImageFormatInfo detectImageFormat(byte[] imageBytes) {
-        if (imageBytes.length < 8) {
-            return new ImageFormatInfo(".jpg", "image/jpeg");
-        }
-
-        // JPEG: FF D8 FF
-        if (imageBytes[0] == (byte) 0xFF && imageBytes[1] == (byte) 0xD8 && imageBytes[2] == (byte) 0xFF) {
-            return new ImageFormatInfo(".jpg", "image/jpeg");
-        }
-
-        // PNG: 89 50 4E 47 0D 0A 1A 0A
-        if (imageBytes[0] == (byte) 0x89
-                && imageBytes[1] == 0x50
-                && imageBytes[2] == 0x4E
-                && imageBytes[3] == 0x47
-                && imageBytes[4] == 0x0D
-                && imageBytes[5] == 0x0A
-                && imageBytes[6] == 0x1A
-                && imageBytes[7] == 0x0A) {
-            return new ImageFormatInfo(".png", "image/png");
-        }
-
-        // GIF: 47 49 46 38 (GIF8)
-        if (imageBytes[0] == 0x47 && imageBytes[1] == 0x49 && imageBytes[2] == 0x46 && imageBytes[3] == 0x38) {
-            return new ImageFormatInfo(".gif", "image/gif");
-        }
-
-        // WebP: 52 49 46 46 ... 57 45 42 50 (RIFF...WEBP)
-        if (imageBytes.length >= 12
-                && imageBytes[0] == 0x52
-                && imageBytes[1] == 0x49
-                && imageBytes[2] == 0x46
-                && imageBytes[3] == 0x46
-                && imageBytes[8] == 0x57
-                && imageBytes[9] == 0x45
-                && imageBytes[10] == 0x42
-                && imageBytes[11] == 0x50) {
-            return new ImageFormatInfo(".webp", "image/webp");
-        }
-
-        // BMP: 42 4D
-        if (imageBytes[0] == 0x42 && imageBytes[1] == 0x4D) {
-            return new ImageFormatInfo(".bmp", "image/bmp");
-        }
-
-        // 默认返回 JPEG
-        log.warn("Unknown image format, using default JPEG format");
-        return new ImageFormatInfo(".jpg", "image/jpeg");
-    }
-
-    private static class ImageFormatInfo {
-        final String extension;
-        final String contentType;
-
-        ImageFormatInfo(String extension, String contentType) {
-            this.extension = extension;
-            this.contentType = contentType;
         }
+        return ImageFormat.JPEG;
     }
 
     public byte[] downloadImageWithRetry(String imageUrl) {
@@ -302,6 +275,11 @@ public class ImageService implements ImageServiceFacade {
         throw new RuntimeException("Failed to download image after retries");
     }
 
+    private String contentTypeOf(byte[] imageBytes, String extension) {
+        ImageFormat format = imageFormatDetector.detect(imageBytes);
+        return format != null ? format.getMimeType() : getContentTypeFromExtension(extension);
+    }
+
     private String getContentTypeFromExtension(String extension) {
         return switch (extension.toLowerCase()) {
             case ".jpg", ".jpeg" -> "image/jpeg";
@@ -315,12 +293,19 @@ public class ImageService implements ImageServiceFacade {
     }
 
     public Resource loadImage(String imageId) {
+        return new ByteArrayResource(loadImageBytes(imageId));
+    }
+
+    /**
+     * 通过 imgproxy 下载压缩后的图片
+     */
+    public byte[] loadImageBytes(String imageId) {
         String imageUrl = getInternalImageUrl(imageId);
         String compressedImageUrl = imageCompressor.compress(imageUrl);
         try {
             byte[] imageBytes = downloadImageWithRetry(compressedImageUrl);
             log.info("Successfully loaded image: {}", imageId);
-            return new ByteArrayResource(imageBytes);
+            return imageBytes;
         } catch (Exception e) {
             log.error("Failed to load image: {}", imageId, e);
             throw new RuntimeException("Failed to load image: " + e.getMessage(), e);
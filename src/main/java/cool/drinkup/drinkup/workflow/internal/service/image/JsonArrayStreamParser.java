@@ -0,0 +1,91 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量解析模型输出中的 JSON 数组，每个对象元素闭合时立即返回其 JSON 文本
+ * 数组可以是顶层数组，也可以是对象中的字段值（如 {"bar_stocks": [...]}），前后的代码块标记等文本会被忽略；
+ * 不包含对象元素的数组会被跳过，继续寻找下一个数组
+ */
+final class JsonArrayStreamParser {
+
+    private final StringBuilder current = new StringBuilder();
+    private int depth;
+
+    /**
+     * 目标数组内部的嵌套深度，-1 表示尚未找到数组
+     */
+    private int arrayDepth = -1;
+
+    private boolean capturing;
+    private boolean inString;
+    private boolean escaped;
+    private boolean emitted;
+    private boolean finished;
+
+    /**
+     * 追加一段模型输出
+     * @return 本段输出中闭合的数组元素
+     */
+    List<String> feed(CharSequence chunk) {
+        List<String> elements = null;
+        for (int i = 0; i < chunk.length() && !finished; i++) {
+            char c = chunk.charAt(i);
+            if (capturing) {
+                current.append(c);
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    if (arrayDepth < 0) {
+                        depth++;
+                        if (c == '[') {
+                            arrayDepth = depth;
+                        }
+                    } else {
+                        if (depth == arrayDepth && c == '{') {
+                            capturing = true;
+                            current.setLength(0);
+                            current.append(c);
+                        }
+                        depth++;
+                    }
+                }
+                case '}', ']' -> {
+                    depth = Math.max(0, depth - 1);
+                    if (arrayDepth < 0) {
+                        break;
+                    }
+                    if (capturing && depth == arrayDepth) {
+                        capturing = false;
+                        emitted = true;
+                        if (elements == null) {
+                            elements = new ArrayList<>();
+                        }
+                        elements.add(current.toString());
+                    } else if (depth < arrayDepth) {
+                        // 目标数组结束
+                        if (emitted) {
+                            finished = true;
+                        } else {
+                            arrayDepth = -1;
+                        }
+                    }
+                }
+                default -> {}
+            }
+        }
+        return elements == null ? List.of() : elements;
+    }
+}
@@ -0,0 +1,229 @@
+package cool.drinkup.drinkup.workflow.internal.service.llmcache;
+
+import cool.drinkup.drinkup.shared.spi.SingleFlight;
+import cool.drinkup.drinkup.workflow.internal.config.LlmResultCacheProperties;
+import cool.drinkup.drinkup.workflow.internal.model.LlmResultCacheEntry;
+import cool.drinkup.drinkup.workflow.internal.repository.LlmResultCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 大模型结果缓存：Redis + 数据库两级，按任务、模型、提示词内容摘要和归一化输入寻址
+ * 提示词内容参与寻址，修改提示词后自动不再命中旧结果；只缓存成功结果
+ */
+@Slf4j
+@Component
+public class LlmResultCache {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final LlmResultCacheRepository llmResultCacheRepository;
+    private final LlmResultCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight<String, String> singleFlight;
+
+    public LlmResultCache(
+            RedisTemplate<String, String> redisTemplate,
+            LlmResultCacheRepository llmResultCacheRepository,
+            LlmResultCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.llmResultCacheRepository = llmResultCacheRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.singleFlight = new SingleFlight<>("llm-result", properties.getCoalesceTimeout(), meterRegistry);
+    }
+
+    private Counter cacheCounter(String task, String tier, String result) {
+        return Counter.builder("drinkup.llm.cache")
+                .tag("task", task)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 命中缓存时直接返回，否则调用模型并写入缓存；compute 抛出异常或返回空时不缓存
+     * @param task 任务名，如 translate，用于统计和按任务清理
+     */
+    public String getOrCompute(String task, String model, String prompt, String input, Supplier<String> compute) {
+        if (input == null) {
+            return compute.get();
+        }
+        CacheKey key = CacheKey.of(task, model, prompt, input);
+        if (properties.isEnabled()) {
+            String result = get(key);
+            if (result != null) {
+                return result;
+            }
+        }
+        // 相同输入的并发请求只调用一次模型
+        return singleFlight.execute(key.cacheKey(), () -> {
+            String result = compute.get();
+            if (properties.isEnabled()) {
+                put(key, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 只查询缓存，用于批量调用时先过滤已缓存的输入
+     * @return 未命中时返回 null
+     */
+    public String get(String task, String model, String prompt, String input) {
+        if (!properties.isEnabled() || input == null) {
+            return null;
+        }
+        return get(CacheKey.of(task, model, prompt, input));
+    }
+
+    public void put(String task, String model, String prompt, String input, String result) {
+        if (properties.isEnabled() && input != null) {
+            put(CacheKey.of(task, model, prompt, input), result);
+        }
+    }
+
+    private String get(CacheKey key) {
+        String redisKey = redisKey(key.task(), key.cacheKey());
+        String result = getFromRedis(redisKey);
+        if (result != null) {
+            cacheCounter(key.task(), "redis", "hit").increment();
+            return result;
+        }
+
+        if (properties.isPersistent()) {
+            result = getFromDb(key.cacheKey());
+            if (result != null) {
+                cacheCounter(key.task(), "db", "hit").increment();
+                putToRedis(redisKey, result);
+                return result;
+            }
+        }
+
+        cacheCounter(key.task(), "none", "miss").increment();
+        return null;
+    }
+
+    private void put(CacheKey key, String result) {
+        if (!StringUtils.hasText(result)) {
+            return;
+        }
+        putToRedis(redisKey(key.task(), key.cacheKey()), result);
+        if (properties.isPersistent()) {
+            putToDb(key, result);
+        }
+    }
+
+    private record CacheKey(String task, String model, String promptHash, String input, String cacheKey) {
+
+        static CacheKey of(String task, String model, String prompt, String input) {
+            String promptHash = sha256(prompt == null ? "" : prompt);
+            String normalized = normalize(input);
+            String cacheKey = sha256(task + "\n" + model + "\n" + promptHash + "\n" + normalized);
+            return new CacheKey(task, model, promptHash, normalized, cacheKey);
+        }
+    }
+
+    /**
+     * 清理缓存
+     * @param task 为空时清理全部任务
+     * @return 删除的数据库记录数
+     */
+    public int purge(String task) {
+        String pattern = properties.getRedisKeyPrefix() + (StringUtils.hasText(task) ? task + ":" : "") + "*";
+        Set<String> keys = new HashSet<>();
+        try (var cursor = redisTemplate.scan(
+                ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        int deleted = StringUtils.hasText(task)
+                ? llmResultCacheRepository.deleteByTask(task)
+                : llmResultCacheRepository.deleteAllEntries();
+        log.info("Purged llm result cache for task {}: {} redis keys, {} db rows", task, keys.size(), deleted);
+        return deleted;
+    }
+
+    /**
+     * 去除首尾空白、合并连续空白并做 NFKC 归一化，不改变大小写
+     */
+    static String normalize(String input) {
+        return Normalizer.normalize(input, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+    }
+
+    private String redisKey(String task, String cacheKey) {
+        return properties.getRedisKeyPrefix() + task + ":" + cacheKey;
+    }
+
+    private String getFromRedis(String redisKey) {
+        try {
+            return redisTemplate.opsForValue().get(redisKey);
+        } catch (Exception e) {
+            log.warn("Failed to read llm result from redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String redisKey, String result) {
+        try {
+            redisTemplate.opsForValue().set(redisKey, result, properties.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("Failed to write llm result to redis: {}", e.getMessage());
+        }
+    }
+
+    private String getFromDb(String cacheKey) {
+        try {
+            return llmResultCacheRepository
+                    .findByCacheKey(cacheKey)
+                    .map(LlmResultCacheEntry::getResult)
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("Failed to read llm result from db: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToDb(CacheKey key, String result) {
+        LlmResultCacheEntry entry = new LlmResultCacheEntry();
+        entry.setCacheKey(key.cacheKey());
+        entry.setTask(key.task());
+        entry.setModel(key.model());
+        entry.setPromptHash(key.promptHash());
+        entry.setInput(key.input());
+        entry.setResult(result);
+        try {
+            llmResultCacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // 其他请求已写入相同结果
+            log.debug("Llm result already cached: {}", key.cacheKey());
+        } catch (Exception e) {
+            log.warn("Failed to write llm result to db: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,10 +2,9 @@ package cool.drinkup.drinkup.workflow.internal.service.material.impl;
 
 import cool.drinkup.drinkup.workflow.internal.config.AIMaterialAnalysisProperties;
 import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
-import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
-import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.llmcache.LlmResultCache;
 import cool.drinkup.drinkup.workflow.internal.service.material.MaterialAnalysisService;
-import jakarta.annotation.PostConstruct;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.messages.SystemMessage;
@@ -19,33 +18,34 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class AIMaterialAnalysisService implements MaterialAnalysisService {
 
+    private static final String TASK = "material-analysis";
+
     private final ChatModel materialAnalysisChatModel;
 
     private final AIMaterialAnalysisProperties aiMaterialAnalysisProperties;
 
-    private final PromptRepository promptRepository;
-
-    private String promptTemplate;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
-    @PostConstruct
-    public void init() {
-        PromptContent prompt = promptRepository.findByType(PromptTypeEnum.MATERIAL_ANALYSIS.name());
-        if (prompt == null) {
-            return;
-        }
-        this.promptTemplate = prompt.getSystemPrompt();
-    }
+    private final LlmResultCache llmResultCache;
 
     @Override
     public MaterialAnalysisResult analyzeMaterial(String materialText) {
-        Prompt prompt = buildPrompt(materialText);
-        var response = materialAnalysisChatModel.call(prompt);
-        String description = response.getResult().getOutput().getText();
+        String systemPrompt = workflowConfigRegistry.getPrompt(PromptTypeEnum.MATERIAL_ANALYSIS);
+        Prompt prompt = buildPrompt(systemPrompt, materialText);
+        String description = llmResultCache.getOrCompute(
+                TASK,
+                aiMaterialAnalysisProperties.getModel(),
+                systemPrompt,
+                materialText,
+                () -> materialAnalysisChatModel
+                        .call(prompt)
+                        .getResult()
+                        .getOutput()
+                        .getText());
         return new MaterialAnalysisResult(description);
     }
 
-    private Prompt buildPrompt(String materialText) {
-        String systemPrompt = promptTemplate;
+    private Prompt buildPrompt(String systemPrompt, String materialText) {
         var systemMessage = new SystemMessage(systemPrompt);
         var userMessage = new UserMessage("现在介绍一下: " + materialText);
         return new Prompt(
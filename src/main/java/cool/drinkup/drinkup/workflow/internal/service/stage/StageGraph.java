@@ -0,0 +1,169 @@
+package cool.drinkup.drinkup.workflow.internal.service.stage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按依赖关系执行的阶段图
+ * 每个阶段在依赖全部完成后于虚拟线程中执行，互不依赖的阶段并行；任一阶段失败或超时时中断其余阶段并抛出首个异常
+ * 阶段只能依赖先于它添加的阶段，因此图中不会出现环
+ */
+@Slf4j
+public final class StageGraph {
+
+    private final String name;
+    private final List<Stage<?>> stages = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * 外部取消时不中断阶段线程，由阶段自身在可中断区域内响应取消
+     */
+    private volatile boolean cancelled;
+
+    public StageGraph(String name) {
+        this.name = name;
+    }
+
+    public <T> Stage<T> stage(String stageName, Duration timeout, Callable<T> task, Stage<?>... dependsOn) {
+        for (Stage<?> dependency : dependsOn) {
+            if (!stages.contains(dependency)) {
+                throw new IllegalArgumentException(
+                        "Stage " + stageName + " depends on unknown stage " + dependency.name);
+            }
+        }
+        Stage<T> stage = new Stage<>(stageName, timeout, task, List.of(dependsOn));
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * 执行全部阶段并等待完成，只能调用一次
+     */
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (Stage<?> stage : stages) {
+                executor.execute(() -> runStage(stage, executor));
+            }
+            CompletableFuture.allOf(stages.stream().map(stage -> stage.result).toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new CancellationException("Stage graph " + name + " interrupted"));
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } finally {
+            // 不等待忽略中断的阶段结束，失败时尽快返回；外部取消时让正在执行的阶段自行结束
+            if (cancelled) {
+                executor.shutdown();
+            } else {
+                executor.shutdownNow();
+            }
+        }
+
+        Throwable cause = failure.get();
+        if (cause != null) {
+            log.warn(
+                    "Stage graph {} failed after {} ms: {}",
+                    name,
+                    System.currentTimeMillis() - startTime,
+                    cause.getMessage());
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Stage graph " + name + " failed: " + cause.getMessage(), cause);
+        }
+        log.info("Stage graph {} completed in {} ms", name, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 外部取消，使 {@link #run()} 立即抛出 CancellationException，尚未开始的阶段不再执行
+     * 正在执行的阶段不会被中断，避免打断数据库写入或上传；需要及时停止的操作应通过取消令牌的可中断区域响应
+     */
+    public void cancel(String reason) {
+        cancelled = true;
+        fail(new CancellationException("Stage graph " + name + " cancelled: " + reason));
+    }
+
+    private <T> void runStage(Stage<T> stage, ExecutorService executor) {
+        try {
+            for (Stage<?> dependency : stage.dependsOn) {
+                dependency.result.join();
+            }
+            if (failure.get() != null) {
+                stage.result.cancel(false);
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            Future<T> running = executor.submit(stage.task);
+            stage.running = running;
+            if (failure.get() != null) {
+                running.cancel(!cancelled);
+            }
+            T value = running.get(stage.timeout.toMillis(), TimeUnit.MILLISECONDS);
+            stage.result.complete(value);
+            log.debug("Stage {}/{} completed in {} ms", name, stage.name, System.currentTimeMillis() - startTime);
+        } catch (TimeoutException e) {
+            fail(new RuntimeException(
+                    "Stage " + name + "/" + stage.name + " timed out after " + stage.timeout.toMillis() + " ms"));
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stage.result.cancel(false);
+        } catch (RuntimeException e) {
+            // 依赖失败或阶段已被取消
+            stage.result.cancel(false);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (!failure.compareAndSet(null, cause)) {
+            return;
+        }
+        for (Stage<?> stage : stages) {
+            Future<?> running = stage.running;
+            if (running != null) {
+                running.cancel(!cancelled);
+            }
+            stage.result.cancel(false);
+        }
+    }
+
+    public static final class Stage<T> {
+        private final String name;
+        private final Duration timeout;
+        private final Callable<T> task;
+        private final List<Stage<?>> dependsOn;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Future<T> running;
+
+        private Stage(String name, Duration timeout, Callable<T> task, List<Stage<?>> dependsOn) {
+            this.name = name;
+            this.timeout = timeout;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+
+        /**
+         * 阶段结果，在依赖该阶段的任务中或 {@link StageGraph#run()} 返回后调用
+         */
+        public T get() {
+            return result.join();
+        }
+    }
+}
@@ -2,8 +2,10 @@ package cool.drinkup.drinkup.workflow.internal.service.theme.impl;
 
 import cool.drinkup.drinkup.shared.enums.CardStyleEnum;
 import cool.drinkup.drinkup.shared.enums.ThemeEnum;
-import cool.drinkup.drinkup.workflow.internal.repository.ThemeSettingsRepository;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry.ThemeConfig;
 import cool.drinkup.drinkup.workflow.internal.service.theme.Theme;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -13,9 +15,13 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class CyberWorkTheme implements Theme {
 
+    private static final CardStyleEnum[] WORKER_STYLES = {
+        CardStyleEnum.WORKER_1, CardStyleEnum.WORKER_2, CardStyleEnum.WORKER_3
+    };
+
     private final ThemeEnum type = ThemeEnum.CYBER_WORK;
 
-    private final ThemeSettingsRepository themeSettingsRepository;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
     @Override
     public String getName() {
@@ -24,32 +30,26 @@ public class CyberWorkTheme implements Theme {
 
     @Override
     public String getThemeContent() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getThemeContent();
+        return themeSettings().themeContent();
     }
 
     @Override
     public String getThemeImageConfig() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getImageConfig();
+        return themeSettings().imageConfig();
     }
 
     @Override
     public String getImagePrompt() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getImagePrompt();
+        return themeSettings().imagePrompt();
     }
 
     @Override
     public CardStyleEnum getCardStyle() {
         // CyberWork主题对应的卡片样式
-        CardStyleEnum[] workerStyles = {CardStyleEnum.WORKER_1, CardStyleEnum.WORKER_2, CardStyleEnum.WORKER_3};
-        return workerStyles[new java.security.SecureRandom().nextInt(workerStyles.length)];
+        return WORKER_STYLES[ThreadLocalRandom.current().nextInt(WORKER_STYLES.length)];
+    }
+
+    private ThemeConfig themeSettings() {
+        return workflowConfigRegistry.getTheme(this.type).orElseThrow(() -> new RuntimeException("Theme not found"));
     }
 }
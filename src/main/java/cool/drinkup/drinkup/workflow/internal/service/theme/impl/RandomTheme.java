@@ -2,8 +2,10 @@ package cool.drinkup.drinkup.workflow.internal.service.theme.impl;
 
 import cool.drinkup.drinkup.shared.enums.CardStyleEnum;
 import cool.drinkup.drinkup.shared.enums.ThemeEnum;
-import cool.drinkup.drinkup.workflow.internal.repository.ThemeSettingsRepository;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry.ThemeConfig;
 import cool.drinkup.drinkup.workflow.internal.service.theme.Theme;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -13,9 +15,11 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class RandomTheme implements Theme {
 
+    private static final CardStyleEnum[] ZERO_CARD_STYLES = {CardStyleEnum.ZERO_1, CardStyleEnum.ZERO_2};
+
     private final ThemeEnum type = ThemeEnum.RANDOM;
 
-    private final ThemeSettingsRepository themeSettingsRepository;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
     @Override
     public String getName() {
@@ -24,31 +28,25 @@ public class RandomTheme implements Theme {
 
     @Override
     public String getThemeContent() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getThemeContent();
+        return themeSettings().themeContent();
     }
 
     @Override
     public String getThemeImageConfig() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getImageConfig();
+        return themeSettings().imageConfig();
     }
 
     @Override
     public String getImagePrompt() {
-        var themeSettings = themeSettingsRepository
-                .findByType(this.type)
-                .orElseThrow(() -> new RuntimeException("Theme not found"));
-        return themeSettings.getImagePrompt();
+        return themeSettings().imagePrompt();
     }
 
     @Override
     public CardStyleEnum getCardStyle() {
-        CardStyleEnum[] zeroCardStyles = {CardStyleEnum.ZERO_1, CardStyleEnum.ZERO_2};
-        return zeroCardStyles[new java.security.SecureRandom().nextInt(zeroCardStyles.length)];
+        return ZERO_CARD_STYLES[ThreadLocalRandom.current().nextInt(ZERO_CARD_STYLES.length)];
+    }
+
+    private ThemeConfig themeSettings() {
+        return workflowConfigRegistry.getTheme(this.type).orElseThrow(() -> new RuntimeException("Theme not found"));
     }
 }
@@ -1,6 +1,18 @@
 package cool.drinkup.drinkup.workflow.internal.service.translate;
 
+import java.util.List;
+
 public interface TranslateService {
 
     String translate(String text);
+
+    /**
+     * 单条翻译结果，失败时 translatedText 为 null，error 为失败原因
+     */
+    record TranslateResult(String text, String translatedText, String error) {}
+
+    /**
+     * 批量翻译，结果与输入顺序一致，单条失败不影响其他条目
+     */
+    List<TranslateResult> translateBatch(List<String> texts);
 }
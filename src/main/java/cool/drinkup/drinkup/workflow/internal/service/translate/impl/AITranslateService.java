@@ -1,12 +1,19 @@
 package cool.drinkup.drinkup.workflow.internal.service.translate.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import cool.drinkup.drinkup.workflow.internal.config.AITranslateProperties;
 import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
-import cool.drinkup.drinkup.workflow.internal.model.PromptContent;
-import cool.drinkup.drinkup.workflow.internal.repository.PromptRepository;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.llmcache.LlmResultCache;
 import cool.drinkup.drinkup.workflow.internal.service.translate.TranslateService;
-import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.messages.SystemMessage;
@@ -14,32 +21,55 @@ import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AITranslateService implements TranslateService {
 
+    private static final String TASK = "translate";
+
+    private static final String BATCH_INSTRUCTION =
+            """
+
+
+            The user message is a JSON array of items with an id and a text.
+            Translate the text of every item independently following the instructions above.
+            Return every id exactly once with its translation in the text field.
+            """;
+
+    /**
+     * 每条输入在 JSON 中的 id 与字段名开销
+     */
+    private static final int BATCH_ITEM_OVERHEAD_TOKENS = 8;
+
+    private static final BeanOutputConverter<BatchTranslation> BATCH_OUTPUT =
+            new BeanOutputConverter<>(BatchTranslation.class);
+
+    private static final TokenCountEstimator TOKEN_COUNT_ESTIMATOR = new JTokkitTokenCountEstimator();
+
+    record BatchItem(int id, String text) {}
+
+    record BatchTranslation(List<BatchItem> translations) {}
+
     private final ChatModel translateChatModel;
 
     private final AITranslateProperties aiTranslateProperties;
 
-    private final PromptRepository promptRepository;
+    private final WorkflowConfigRegistry workflowConfigRegistry;
 
-    private String promptTemplate;
+    private final LlmResultCache llmResultCache;
 
-    @PostConstruct
-    public void init() {
-        PromptContent prompt = promptRepository.findByType(PromptTypeEnum.TRANSLATE.name());
-        if (prompt == null) {
-            return;
-        }
-        this.promptTemplate = prompt.getSystemPrompt();
-    }
+    private final ObjectMapper objectMapper;
 
     @Override
     public String translate(String text) {
+        String promptTemplate = workflowConfigRegistry.getPrompt(PromptTypeEnum.TRANSLATE);
         if (promptTemplate == null) {
             log.warn("翻译提示词模板未找到，使用默认翻译");
             return text;
@@ -56,9 +86,13 @@ public class AITranslateService implements TranslateService {
                 ChatOptions.builder().model(aiTranslateProperties.getModel()).build());
 
         try {
-            // 调用 AI 模型进行翻译
-            var response = translateChatModel.call(prompt);
-            String translatedText = response.getResult().getOutput().getText();
+            // 调用 AI 模型进行翻译，相同输入直接使用缓存结果
+            String translatedText = llmResultCache.getOrCompute(
+                    TASK, aiTranslateProperties.getModel(), systemPrompt, text, () -> translateChatModel
+                            .call(prompt)
+                            .getResult()
+                            .getOutput()
+                            .getText());
             log.info("翻译完成: {} -> {}", text, translatedText);
             return translatedText;
         } catch (Exception e) {
@@ -66,4 +100,115 @@ public class AITranslateService implements TranslateService {
             return text; // 翻译失败时返回原文
         }
     }
+
+    /**
+     * 去重后先查缓存，未命中的按 token 预算打包，每包一次结构化输出调用，多包并行
+     */
+    @Override
+    public List<TranslateResult> translateBatch(List<String> texts) {
+        String promptTemplate = workflowConfigRegistry.getPrompt(PromptTypeEnum.TRANSLATE);
+        if (promptTemplate == null) {
+            log.warn("翻译提示词模板未找到，批量翻译失败");
+            return texts.stream()
+                    .map(text -> new TranslateResult(text, null, "翻译提示词模板未找到"))
+                    .toList();
+        }
+        String model = aiTranslateProperties.getModel();
+        // 批量结果来自追加了批量指令的提示词，按实际系统提示词缓存，不与单条翻译结果混用
+        String systemPrompt = promptTemplate + BATCH_INSTRUCTION + BATCH_OUTPUT.getFormat();
+
+        Map<String, TranslateResult> results = new ConcurrentHashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (String text : new LinkedHashSet<>(texts)) {
+            if (text == null) {
+                continue;
+            }
+            if (!StringUtils.hasText(text)) {
+                results.put(text, new TranslateResult(text, text, null));
+                continue;
+            }
+            String cached = llmResultCache.get(TASK, model, systemPrompt, text);
+            if (cached != null) {
+                results.put(text, new TranslateResult(text, cached, null));
+            } else {
+                pending.add(text);
+            }
+        }
+
+        List<List<String>> chunks = chunk(pending);
+        log.info("批量翻译: {} 条输入，{} 条待翻译，{} 次模型调用", texts.size(), pending.size(), chunks.size());
+        if (chunks.size() == 1) {
+            translateChunk(systemPrompt, model, chunks.get(0), results);
+        } else if (chunks.size() > 1) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (List<String> chunk : chunks) {
+                    executor.execute(() -> translateChunk(systemPrompt, model, chunk, results));
+                }
+            }
+        }
+
+        return texts.stream()
+                .map(text -> text == null ? new TranslateResult(null, null, "翻译文本不能为空") : results.get(text))
+                .toList();
+    }
+
+    private List<List<String>> chunk(List<String> texts) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int tokens = 0;
+        for (String text : texts) {
+            int textTokens = TOKEN_COUNT_ESTIMATOR.estimate(text) + BATCH_ITEM_OVERHEAD_TOKENS;
+            if (!current.isEmpty()
+                    && (tokens + textTokens > aiTranslateProperties.getBatchTokenBudget()
+                            || current.size() >= aiTranslateProperties.getBatchMaxItems())) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                tokens = 0;
+            }
+            current.add(text);
+            tokens += textTokens;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private void translateChunk(
+            String systemPrompt, String model, List<String> chunk, Map<String, TranslateResult> results) {
+        try {
+            List<BatchItem> items = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                items.add(new BatchItem(i, chunk.get(i)));
+            }
+            var prompt = new Prompt(
+                    List.of(new SystemMessage(systemPrompt), new UserMessage(objectMapper.writeValueAsString(items))),
+                    ChatOptions.builder().model(model).build());
+            String response =
+                    translateChatModel.call(prompt).getResult().getOutput().getText();
+            BatchTranslation translation = BATCH_OUTPUT.convert(response);
+
+            Map<Integer, String> translated = new HashMap<>();
+            if (translation != null && translation.translations() != null) {
+                for (BatchItem item : translation.translations()) {
+                    translated.putIfAbsent(item.id(), item.text());
+                }
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                String text = chunk.get(i);
+                String translatedText = translated.get(i);
+                if (StringUtils.hasText(translatedText)) {
+                    results.put(text, new TranslateResult(text, translatedText, null));
+                    llmResultCache.put(TASK, model, systemPrompt, text, translatedText);
+                } else {
+                    results.put(text, new TranslateResult(text, null, "模型未返回该条翻译"));
+                }
+            }
+        } catch (Exception e) {
+            log.error("批量翻译失败，{} 条: {}", chunk.size(), e.getMessage(), e);
+            for (String text : chunk) {
+                results.put(text, new TranslateResult(text, null, "翻译失败: " + e.getMessage()));
+            }
+        }
+    }
 }
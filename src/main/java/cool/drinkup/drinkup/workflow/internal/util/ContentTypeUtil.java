@@ -17,13 +17,19 @@ import org.springframework.stereotype.Component;
 public class ContentTypeUtil {
 
     private final ServletContext servletContext;
-    private final Tika tika = new Tika();
+
+    /**
+     * 只在图片格式无法按文件头识别时使用，延迟到首次使用时初始化
+     */
+    private static class TikaHolder {
+        private static final Tika TIKA = new Tika();
+    }
 
     public String detectMimeType(Resource resource) throws IOException {
         String mimeType = null;
 
         try (InputStream inputStream = resource.getInputStream()) {
-            mimeType = tika.detect(inputStream);
+            mimeType = TikaHolder.TIKA.detect(inputStream);
         } catch (IOException e) {
             log.error("Failed to detect MIME type", e);
         }
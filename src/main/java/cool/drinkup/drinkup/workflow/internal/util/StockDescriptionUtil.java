@@ -11,6 +11,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 @Component
@@ -21,6 +22,7 @@ public class StockDescriptionUtil {
     private final MaterialRepository materialRepository;
     private final MaterialCategoryRepository materialCategoryRepository;
 
+    @Transactional(readOnly = true)
     public String getBarStockDescription(Long barId, List<Long> selectedStockIdList) {
         Optional<Bar> byId = barRepository.findById(barId);
         return byId.map(bar -> {
@@ -0,0 +1,139 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(4);
+        properties.setMaxQueueSize(1);
+        properties.setQueueTimeout(Duration.ofMillis(100));
+    }
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter("test", properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testAcquire_rejectsWhenQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        limiter.acquire();
+        limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        waitUntil(() -> limiter.getQueued() == 1);
+
+        ConcurrencyLimitExceededException e = assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+
+        assertEquals("queue is full", e.getReason());
+        assertThrows(Exception.class, () -> queued.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAcquire_queuedRequestRunsWhenPermitIsReleased() throws Exception {
+        properties.setQueueTimeout(Duration.ofSeconds(5));
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        waitUntil(() -> limiter.getQueued() == 1);
+        assertFalse(queued.isDone());
+
+        first.ignore();
+
+        queued.get(1, TimeUnit.SECONDS);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void testRelease_rateLimitHalvesOncePerEpoch() {
+        properties.setInitialLimit(4);
+        properties.setBackoffRatio(0.5);
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+
+        first.failure(HttpClientErrorException.create(
+                HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, null, null));
+        second.failure(new NonTransientAiException("429 - {\"error\":\"rate limited\"}"));
+
+        // 同一批请求的多次 429 只降低一次
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_otherErrorsDoNotChangeLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> limiter.execute(() -> {
+                    throw new IllegalStateException("bad request");
+                }));
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_healthySaturatedCallsIncreaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        for (int i = 0; i < 10; i++) {
+            AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+            AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+            first.success();
+            second.success();
+        }
+
+        assertTrue(limiter.getLimit() > 2);
+        assertTrue(limiter.getLimit() <= properties.getMaxLimit());
+    }
+
+    @Test
+    void testIsOverload() {
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(new RuntimeException(
+                "wrapped",
+                WebClientResponseException.create(
+                        HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", HttpHeaders.EMPTY, null, null))));
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(new TransientAiException("429 - rate limited")));
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(new RuntimeException(new SocketTimeoutException())));
+        assertFalse(AdaptiveConcurrencyLimiter.isOverload(new RuntimeException("Rate limit exceeded")));
+        // 消息中碰巧包含 429 的其他错误不算过载
+        assertFalse(AdaptiveConcurrencyLimiter.isOverload(new NonTransientAiException("400 - token 4290 invalid")));
+        assertFalse(AdaptiveConcurrencyLimiter.isOverload(new IllegalStateException("order 429 not found")));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,123 @@
+package cool.drinkup.drinkup.shared.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testExecute_concurrentCallersShareOneUpstreamCall() throws Exception {
+        // Given: 上游调用阻塞到全部调用方都已进入
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                    upstreamCalls.incrementAndGet();
+                    awaitQuietly(release);
+                    return "value";
+                })));
+            }
+            waitUntil(() ->
+                    meterRegistry.get("drinkup.singleflight.waiting").gauge().value() == callers - 1);
+            release.countDown();
+        }
+
+        // Then
+        for (Future<String> result : results) {
+            assertEquals("value", result.get());
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testExecute_waitersReceiveLeaderFailure() throws Exception {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        Future<String> leader;
+        Future<String> waiter;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                awaitQuietly(release);
+                throw new IllegalStateException("boom");
+            }));
+            waitUntil(() -> singleFlight.inFlightCount() == 1);
+            waiter = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+            waitUntil(() ->
+                    meterRegistry.get("drinkup.singleflight.waiting").gauge().value() == 1);
+            release.countDown();
+        }
+
+        // Then
+        ExecutionException e = assertThrows(ExecutionException.class, waiter::get);
+        assertEquals("boom", e.getCause().getMessage());
+        assertThrows(ExecutionException.class, leader::get);
+    }
+
+    @Test
+    void testExecute_waiterTimeoutCallsUpstreamDirectly() throws Exception {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        String waiterResult;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> singleFlight.execute("key", () -> {
+                awaitQuietly(release);
+                return "slow";
+            }));
+            waitUntil(() -> singleFlight.inFlightCount() == 1);
+            waiterResult = singleFlight.execute("key", () -> "direct");
+            release.countDown();
+        }
+
+        // Then
+        assertEquals("direct", waiterResult);
+        assertEquals(
+                1, meterRegistry.get("drinkup.singleflight.timeouts").counter().count());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
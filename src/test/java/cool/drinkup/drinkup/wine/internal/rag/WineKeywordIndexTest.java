@@ -0,0 +1,112 @@
+package cool.drinkup.drinkup.wine.internal.rag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.wine.internal.model.Wine;
+import cool.drinkup.drinkup.wine.internal.rag.config.HybridSearchProperties;
+import cool.drinkup.drinkup.wine.internal.repository.WineCategoryMappingRepository;
+import cool.drinkup.drinkup.wine.internal.repository.WineRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class WineKeywordIndexTest {
+
+    @Mock
+    private WineRepository wineRepository;
+
+    @Mock
+    private WineCategoryMappingRepository wineCategoryMappingRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private WineIndexGeneration wineIndexGeneration;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private WineKeywordIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new WineKeywordIndex(
+                wineRepository,
+                wineCategoryMappingRepository,
+                objectMapper,
+                redisTemplate,
+                wineIndexGeneration,
+                new HybridSearchProperties());
+        lenient()
+                .when(wineRepository.findByIdGreaterThanOrderByIdAsc(any(), any(Pageable.class)))
+                .thenReturn(List.of());
+        lenient().when(wineCategoryMappingRepository.findByWineIdIn(anyList())).thenReturn(List.of());
+    }
+
+    private void receive(WineKeywordIndex.IndexChange change) throws Exception {
+        index.onMessage(
+                new DefaultMessage("channel".getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(change)),
+                null);
+    }
+
+    private static Wine wine(long id, String name) {
+        Wine wine = new Wine();
+        wine.setId(id);
+        wine.setName(name);
+        wine.setNameEn(name);
+        return wine;
+    }
+
+    @Test
+    void testIsSyncedTo_requiresInitialBuild() {
+        when(wineIndexGeneration.current()).thenReturn("3");
+
+        assertFalse(index.isSyncedTo("0"));
+        index.rebuild();
+
+        assertTrue(index.isSyncedTo("3"));
+        assertFalse(index.isSyncedTo("4"));
+    }
+
+    @Test
+    void testOnMessage_appliesChangesFromOtherInstancesInOrder() throws Exception {
+        when(wineIndexGeneration.current()).thenReturn("3");
+        index.rebuild();
+        when(wineRepository.findAllById(List.of(7L))).thenReturn(List.of(wine(7L, "Negroni")));
+
+        // 本实例写入的版本 5 先于其他实例的版本 4 完成
+        index.publishChange(5L, List.of(), List.of());
+        assertFalse(index.isSyncedTo("5"));
+
+        receive(new WineKeywordIndex.IndexChange("other", 4L, List.of(7L), List.of()));
+
+        assertTrue(index.isSyncedTo("5"));
+        assertEquals(List.of(7L), index.exactMatch("negroni", List.of()));
+    }
+
+    @Test
+    void testOnMessage_removesWines() throws Exception {
+        when(wineIndexGeneration.current()).thenReturn("0");
+        index.rebuild();
+        index.put(wine(7L, "Negroni"), List.of());
+
+        receive(new WineKeywordIndex.IndexChange("other", 1L, List.of(), List.of(7L)));
+
+        assertTrue(index.isSyncedTo("1"));
+        assertTrue(index.exactMatch("negroni", List.of()).isEmpty());
+    }
+}
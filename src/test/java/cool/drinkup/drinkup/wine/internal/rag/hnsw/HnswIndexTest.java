@@ -0,0 +1,243 @@
+package cool.drinkup.drinkup.wine.internal.rag.hnsw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSearch_recallAgainstBruteForce() {
+        // Given
+        Random random = new Random(7);
+        List<float[]> vectors = randomVectors(random, 1000);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 200);
+        vectors.forEach(index::add);
+
+        // When
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> expected = bruteForce(vectors, query, 10);
+            Set<Integer> actual = index.search(query, 10, 64, null).stream()
+                    .map(HnswIndex.SearchResult::node)
+                    .collect(Collectors.toSet());
+            actual.retainAll(expected);
+            hits += actual.size();
+        }
+
+        // Then
+        double recall = hits / (double) (queries * 10);
+        assertTrue(recall > 0.9, "recall too low: " + recall);
+    }
+
+    @Test
+    void testSearch_withFilterAndDeletedNodes() {
+        // Given
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 100);
+        randomVectors(random, 500).forEach(index::add);
+        index.markDeleted(4);
+
+        // When
+        List<HnswIndex.SearchResult> results = index.search(randomVector(random), 10, 32, node -> node % 50 == 4);
+
+        // Then
+        assertEquals(9, results.size());
+        assertTrue(results.stream().allMatch(result -> result.node() % 50 == 4));
+        assertFalse(results.stream().anyMatch(result -> result.node() == 4));
+    }
+
+    @Test
+    void testSnapshot_roundTrip() throws Exception {
+        // Given
+        Random random = new Random(13);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 100);
+        List<HnswVectorStore.StoredDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            index.add(randomVector(random));
+            documents.add(new HnswVectorStore.StoredDocument("doc-" + i, "text-" + i, Map.of("wineId", i)));
+        }
+        index.markDeleted(3);
+        documents.set(3, null);
+        Path path = tempDir.resolve("wine.hnsw");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // When
+        HnswSnapshot.write(path, index, documents, objectMapper);
+        HnswSnapshot.Loaded loaded = HnswSnapshot.read(path, objectMapper);
+
+        // Then
+        float[] query = randomVector(random);
+        assertEquals(index.search(query, 5, 32, null), loaded.index().search(query, 5, 32, null));
+        assertEquals(99, loaded.index().liveCount());
+        assertEquals(documents.get(42).id(), loaded.documents().get(42).id());
+        assertEquals(null, loaded.documents().get(3));
+    }
+
+    @Test
+    void testMetadataFilter_inMatchesArrayMetadata() {
+        // Given
+        var expression = new FilterExpressionBuilder().in("categoryId", 3L, 5L).build();
+
+        // Then
+        assertTrue(MetadataFilterEvaluator.matches(expression, Map.of("categoryId", List.of(1, 5))));
+        assertFalse(MetadataFilterEvaluator.matches(expression, Map.of("categoryId", List.of(1, 2))));
+        assertTrue(MetadataFilterEvaluator.matches(expression, Map.of("categoryId", 3)));
+        assertFalse(MetadataFilterEvaluator.matches(expression, Map.of("wineId", 3)));
+    }
+
+    @Test
+    void testPartitionRouter_routesOnlyPartitionKeyConditions() {
+        // Given
+        var b = new FilterExpressionBuilder();
+
+        // Then
+        assertEquals(
+                Set.of("3", "5"),
+                PartitionRouter.route(b.in("categoryId", 3L, 5).build(), "categoryId"));
+        assertEquals(
+                Set.of("5"),
+                PartitionRouter.route(
+                        b.and(b.in("categoryId", 3L, 5L), b.eq("categoryId", 5.0))
+                                .build(),
+                        "categoryId"));
+        assertEquals(
+                Set.of("3"),
+                PartitionRouter.route(
+                        b.and(b.eq("wineId", 1), b.eq("categoryId", 3)).build(), "categoryId"));
+        assertEquals(
+                null,
+                PartitionRouter.route(
+                        b.or(b.eq("wineId", 1), b.eq("categoryId", 3)).build(), "categoryId"));
+        assertEquals(null, PartitionRouter.route(b.gt("categoryId", 3).build(), "categoryId"));
+    }
+
+    @Test
+    void testVectorStore_filteredSearchUsesPartitions() {
+        // Given
+        Random random = new Random(17);
+        Map<String, float[]> embeddings = new HashMap<>();
+        HnswVectorStore store = HnswVectorStore.builder(new FixedEmbeddingModel(embeddings))
+                .partitionKey("categoryId")
+                .build();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String text = "doc-" + i;
+            embeddings.put(text, randomVector(random));
+            documents.add(Document.builder()
+                    .id(text)
+                    .text(text)
+                    .metadata(Map.of("categoryId", List.of((long) i % 10, 100L + i % 3)))
+                    .build());
+        }
+        store.add(documents);
+        store.delete(List.of("doc-7"));
+        float[] query = randomVector(random);
+        embeddings.put("query", query);
+
+        // When
+        List<Document> results = store.similaritySearch(SearchRequest.builder()
+                .query("query")
+                .topK(5)
+                .filterExpression(
+                        new FilterExpressionBuilder().in("categoryId", 7L, 101L).build())
+                .build());
+
+        // Then
+        List<String> expected = IntStream.range(0, 200)
+                .filter(i -> i != 7 && (i % 10 == 7 || i % 3 == 1))
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -cosine(embeddings.get("doc-" + i), query)))
+                .limit(5)
+                .map(i -> "doc-" + i)
+                .toList();
+        assertEquals(expected, results.stream().map(Document::getId).toList());
+    }
+
+    private static Set<Integer> bruteForce(List<float[]> vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -cosine(vectors.get(i), query)))
+                .limit(k)
+                .collect(Collectors.toSet());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static List<float[]> randomVectors(Random random, int count) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(randomVector(random));
+        }
+        return vectors;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private record FixedEmbeddingModel(Map<String, float[]> embeddings) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(
+                        new Embedding(embeddings.get(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embeddings.get(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSION;
+        }
+    }
+}
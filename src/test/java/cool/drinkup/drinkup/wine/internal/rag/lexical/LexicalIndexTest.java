@@ -0,0 +1,87 @@
+package cool.drinkup.drinkup.wine.internal.rag.lexical;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LexicalIndexTest {
+
+    @Test
+    void testTokenize_latinWordsAndCjkBigrams() {
+        // When
+        List<String> tokens = LexicalIndex.tokenize("Gin 金汤力 Tonic");
+
+        // Then
+        assertEquals(List.of("gin", "金汤", "汤力", "tonic"), tokens);
+    }
+
+    @Test
+    void testExactMatch_ignoresCaseWhitespaceAndPunctuation() {
+        // Given
+        LexicalIndex index = new LexicalIndex(3);
+        index.put(1L, List.of("尼格罗尼", "Negroni"), "金酒 金巴利 甜味美思", List.of(10L));
+        index.put(2L, List.of("白色佳人", "White Lady"), "金酒 君度 柠檬汁", List.of(20L));
+
+        // Then
+        assertEquals(List.of(1L), index.exactMatch("  negroni ", List.of()));
+        assertEquals(List.of(2L), index.exactMatch("white-lady", List.of()));
+        assertEquals(List.of(2L), index.exactMatch("白色佳人", List.of(20L)));
+        assertTrue(index.exactMatch("白色佳人", List.of(10L)).isEmpty());
+        assertTrue(index.exactMatch("金酒", List.of()).isEmpty());
+    }
+
+    @Test
+    void testSearch_ranksNameMatchesAboveIngredientMatches() {
+        // Given
+        LexicalIndex index = new LexicalIndex(3);
+        index.put(1L, List.of("金汤力", "Gin Tonic"), "金酒 汤力水", List.of());
+        index.put(2L, List.of("尼格罗尼", "Negroni"), "金酒 金巴利 甜味美思", List.of());
+        index.put(3L, List.of("莫吉托", "Mojito"), "朗姆酒 薄荷 青柠", List.of());
+
+        // When
+        List<LexicalIndex.ScoredId> results = index.search("gin", 10, List.of());
+
+        // Then
+        assertEquals(
+                List.of(1L), results.stream().map(LexicalIndex.ScoredId::id).toList());
+        assertEquals(
+                List.of(1L, 2L),
+                index.search("金酒", 10, List.of()).stream()
+                        .map(LexicalIndex.ScoredId::id)
+                        .toList());
+    }
+
+    @Test
+    void testPut_replacesPreviousTermsAndRemoveDropsDocument() {
+        // Given
+        LexicalIndex index = new LexicalIndex(3);
+        index.put(1L, List.of("Negroni"), "gin campari", List.of());
+
+        // When
+        index.put(1L, List.of("Boulevardier"), "bourbon campari", List.of());
+
+        // Then
+        assertTrue(index.search("gin", 10, List.of()).isEmpty());
+        assertTrue(index.exactMatch("negroni", List.of()).isEmpty());
+        assertEquals(List.of(1L), index.exactMatch("boulevardier", List.of()));
+
+        index.remove(1L);
+        assertEquals(0, index.size());
+        assertTrue(index.search("campari", 10, List.of()).isEmpty());
+    }
+
+    @Test
+    void testFuse_rewardsDocumentsRankedByBothLists() {
+        // When
+        List<ReciprocalRankFusion.Fused<Long>> fused =
+                ReciprocalRankFusion.fuse(List.of(List.of(1L, 2L, 3L), List.of(4L, 2L, 1L)), 60, 3);
+
+        // Then
+        assertEquals(
+                List.of(1L, 2L, 4L),
+                fused.stream().map(ReciprocalRankFusion.Fused::id).toList());
+        assertEquals(1.0 / 61 + 1.0 / 63, fused.getFirst().score(), 1e-12);
+    }
+}
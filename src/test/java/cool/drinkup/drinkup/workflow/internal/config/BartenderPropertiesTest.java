@@ -0,0 +1,65 @@
+package cool.drinkup.drinkup.workflow.internal.config;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import cool.drinkup.drinkup.workflow.internal.service.concurrency.ChatModelConcurrencyLimiters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.deepseek.DeepSeekChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+
+@ExtendWith(MockitoExtension.class)
+class BartenderPropertiesTest {
+
+    @Mock
+    private OpenAiChatModel openAiChatModel;
+
+    @Mock
+    private DeepSeekChatModel deepSeekChatModel;
+
+    @Mock
+    private ChatModelConcurrencyLimiters chatModelConcurrencyLimiters;
+
+    private BartenderProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BartenderProperties();
+        when(chatModelConcurrencyLimiters.wrap(any(ChatModel.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testRecoverableChatModel_usesRecoverableServer() {
+        properties.setServer("deepseek");
+        properties.getRecoverable().setServer("openai");
+
+        assertSame(
+                deepSeekChatModel,
+                properties.bartenderChatModel(openAiChatModel, deepSeekChatModel, chatModelConcurrencyLimiters));
+        assertSame(
+                openAiChatModel,
+                properties.bartenderRecoverableChatModel(
+                        openAiChatModel, deepSeekChatModel, chatModelConcurrencyLimiters));
+    }
+
+    @Test
+    void testRecoverableChatModel_deepseekFallbackBehindOpenAiPrimary() {
+        properties.setServer("openai");
+        properties.getRecoverable().setServer("deepseek");
+
+        assertSame(
+                openAiChatModel,
+                properties.bartenderChatModel(openAiChatModel, deepSeekChatModel, chatModelConcurrencyLimiters));
+        assertSame(
+                deepSeekChatModel,
+                properties.bartenderRecoverableChatModel(
+                        openAiChatModel, deepSeekChatModel, chatModelConcurrencyLimiters));
+    }
+}
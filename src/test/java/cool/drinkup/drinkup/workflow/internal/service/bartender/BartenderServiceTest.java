@@ -0,0 +1,103 @@
+package cool.drinkup.drinkup.workflow.internal.service.bartender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.workflow.internal.config.BartenderProperties;
+import cool.drinkup.drinkup.workflow.internal.exception.HedgeExhaustedException;
+import cool.drinkup.drinkup.workflow.internal.service.bartender.dto.BartenderParams;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.retry.annotation.AnnotationAwareRetryOperationsInterceptor;
+
+@ExtendWith(MockitoExtension.class)
+class BartenderServiceTest {
+
+    @Mock
+    private ChatModel chatModel;
+
+    @Mock
+    private ChatModel recoverableChatModel;
+
+    @Mock
+    private WorkflowConfigRegistry workflowConfigRegistry;
+
+    private BartenderProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BartenderProperties();
+        properties.getRecoverable().setModel("recoverable");
+    }
+
+    /**
+     * 与容器中一致：开启 exposeProxy 并织入 @Retryable/@Recover
+     */
+    private BartenderService proxiedService() throws Exception {
+        BartenderService target = new BartenderService(
+                chatModel,
+                recoverableChatModel,
+                properties,
+                workflowConfigRegistry,
+                MessageWindowChatMemory.builder().build(),
+                new ObjectMapper(),
+                new SimpleMeterRegistry());
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.setExposeProxy(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(new AnnotationAwareRetryOperationsInterceptor()));
+        return (BartenderService) proxyFactory.getProxy();
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    @Test
+    void testGenerateDrinkV2_hedgeFailureDoesNotCallRecoverableModelAgain() throws Exception {
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setInitialDelay(Duration.ofMillis(50));
+        when(chatModel.call(any(Prompt.class))).thenThrow(new IllegalStateException("primary down"));
+        when(recoverableChatModel.call(any(Prompt.class))).thenReturn(response("not json"));
+        BartenderService service = proxiedService();
+
+        assertThrows(
+                HedgeExhaustedException.class,
+                () -> service.generateDrinkV2(null, BartenderParams.builder().build()));
+
+        verify(chatModel, times(1)).call(any(Prompt.class));
+        verify(recoverableChatModel, times(1)).call(any(Prompt.class));
+    }
+
+    @Test
+    void testGenerateDrinkV2_withoutHedgeRecoversOnRecoverableModel() throws Exception {
+        when(chatModel.call(any(Prompt.class))).thenThrow(new IllegalStateException("primary down"));
+        when(recoverableChatModel.call(any(Prompt.class))).thenReturn(response("{}"));
+        BartenderService service = proxiedService();
+
+        String result = service.generateDrinkV2(null, BartenderParams.builder().build());
+
+        assertEquals("{}", result);
+        verify(recoverableChatModel, times(1)).call(any(Prompt.class));
+    }
+}
@@ -0,0 +1,138 @@
+package cool.drinkup.drinkup.workflow.internal.service.cancel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cool.drinkup.drinkup.workflow.internal.service.stage.StageGraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CancellationTokenTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testCancel_countsActiveStagesAndRunsCallbacksOnce() {
+        CancellationToken token = new CancellationToken("bartender", meterRegistry);
+        AtomicInteger callbacks = new AtomicInteger();
+        token.onCancel(callbacks::incrementAndGet);
+
+        token.call("generateDrink", () -> {
+            assertTrue(token.cancel(CancellationToken.REASON_DISCONNECT));
+            assertFalse(token.cancel(CancellationToken.REASON_TIMEOUT));
+            return null;
+        });
+
+        assertEquals(1, callbacks.get());
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("drinkup.workflow.cancellations")
+                        .tag("workflow", "bartender")
+                        .tag("stage", "generateDrink")
+                        .tag("reason", CancellationToken.REASON_DISCONNECT)
+                        .counter()
+                        .count());
+        assertThrows(CancellationException.class, () -> token.call("saveDrink", () -> "saved"));
+    }
+
+    @Test
+    void testOnCancel_runsImmediatelyWhenAlreadyCancelled() {
+        CancellationToken token = new CancellationToken("chat", meterRegistry);
+        token.cancel(CancellationToken.REASON_TIMEOUT);
+        AtomicBoolean called = new AtomicBoolean();
+
+        token.onCancel(() -> called.set(true));
+
+        assertTrue(called.get());
+    }
+
+    @Test
+    void testCancel_interruptsOnlyInterruptibleRegions() throws InterruptedException {
+        CancellationToken token = new CancellationToken("bartender", meterRegistry);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch storeFinished = new CountDownLatch(1);
+        AtomicBoolean storeInterrupted = new AtomicBoolean();
+        StageGraph graph = new StageGraph("test");
+        graph.stage(
+                "generateImage",
+                Duration.ofSeconds(10),
+                token.wrap(
+                        "generateImage",
+                        () -> CancellationToken.interruptibly(() -> {
+                            started.countDown();
+                            try {
+                                Thread.sleep(10_000);
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                                throw new IllegalStateException(e);
+                            }
+                            return "url";
+                        })));
+        graph.stage("storeImage", Duration.ofSeconds(10), token.wrap("storeImage", () -> {
+            started.countDown();
+            try {
+                // 模拟上传，取消时不应被中断
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                storeInterrupted.set(true);
+            }
+            storeFinished.countDown();
+            return "id";
+        }));
+        token.onCancel(() -> graph.cancel(token.getReason()));
+        Thread.ofVirtual().start(() -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            token.cancel(CancellationToken.REASON_DISCONNECT);
+        });
+
+        assertThrows(CancellationException.class, graph::run);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(storeFinished.await(1, TimeUnit.SECONDS));
+        assertFalse(storeInterrupted.get());
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("drinkup.workflow.cancellations")
+                        .tag("stage", "generateImage")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void testInterruptibly_throwsCancellationAndClearsInterruptFlag() {
+        CancellationToken token = new CancellationToken("chat", meterRegistry);
+
+        token.call("chat", () -> {
+            assertThrows(
+                    CancellationException.class,
+                    () -> CancellationToken.interruptibly(() -> {
+                        token.cancel(CancellationToken.REASON_TIMEOUT);
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new IllegalStateException("interrupted");
+                        }
+                        return "reply";
+                    }));
+            assertFalse(Thread.currentThread().isInterrupted());
+            assertThrows(CancellationException.class, CancellationToken::throwIfCurrentCancelled);
+            return null;
+        });
+
+        // 阶段外不受影响
+        CancellationToken.throwIfCurrentCancelled();
+        assertEquals("ok", CancellationToken.interruptibly(() -> "ok"));
+    }
+}
@@ -0,0 +1,167 @@
+package cool.drinkup.drinkup.workflow.internal.service.cancel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cool.drinkup.drinkup.workflow.internal.config.WorkflowRequestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+class WorkflowRequestExecutorTest {
+
+    private final WorkflowRequestProperties properties = new WorkflowRequestProperties();
+    private final RecordingEmitter emitter = new RecordingEmitter();
+    private final WorkflowRequestExecutor executor =
+            new WorkflowRequestExecutor(properties, new SimpleMeterRegistry()) {
+                @Override
+                ResponseBodyEmitter newEmitter(long timeoutMillis) {
+                    return emitter;
+                }
+            };
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testSubmit_preparesOnRequestThreadAndRunsTaskOnWorker() throws InterruptedException {
+        Thread requestThread = Thread.currentThread();
+        AtomicReference<Thread> prepareThread = new AtomicReference<>();
+        AtomicReference<Thread> taskThread = new AtomicReference<>();
+
+        executor.submit(
+                "bartender",
+                () -> {
+                    prepareThread.set(Thread.currentThread());
+                    return "stock";
+                },
+                (stock, token) -> {
+                    taskThread.set(Thread.currentThread());
+                    return "drink with " + stock;
+                },
+                "timed out");
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("drink with stock"), emitter.sent);
+        assertSame(requestThread, prepareThread.get());
+        assertNotSame(requestThread, taskThread.get());
+        assertTrue(taskThread.get().isVirtual());
+    }
+
+    @Test
+    void testSubmit_prepareFailureThrowsOnRequestThreadWithoutStartingTask() {
+        AtomicBoolean started = new AtomicBoolean();
+
+        RuntimeException failure = assertThrows(
+                RuntimeException.class,
+                () -> executor.<String, String>submit(
+                        "chat",
+                        () -> {
+                            throw new RuntimeException("Bar not found with id: 1");
+                        },
+                        (stock, token) -> {
+                            started.set(true);
+                            return stock;
+                        },
+                        "timed out"));
+
+        assertEquals("Bar not found with id: 1", failure.getMessage());
+        assertFalse(started.get());
+    }
+
+    @Test
+    void testSubmit_cancelsWhenKeepAliveWriteFails() throws InterruptedException {
+        properties.setKeepAliveInterval(Duration.ofMillis(20));
+        AtomicReference<CancellationToken> tokenRef = new AtomicReference<>();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        executor.submit(
+                "chat",
+                token -> {
+                    tokenRef.set(token);
+                    token.onCancel(cancelled::countDown);
+                    emitter.disconnected = true;
+                    awaitQuietly(cancelled);
+                    return "late reply";
+                },
+                "timed out");
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(CancellationToken.REASON_DISCONNECT, tokenRef.get().getReason());
+        assertFalse(emitter.sent.contains("late reply"));
+    }
+
+    @Test
+    void testSubmit_writesKeepAliveThenTimeoutResult() throws InterruptedException {
+        properties.setKeepAliveInterval(Duration.ofMillis(20));
+        properties.setTimeouts(Map.of("bartender", Duration.ofMillis(200)));
+        AtomicReference<CancellationToken> tokenRef = new AtomicReference<>();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        executor.submit(
+                "bartender",
+                token -> {
+                    tokenRef.set(token);
+                    token.onCancel(cancelled::countDown);
+                    awaitQuietly(cancelled);
+                    return "late drink";
+                },
+                "timed out");
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(CancellationToken.REASON_TIMEOUT, tokenRef.get().getReason());
+        assertEquals(" ", emitter.sent.getFirst());
+        assertEquals("timed out", emitter.sent.getLast());
+        assertFalse(emitter.sent.contains("late drink"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingEmitter extends ResponseBodyEmitter {
+
+        private final List<Object> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean disconnected;
+
+        @Override
+        public void send(Object object, MediaType mediaType) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            sent.add(object);
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+    }
+}
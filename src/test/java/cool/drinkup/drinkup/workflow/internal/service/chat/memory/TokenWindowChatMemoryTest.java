@@ -0,0 +1,121 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+class TokenWindowChatMemoryTest {
+
+    private static final String CONVERSATION_ID = "c1";
+
+    /**
+     * 每个字符计 1 个 token，加上每条消息 4 个 token 的开销
+     */
+    private static final TokenCountEstimator LENGTH_ESTIMATOR = new TokenCountEstimator() {
+        @Override
+        public int estimate(String text) {
+            return text.length();
+        }
+
+        @Override
+        public int estimate(MediaContent content) {
+            return estimate(content.getText());
+        }
+
+        @Override
+        public int estimate(Iterable<MediaContent> contents) {
+            int tokens = 0;
+            for (MediaContent content : contents) {
+                tokens += estimate(content);
+            }
+            return tokens;
+        }
+    };
+
+    private InMemoryChatMemoryRepository repository;
+    private List<List<Message>> summarized;
+    private TokenWindowChatMemory memory;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryChatMemoryRepository();
+        summarized = new ArrayList<>();
+        ChatMemorySummarizer summarizer = (previous, evicted) -> {
+            summarized.add(evicted);
+            return (previous == null ? "" : previous + "|") + evicted.size();
+        };
+        memory = new TokenWindowChatMemory(
+                repository,
+                ConversationSummaryStore.inMemory(),
+                summarizer,
+                LENGTH_ESTIMATOR,
+                100,
+                Runnable::run,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testAdd_withinBudgetKeepsAllMessages() {
+        // When
+        memory.add(CONVERSATION_ID, new SystemMessage("system"));
+        memory.add(CONVERSATION_ID, new UserMessage("hello"));
+        memory.add(CONVERSATION_ID, new AssistantMessage("hi"));
+
+        // Then
+        assertEquals(3, memory.get(CONVERSATION_ID).size());
+        assertTrue(summarized.isEmpty());
+    }
+
+    @Test
+    void testAdd_overBudgetEvictsOldestTurnsIntoSummary() {
+        // Given: 每轮 2 条消息共 26 个 token，系统消息 10 个 token
+        memory.add(CONVERSATION_ID, new SystemMessage("system"));
+        for (int i = 0; i < 4; i++) {
+            memory.add(CONVERSATION_ID, new UserMessage("user turn " + i));
+            memory.add(CONVERSATION_ID, new AssistantMessage("reply " + i));
+        }
+        memory.awaitSummary(CONVERSATION_ID);
+
+        // When
+        List<Message> messages = memory.get(CONVERSATION_ID);
+
+        // Then: 系统消息保留，摘要紧随其后，窗口以用户消息开头
+        assertInstanceOf(SystemMessage.class, messages.get(0));
+        assertEquals("system", messages.get(0).getText());
+        assertEquals(
+                TokenWindowChatMemory.SUMMARY_PREFIX + "2|4", messages.get(1).getText());
+        assertEquals("user turn 3", messages.get(2).getText());
+        assertEquals(4, messages.size());
+        assertEquals(List.of("user turn 0", "reply 0"), texts(summarized.get(0)));
+        assertEquals(List.of("user turn 1", "reply 1", "user turn 2", "reply 2"), texts(summarized.get(1)));
+        assertTrue(repository.findByConversationId(CONVERSATION_ID).stream()
+                .noneMatch(message -> message.getText().startsWith(TokenWindowChatMemory.SUMMARY_PREFIX)));
+    }
+
+    @Test
+    void testAdd_keepsLatestMessageEvenWhenOverBudget() {
+        // When
+        memory.add(CONVERSATION_ID, new UserMessage("x".repeat(200)));
+
+        // Then
+        assertEquals(1, memory.get(CONVERSATION_ID).size());
+        assertTrue(summarized.isEmpty());
+    }
+
+    private static List<String> texts(List<Message> messages) {
+        return messages.stream().map(Message::getText).toList();
+    }
+}
@@ -0,0 +1,183 @@
+package cool.drinkup.drinkup.workflow.internal.service.chat.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import cool.drinkup.drinkup.user.spi.AuthenticationServiceFacade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindChatMemoryRepositoryTest {
+
+    private static final String CONVERSATION_ID = "c1";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AuthenticationServiceFacade authenticationServiceFacade;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InMemoryChatMemoryHotTier hotTier;
+    private WriteBehindChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        hotTier = spy(new InMemoryChatMemoryHotTier(Duration.ofHours(1)));
+        repository = repository(hotTier);
+    }
+
+    private WriteBehindChatMemoryRepository repository(ChatMemoryHotTier tier) {
+        return new WriteBehindChatMemoryRepository(
+                tier,
+                jdbcTemplate,
+                new TransactionTemplate(transactionManager),
+                authenticationServiceFacade,
+                100,
+                meterRegistry);
+    }
+
+    private static List<StoredMessage> stored(Message... messages) {
+        return List.of(messages).stream().map(StoredMessage::of).toList();
+    }
+
+    @Test
+    void testSaveAll_appendsWhenPrefixMatchesAndReplacesOtherwise() {
+        UserMessage question = new UserMessage("推荐一杯酒");
+        AssistantMessage answer = new AssistantMessage("试试尼格罗尼");
+
+        repository.saveAll(CONVERSATION_ID, List.of(question));
+        repository.saveAll(CONVERSATION_ID, List.of(question, answer));
+        verify(hotTier).append(CONVERSATION_ID, stored(answer), null);
+
+        // 窗口滑动后旧消息不再是前缀，整体替换
+        SystemMessage summary = new SystemMessage("摘要");
+        repository.saveAll(CONVERSATION_ID, List.of(summary, answer));
+        verify(hotTier).replace(CONVERSATION_ID, stored(summary, answer), null, true);
+
+        assertEquals(stored(summary, answer), hotTier.get(CONVERSATION_ID).messages());
+        assertEquals(1, hotTier.dirtyCount());
+    }
+
+    @Test
+    void testFlush_keepsConversationDirtyWhenWrittenDuringFlush() {
+        UserMessage question = new UserMessage("推荐一杯酒");
+        AssistantMessage answer = new AssistantMessage("试试尼格罗尼");
+        repository.saveAll(CONVERSATION_ID, List.of(question));
+        List<Integer> insertedRows = new ArrayList<>();
+        doAnswer(invocation -> {
+                    List<Object[]> rows = invocation.getArgument(1);
+                    if (!invocation.<String>getArgument(0).startsWith("INSERT")) {
+                        return new int[rows.size()];
+                    }
+                    insertedRows.add(rows.size());
+                    if (insertedRows.size() == 1) {
+                        // 写回期间新增一轮对话，版本号变化后不应被标记为已写回
+                        repository.saveAll(CONVERSATION_ID, List.of(question, answer));
+                    }
+                    return new int[rows.size()];
+                })
+                .when(jdbcTemplate)
+                .batchUpdate(anyString(), anyList());
+
+        repository.flush();
+        assertEquals(1, hotTier.dirtyCount());
+
+        repository.flush();
+        assertEquals(0, hotTier.dirtyCount());
+        assertEquals(List.of(1, 2), insertedRows);
+    }
+
+    @Test
+    void testFlush_keepsConversationDirtyWhenDatabaseFails() {
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("推荐一杯酒")));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        repository.flush();
+
+        assertEquals(1, hotTier.dirtyCount());
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("drinkup.chat.memory.flush")
+                        .tag("result", "failure")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void testFlush_skipsWhileAnotherFlushHoldsLock() throws InterruptedException {
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("推荐一杯酒")));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread other = Thread.ofVirtual().start(() -> {
+            hotTier.tryLockFlush();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                hotTier.unlockFlush();
+            }
+        });
+        assertTrue(locked.await(1, TimeUnit.SECONDS));
+
+        repository.flush();
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(1, hotTier.dirtyCount());
+
+        release.countDown();
+        other.join();
+        repository.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(0, hotTier.dirtyCount());
+    }
+
+    @Test
+    void testFlush_countsDirtyConversationsMissingFromHotTier() {
+        ChatMemoryHotTier evictingTier = mock(ChatMemoryHotTier.class);
+        when(evictingTier.tryLockFlush()).thenReturn(true);
+        when(evictingTier.dirtyIds(100)).thenReturn(List.of(CONVERSATION_ID));
+
+        repository(evictingTier).flush();
+
+        verify(evictingTier).markClean(CONVERSATION_ID, -1);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+        assertEquals(
+                1.0, meterRegistry.get("drinkup.chat.memory.dropped").counter().count());
+    }
+}
@@ -0,0 +1,95 @@
+package cool.drinkup.drinkup.workflow.internal.service.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cool.drinkup.drinkup.shared.spi.AdaptiveConcurrencyLimiter;
+import cool.drinkup.drinkup.workflow.internal.config.AiConcurrencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+class ConcurrencyLimitedChatModelTest {
+
+    private static final Prompt PROMPT =
+            new Prompt("hi", ChatOptions.builder().model("test-model").build());
+
+    private final AtomicReference<Thread> streamThread = new AtomicReference<>();
+    private ChatModelConcurrencyLimiters limiters;
+    private ChatModel chatModel;
+
+    @BeforeEach
+    void setUp() {
+        AiConcurrencyProperties properties = new AiConcurrencyProperties();
+        properties.getDefaults().setInitialLimit(1);
+        properties.getDefaults().setMinLimit(1);
+        properties.getDefaults().setMaxQueueSize(1);
+        properties.getDefaults().setQueueTimeout(Duration.ofSeconds(5));
+        limiters = new ChatModelConcurrencyLimiters(properties, new SimpleMeterRegistry());
+        ChatModel delegate = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                return Flux.defer(() -> {
+                    streamThread.set(Thread.currentThread());
+                    return Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("ok")))));
+                });
+            }
+        };
+        chatModel = limiters.wrap(delegate);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return limiters.forModel("test-model");
+    }
+
+    @Test
+    void testStream_acquiresOffSubscriberThreadAndReleasesOnComplete() {
+        List<ChatResponse> responses = chatModel.stream(PROMPT).collectList().block();
+
+        assertEquals(1, responses.size());
+        assertNotEquals(Thread.currentThread(), streamThread.get());
+        assertEquals(0, limiter().getInFlight());
+    }
+
+    @Test
+    void testStream_cancelWhileQueuedReleasesPermit() {
+        AdaptiveConcurrencyLimiter.Permit held = limiter().acquire();
+        Disposable subscription = chatModel.stream(PROMPT).subscribe();
+        waitUntil(() -> limiter().getQueued() == 1);
+
+        subscription.dispose();
+        held.ignore();
+
+        // 排队中的获取在取消后才拿到许可，应直接释放而不是泄漏
+        waitUntil(() -> limiter().getInFlight() == 0 && limiter().getQueued() == 0);
+        assertNull(streamThread.get());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package cool.drinkup.drinkup.workflow.internal.service.hedge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cool.drinkup.drinkup.workflow.internal.service.hedge.HedgedExecutor.Candidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HedgedExecutorTest {
+
+    private HedgeProperties properties;
+    private HedgedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HedgeProperties();
+        properties.setInitialDelay(Duration.ofMillis(50));
+        properties.setMinDelay(Duration.ofMillis(10));
+        properties.setMinSamples(3);
+        properties.setTimeout(Duration.ofSeconds(5));
+        executor = new HedgedExecutor("test", properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testExecute_fastPrimaryDoesNotHedge() {
+        AtomicBoolean hedgeCalled = new AtomicBoolean();
+
+        String result = executor.execute(
+                new Candidate<>("primary", () -> "primary"),
+                new Candidate<>("hedge", () -> {
+                    hedgeCalled.set(true);
+                    return "hedge";
+                }),
+                value -> true);
+
+        assertEquals("primary", result);
+        assertFalse(hedgeCalled.get());
+    }
+
+    @Test
+    void testExecute_slowPrimaryIsCancelledWhenHedgeWins() throws InterruptedException {
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        String result = executor.execute(
+                new Candidate<>("primary", () -> {
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException e) {
+                        primaryCancelled.countDown();
+                    }
+                    return "primary";
+                }),
+                new Candidate<>("hedge", () -> "hedge"),
+                value -> true);
+
+        assertEquals("hedge", result);
+        assertTrue(primaryCancelled.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_invalidPrimaryHedgesImmediately() {
+        properties.setInitialDelay(Duration.ofSeconds(10));
+        long startTime = System.nanoTime();
+
+        String result = executor.execute(
+                new Candidate<>("primary", () -> "not json"),
+                new Candidate<>("hedge", () -> "{}"),
+                value -> value.startsWith("{"));
+
+        assertEquals("{}", result);
+        assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testExecute_bothFailThrowsLastError() {
+        RuntimeException error = assertThrows(
+                RuntimeException.class,
+                () -> executor.execute(
+                        new Candidate<String>("primary", () -> {
+                            throw new IllegalStateException("primary down");
+                        }),
+                        new Candidate<String>("hedge", () -> {
+                            throw new IllegalStateException("hedge down");
+                        }),
+                        value -> true));
+
+        assertEquals("hedge down", error.getMessage());
+    }
+
+    @Test
+    void testHedgeDelay_usesPercentileAfterWarmUp() {
+        properties.setMinDelay(Duration.ofSeconds(1));
+        assertEquals(Duration.ofMillis(50), executor.hedgeDelay());
+
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new Candidate<>("primary", () -> "ok"), new Candidate<>("hedge", () -> "ok"), v -> true);
+        }
+
+        // 快速调用的延迟低于下限时使用最小值
+        assertEquals(Duration.ofSeconds(1), executor.hedgeDelay());
+    }
+}
@@ -0,0 +1,50 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ImageFormatTest {
+
+    @Test
+    void testDetect_commonFormats() {
+        assertEquals(ImageFormat.JPEG, ImageFormat.detect(bytes(0xFF, 0xD8, 0xFF, 0xE0)));
+        assertEquals(ImageFormat.PNG, ImageFormat.detect(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0)));
+        assertEquals(ImageFormat.GIF, ImageFormat.detect(ascii("GIF89a......")));
+        assertEquals(ImageFormat.WEBP, ImageFormat.detect(ascii("RIFF\0\0\0\0WEBPVP8 ")));
+        assertEquals(ImageFormat.HEIC, ImageFormat.detect(ascii("\0\0\0\u0018ftypheic\0\0\0\0")));
+        assertEquals(ImageFormat.HEIC, ImageFormat.detect(ascii("\0\0\0\u0018ftypmif1\0\0\0\0")));
+    }
+
+    @Test
+    void testDetect_unknownOrTruncatedHeader() {
+        assertNull(ImageFormat.detect(ascii("\0\0\0\u0018ftypisom")));
+        assertNull(ImageFormat.detect(ascii("RIFF\0\0\0\0WAVE")));
+        assertNull(ImageFormat.detect(bytes(0xFF, 0xD8)));
+        assertNull(ImageFormat.detect(new byte[0]));
+    }
+
+    @Test
+    void testDetect_onlyReadsValidLength() {
+        // Given: 缓冲区后半部分是上一次读取残留的数据
+        byte[] buffer = ascii("GIF89aRIFF\0\0");
+
+        // Then
+        assertNull(ImageFormat.detect(buffer, 4));
+        assertEquals(ImageFormat.GIF, ImageFormat.detect(buffer, 6));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,57 @@
+package cool.drinkup.drinkup.workflow.internal.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonArrayStreamParserTest {
+
+    @Test
+    void testFeed_emitsEachObjectAsSoonAsItCloses() {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+
+        assertTrue(parser.feed("```json\n{\"bar_stocks\": [{\"name\": \"金").isEmpty());
+        assertEquals(List.of("{\"name\": \"金酒\"}"), parser.feed("酒\"}"));
+        assertTrue(parser.feed(", {\"name\": \"朗姆").isEmpty());
+        assertEquals(List.of("{\"name\": \"朗姆酒\"}"), parser.feed("酒\"}]}\n```"));
+    }
+
+    @Test
+    void testFeed_ignoresBracketsInsideStringsAndNestedValues() {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+        String json = "[{\"name\": \"a}]\\\"[\", \"tags\": [\"x\", {\"y\": 1}]}, {\"name\": \"b\"}]";
+
+        List<String> elements = feedByChar(parser, json);
+
+        assertEquals(List.of("{\"name\": \"a}]\\\"[\", \"tags\": [\"x\", {\"y\": 1}]}", "{\"name\": \"b\"}"), elements);
+    }
+
+    @Test
+    void testFeed_skipsArraysWithoutObjects() {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+
+        List<String> elements = feedByChar(parser, "{\"notes\": [\"a\", \"b\"], \"user_stock\": [{\"name\": \"c\"}]}");
+
+        assertEquals(List.of("{\"name\": \"c\"}"), elements);
+    }
+
+    @Test
+    void testFeed_stopsAfterTargetArray() {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+
+        List<String> elements = feedByChar(parser, "[{\"name\": \"a\"}] [{\"name\": \"b\"}]");
+
+        assertEquals(List.of("{\"name\": \"a\"}"), elements);
+    }
+
+    private static List<String> feedByChar(JsonArrayStreamParser parser, String text) {
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            elements.addAll(parser.feed(text.substring(i, i + 1)));
+        }
+        return elements;
+    }
+}
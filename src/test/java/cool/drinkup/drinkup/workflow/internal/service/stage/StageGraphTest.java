@@ -0,0 +1,98 @@
+package cool.drinkup.drinkup.workflow.internal.service.stage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class StageGraphTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void testRun_independentStagesRunConcurrently() {
+        // Given: 两个阶段互相等待对方启动，串行执行时会超时
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        StageGraph graph = new StageGraph("test");
+        var source = graph.stage("source", TIMEOUT, () -> 20);
+        var left = graph.stage(
+                "left",
+                TIMEOUT,
+                () -> {
+                    bothStarted.countDown();
+                    assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+                    return source.get() + 1;
+                },
+                source);
+        var right = graph.stage(
+                "right",
+                TIMEOUT,
+                () -> {
+                    bothStarted.countDown();
+                    assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+                    return source.get() * 2;
+                },
+                source);
+
+        // When
+        graph.run();
+
+        // Then
+        assertEquals(21, left.get());
+        assertEquals(40, right.get());
+    }
+
+    @Test
+    void testRun_failureInterruptsSiblingsAndSkipsDependents() {
+        // Given
+        AtomicBoolean dependentRan = new AtomicBoolean();
+        StageGraph graph = new StageGraph("test");
+        var failing = graph.stage("failing", TIMEOUT, () -> {
+            Thread.sleep(50);
+            throw new IllegalStateException("boom");
+        });
+        var sibling = graph.stage("sibling", TIMEOUT, () -> {
+            Thread.sleep(10_000);
+            return "done";
+        });
+        graph.stage(
+                "dependent",
+                TIMEOUT,
+                () -> {
+                    dependentRan.set(true);
+                    return failing.get();
+                },
+                failing);
+
+        // When
+        long startTime = System.currentTimeMillis();
+        IllegalStateException e = assertThrows(IllegalStateException.class, graph::run);
+
+        // Then
+        assertEquals("boom", e.getMessage());
+        assertTrue(System.currentTimeMillis() - startTime < 5_000);
+        assertTrue(!dependentRan.get());
+        assertThrows(RuntimeException.class, sibling::get);
+    }
+
+    @Test
+    void testRun_stageTimeoutFailsGraph() {
+        // Given
+        StageGraph graph = new StageGraph("test");
+        graph.stage("slow", Duration.ofMillis(50), () -> {
+            Thread.sleep(10_000);
+            return "late";
+        });
+
+        // When
+        RuntimeException e = assertThrows(RuntimeException.class, graph::run);
+
+        // Then
+        assertTrue(e.getMessage().contains("test/slow timed out"));
+    }
+}
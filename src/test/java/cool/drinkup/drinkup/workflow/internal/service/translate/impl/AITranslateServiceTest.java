@@ -0,0 +1,149 @@
+package cool.drinkup.drinkup.workflow.internal.service.translate.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cool.drinkup.drinkup.workflow.internal.config.AITranslateProperties;
+import cool.drinkup.drinkup.workflow.internal.enums.PromptTypeEnum;
+import cool.drinkup.drinkup.workflow.internal.service.config.WorkflowConfigRegistry;
+import cool.drinkup.drinkup.workflow.internal.service.llmcache.LlmResultCache;
+import cool.drinkup.drinkup.workflow.internal.service.translate.TranslateService.TranslateResult;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+@ExtendWith(MockitoExtension.class)
+class AITranslateServiceTest {
+
+    private static final String PROMPT_TEMPLATE = "Translate to Chinese.";
+
+    @Mock
+    private WorkflowConfigRegistry workflowConfigRegistry;
+
+    @Mock
+    private LlmResultCache llmResultCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StubChatModel chatModel = new StubChatModel();
+    private final AITranslateProperties properties = new AITranslateProperties();
+    private AITranslateService service;
+
+    /**
+     * 按 id 原样返回 "译:" 前缀的文本；包含 boom 的批次整体失败，包含 skip 的条目不返回
+     */
+    private class StubChatModel implements ChatModel {
+
+        private final List<List<AITranslateService.BatchItem>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            try {
+                List<AITranslateService.BatchItem> items =
+                        objectMapper.readValue(prompt.getUserMessage().getText(), new TypeReference<>() {});
+                calls.add(items);
+                if (items.stream().anyMatch(item -> item.text().contains("boom"))) {
+                    throw new IllegalStateException("model down");
+                }
+                List<AITranslateService.BatchItem> translations = items.stream()
+                        .filter(item -> !item.text().contains("skip"))
+                        .map(item -> new AITranslateService.BatchItem(item.id(), "译:" + item.text()))
+                        .toList();
+                String json = objectMapper.writeValueAsString(new AITranslateService.BatchTranslation(translations));
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(json))));
+            } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(workflowConfigRegistry.getPrompt(PromptTypeEnum.TRANSLATE)).thenReturn(PROMPT_TEMPLATE);
+        service = new AITranslateService(chatModel, properties, workflowConfigRegistry, llmResultCache, objectMapper);
+    }
+
+    @Test
+    void testTranslateBatch_dedupsAndSkipsCachedTexts() {
+        when(llmResultCache.get(eq("translate"), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> "lime".equals(invocation.getArgument(3)) ? "青柠" : null);
+
+        List<TranslateResult> results = service.translateBatch(Arrays.asList("gin", "lime", "gin", null, " "));
+
+        assertEquals(1, chatModel.calls.size());
+        assertEquals(
+                List.of("gin"),
+                chatModel.calls.get(0).stream()
+                        .map(AITranslateService.BatchItem::text)
+                        .toList());
+        assertEquals("译:gin", results.get(0).translatedText());
+        assertEquals("青柠", results.get(1).translatedText());
+        assertEquals("译:gin", results.get(2).translatedText());
+        assertNull(results.get(3).translatedText());
+        assertEquals("翻译文本不能为空", results.get(3).error());
+        assertEquals(" ", results.get(4).translatedText());
+        // 批量结果按批量提示词缓存，不写入单条翻译的缓存键
+        verify(llmResultCache, never()).put("translate", properties.getModel(), PROMPT_TEMPLATE, "gin", "译:gin");
+        verify(llmResultCache).put(eq("translate"), eq(properties.getModel()), anyString(), eq("gin"), eq("译:gin"));
+    }
+
+    @Test
+    void testTranslateBatch_splitsByMaxItemsAndKeepsInputOrder() {
+        properties.setBatchMaxItems(2);
+        List<String> texts = List.of("a", "b", "c", "d", "e");
+
+        List<TranslateResult> results = service.translateBatch(texts);
+
+        assertEquals(3, chatModel.calls.size());
+        assertTrue(chatModel.calls.stream().allMatch(items -> items.size() <= 2));
+        assertEquals(
+                List.of("译:a", "译:b", "译:c", "译:d", "译:e"),
+                results.stream().map(TranslateResult::translatedText).toList());
+        assertEquals(texts, results.stream().map(TranslateResult::text).toList());
+    }
+
+    @Test
+    void testTranslateBatch_splitsByTokenBudget() {
+        properties.setBatchTokenBudget(30);
+        String sentence = "Shake with ice and strain into a chilled coupe glass";
+
+        List<TranslateResult> results = service.translateBatch(List.of(sentence + " 1", sentence + " 2"));
+
+        assertEquals(2, chatModel.calls.size());
+        assertEquals("译:" + sentence + " 1", results.get(0).translatedText());
+        assertEquals("译:" + sentence + " 2", results.get(1).translatedText());
+    }
+
+    @Test
+    void testTranslateBatch_reportsPerItemFailures() {
+        properties.setBatchMaxItems(2);
+
+        List<TranslateResult> results = service.translateBatch(List.of("gin", "skip me", "boom", "rum"));
+
+        assertEquals("译:gin", results.get(0).translatedText());
+        assertNull(results.get(1).translatedText());
+        assertEquals("模型未返回该条翻译", results.get(1).error());
+        assertNull(results.get(2).translatedText());
+        assertTrue(results.get(2).error().startsWith("翻译失败"));
+        assertNull(results.get(3).translatedText());
+        assertTrue(results.get(3).error().startsWith("翻译失败"));
+        verify(llmResultCache, never()).put(anyString(), anyString(), anyString(), eq("skip me"), anyString());
+    }
+}